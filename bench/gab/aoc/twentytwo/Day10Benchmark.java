@@ -0,0 +1,70 @@
+package gab.aoc.twentytwo;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.RecordSpliterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 10. This day folds its input as it's read, so the
+ * parse step does all of the real work.
+ */
+public class Day10Benchmark extends DayBenchmark
+{
+  private final Day10 day = new Day10();
+  private ByteBuffer input;
+  private Day10.RegisterValues model;
+
+  @Setup
+  public void setUp()
+  {
+    this.input = this.day.getFileBuffer();
+    this.model = this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public ByteBuffer readInput()
+  {
+    return this.day.getFileBuffer();
+  }
+
+  /**
+   * Scan the mapped input file straight into the parser, as solve does.
+   */
+  @Benchmark
+  public Day10.RegisterValues parseFromFile()
+  {
+    return this.day.parse(this.day.getFileScanner());
+  }
+
+  @Benchmark
+  public Day10.RegisterValues parse()
+  {
+    return this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public Day10.RegisterValues parseParallel()
+  {
+    return this.day.parseParallel(StreamSupport.stream(
+      new RecordSpliterator(this.input, RecordSpliterator.Boundary.LINE),
+      true));
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public List<String> partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
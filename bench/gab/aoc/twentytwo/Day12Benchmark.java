@@ -0,0 +1,57 @@
+package gab.aoc.twentytwo;
+
+import java.nio.ByteBuffer;
+
+import gab.aoc.util.ShortestPaths;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 12.
+ */
+public class Day12Benchmark extends DayBenchmark
+{
+  private final Day12 day = new Day12();
+  private ByteBuffer input;
+  private Day12.HeightMap model;
+  private ShortestPaths stepsToEnd;
+
+  @Setup
+  public void setUp()
+  {
+    this.input = this.day.getFileBuffer();
+    this.model = this.day.parse(this.input);
+    this.stepsToEnd = this.day.getStepsToEnd(this.model);
+  }
+
+  @Benchmark
+  public ByteBuffer readInput()
+  {
+    return this.day.getFileBuffer();
+  }
+
+  @Benchmark
+  public Day12.HeightMap parse()
+  {
+    return this.day.parse(this.input);
+  }
+
+  @Benchmark
+  public ShortestPaths search()
+  {
+    return this.day.getStepsToEnd(this.model);
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model, this.stepsToEnd);
+  }
+
+  @Benchmark
+  public int partTwo()
+  {
+    return this.day.partTwo(this.model, this.stepsToEnd);
+  }
+}
@@ -0,0 +1,47 @@
+package gab.aoc.twentytwo;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 13.
+ */
+public class Day13Benchmark extends DayBenchmark
+{
+  private final Day13 day = new Day13();
+  private List<String> inputLines;
+  private List<Day13.Packet> model;
+
+  @Setup
+  public void setUp()
+  {
+    this.inputLines = this.day.getFileLines();
+    this.model = this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public List<String> readInput()
+  {
+    return this.day.getFileLines();
+  }
+
+  @Benchmark
+  public List<Day13.Packet> parse()
+  {
+    return this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public int partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
@@ -0,0 +1,50 @@
+package gab.aoc.twentytwo;
+
+import java.nio.ByteBuffer;
+
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.BitGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 14.
+ */
+public class Day14Benchmark extends DayBenchmark
+{
+  private final Day14 day = new Day14();
+  private ByteBuffer input;
+  private BitGrid model;
+
+  @Setup
+  public void setUp()
+  {
+    this.input = this.day.getFileBuffer();
+    this.model = this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public ByteBuffer readInput()
+  {
+    return this.day.getFileBuffer();
+  }
+
+  @Benchmark
+  public BitGrid parse()
+  {
+    return this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public int partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
@@ -0,0 +1,60 @@
+package gab.aoc.twentytwo;
+
+import java.nio.ByteBuffer;
+import java.util.stream.StreamSupport;
+
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.Coordinate;
+import gab.aoc.util.RecordSpliterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 15.
+ */
+public class Day15Benchmark extends DayBenchmark
+{
+  private final Day15 day = new Day15();
+  private ByteBuffer input;
+  private Day15.TunnelLayout model;
+
+  @Setup
+  public void setUp()
+  {
+    this.input = this.day.getFileBuffer();
+    this.model = this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public ByteBuffer readInput()
+  {
+    return this.day.getFileBuffer();
+  }
+
+  @Benchmark
+  public Day15.TunnelLayout parse()
+  {
+    return this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public Day15.TunnelLayout parseParallel()
+  {
+    return this.day.parseParallel(StreamSupport.stream(
+      new RecordSpliterator(this.input, RecordSpliterator.Boundary.LINE),
+      true));
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public Coordinate partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
@@ -0,0 +1,76 @@
+package gab.aoc.twentytwo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+import gab.aoc.twentytwo.gen.Generators;
+import gab.aoc.twentytwo.gen.InputGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for Day 16. The real input isn't in the repository, so if
+ * there's no inputs/day16.txt, one the size of the real one is generated
+ * (always from the same seed) and used instead.
+ */
+public class Day16Benchmark extends DayBenchmark
+{
+  private static final Path REAL_INPUT = Paths.get("inputs", "day16.txt");
+  private static final long GENERATOR_SEED = 1;
+
+  private final Day16 day = new Day16();
+  private Optional<Path> generatedInput = Optional.empty();
+  private List<String> inputLines;
+  private Day16.TunnelMap model;
+
+  @Setup
+  public void setUp() throws IOException
+  {
+    if (!Files.exists(REAL_INPUT))
+    {
+      final InputGenerator generator = Generators.forDay(16);
+      final Path file = Files.createTempFile("day16", ".txt");
+      this.generatedInput = Optional.of(file);
+
+      Generators.write(generator, generator.defaultScale(), GENERATOR_SEED,
+        file.toString());
+      this.day.setInputFile(file);
+    }
+
+    this.inputLines = this.day.getFileLines();
+    this.model = this.day.parse(this.inputLines);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException
+  {
+    if (this.generatedInput.isPresent())
+    {
+      Files.deleteIfExists(this.generatedInput.get());
+    }
+  }
+
+  @Benchmark
+  public List<String> readInput()
+  {
+    return this.day.getFileLines();
+  }
+
+  @Benchmark
+  public Day16.TunnelMap parse()
+  {
+    return this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+}
@@ -0,0 +1,57 @@
+package gab.aoc.twentytwo;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 2. This day folds its input as it's read, so the
+ * parse step does all of the real work.
+ */
+public class Day2Benchmark extends DayBenchmark
+{
+  private final Day2 day = new Day2();
+  private List<String> inputLines;
+  private Day2.ScoreTally model;
+
+  @Setup
+  public void setUp()
+  {
+    this.inputLines = this.day.getFileLines();
+    this.model = this.day.parse(this.inputLines.stream());
+  }
+
+  @Benchmark
+  public List<String> readInput()
+  {
+    return this.day.getFileLines();
+  }
+
+  /**
+   * Stream the input file straight into the parser, as solve does.
+   */
+  @Benchmark
+  public Day2.ScoreTally parseFromFile()
+  {
+    return this.day.parseFileLines(this.day::parse);
+  }
+
+  @Benchmark
+  public Day2.ScoreTally parse()
+  {
+    return this.day.parse(this.inputLines.stream());
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public int partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
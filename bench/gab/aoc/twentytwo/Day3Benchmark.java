@@ -0,0 +1,63 @@
+package gab.aoc.twentytwo;
+
+import java.util.List;
+
+import gab.aoc.util.RecordSpliterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 3. This day folds its input as it's read, so the
+ * parse step does all of the real work.
+ */
+public class Day3Benchmark extends DayBenchmark
+{
+  private final Day3 day = new Day3();
+  private List<String> inputLines;
+  private Day3.RucksackTally model;
+
+  @Setup
+  public void setUp()
+  {
+    this.inputLines = this.day.getFileLines();
+    this.model = this.day.parse(this.inputLines.stream());
+  }
+
+  @Benchmark
+  public List<String> readInput()
+  {
+    return this.day.getFileLines();
+  }
+
+  /**
+   * Read the mapped input file in parallel straight into the parser, as
+   * solve does.
+   */
+  @Benchmark
+  public Day3.RucksackTally parseFromFile()
+  {
+    return this.day.parse(
+      this.day.parallelFileRecords(
+        RecordSpliterator.Boundary.THREE_LINE_GROUP)
+        .map(Day3::toLine));
+  }
+
+  @Benchmark
+  public Day3.RucksackTally parse()
+  {
+    return this.day.parse(this.inputLines.stream());
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public int partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
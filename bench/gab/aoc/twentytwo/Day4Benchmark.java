@@ -0,0 +1,59 @@
+package gab.aoc.twentytwo;
+
+import java.nio.ByteBuffer;
+
+import gab.aoc.util.AsciiScanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 4. This day folds its input as it's read, so the
+ * parse step does all of the real work.
+ */
+public class Day4Benchmark extends DayBenchmark
+{
+  private final Day4 day = new Day4();
+  private ByteBuffer input;
+  private Day4.PairingTally model;
+
+  @Setup
+  public void setUp()
+  {
+    this.input = this.day.getFileBuffer();
+    this.model = this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public ByteBuffer readInput()
+  {
+    return this.day.getFileBuffer();
+  }
+
+  /**
+   * Scan the mapped input file straight into the parser, as solve does.
+   */
+  @Benchmark
+  public Day4.PairingTally parseFromFile()
+  {
+    return this.day.parse(this.day.getFileScanner());
+  }
+
+  @Benchmark
+  public Day4.PairingTally parse()
+  {
+    return this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public long partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public long partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
@@ -0,0 +1,47 @@
+package gab.aoc.twentytwo;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 5.
+ */
+public class Day5Benchmark extends DayBenchmark
+{
+  private final Day5 day = new Day5();
+  private List<String> inputLines;
+  private Day5.Procedure model;
+
+  @Setup
+  public void setUp()
+  {
+    this.inputLines = this.day.getFileLines();
+    this.model = this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public List<String> readInput()
+  {
+    return this.day.getFileLines();
+  }
+
+  @Benchmark
+  public Day5.Procedure parse()
+  {
+    return this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public String partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public String partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
@@ -0,0 +1,47 @@
+package gab.aoc.twentytwo;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 6.
+ */
+public class Day6Benchmark extends DayBenchmark
+{
+  private final Day6 day = new Day6();
+  private List<String> inputLines;
+  private String model;
+
+  @Setup
+  public void setUp()
+  {
+    this.inputLines = this.day.getFileLines();
+    this.model = this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public List<String> readInput()
+  {
+    return this.day.getFileLines();
+  }
+
+  @Benchmark
+  public String parse()
+  {
+    return this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public int partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public int partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
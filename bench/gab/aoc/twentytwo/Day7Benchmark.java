@@ -0,0 +1,47 @@
+package gab.aoc.twentytwo;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 7.
+ */
+public class Day7Benchmark extends DayBenchmark
+{
+  private final Day7 day = new Day7();
+  private List<String> inputLines;
+  private Day7.RootDirectory model;
+
+  @Setup
+  public void setUp()
+  {
+    this.inputLines = this.day.getFileLines();
+    this.model = this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public List<String> readInput()
+  {
+    return this.day.getFileLines();
+  }
+
+  @Benchmark
+  public Day7.RootDirectory parse()
+  {
+    return this.day.parse(this.inputLines);
+  }
+
+  @Benchmark
+  public long partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public long partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
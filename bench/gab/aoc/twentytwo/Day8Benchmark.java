@@ -0,0 +1,48 @@
+package gab.aoc.twentytwo;
+
+import gab.aoc.util.ByteCells;
+import gab.aoc.util.InputWindows;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 8.
+ */
+public class Day8Benchmark extends DayBenchmark
+{
+  private final Day8 day = new Day8();
+  private InputWindows input;
+  private ByteCells model;
+
+  @Setup
+  public void setUp()
+  {
+    this.input = this.day.getFileWindows();
+    this.model = this.day.parse(this.input);
+  }
+
+  @Benchmark
+  public InputWindows readInput()
+  {
+    return this.day.getFileWindows();
+  }
+
+  @Benchmark
+  public ByteCells parse()
+  {
+    return this.day.parse(this.input);
+  }
+
+  @Benchmark
+  public long partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public int partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
@@ -0,0 +1,60 @@
+package gab.aoc.twentytwo;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import gab.aoc.util.AsciiScanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks for Day 9. This day folds its input as it's read, so the
+ * parse step does all of the real work.
+ */
+public class Day9Benchmark extends DayBenchmark
+{
+  private final Day9 day = new Day9();
+  private ByteBuffer input;
+  private List<Day9.Rope> model;
+
+  @Setup
+  public void setUp()
+  {
+    this.input = this.day.getFileBuffer();
+    this.model = this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public ByteBuffer readInput()
+  {
+    return this.day.getFileBuffer();
+  }
+
+  /**
+   * Scan the mapped input file straight into the parser, as solve does.
+   */
+  @Benchmark
+  public List<Day9.Rope> parseFromFile()
+  {
+    return this.day.parse(this.day.getFileScanner());
+  }
+
+  @Benchmark
+  public List<Day9.Rope> parse()
+  {
+    return this.day.parse(new AsciiScanner(this.input));
+  }
+
+  @Benchmark
+  public long partOne()
+  {
+    return this.day.partOne(this.model);
+  }
+
+  @Benchmark
+  public long partTwo()
+  {
+    return this.day.partTwo(this.model);
+  }
+}
@@ -0,0 +1,31 @@
+package gab.aoc.twentytwo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common JMH settings for the per-day benchmarks. Each day's benchmark
+ * extends this, and measures reading the input, parsing it, and each part
+ * separately. The JMH annotations are inherited, so the settings only need
+ * to live here; they can still be overridden on the command line.
+ *
+ * The input files are read from the "inputs" directory, so the benchmarks
+ * need to be run from the repository root.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class DayBenchmark
+{
+}
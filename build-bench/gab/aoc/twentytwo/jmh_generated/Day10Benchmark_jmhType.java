@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day10Benchmark_jmhType extends Day10Benchmark_jmhType_B3 {
+}
+
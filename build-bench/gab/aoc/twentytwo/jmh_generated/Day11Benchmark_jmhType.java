@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day11Benchmark_jmhType extends Day11Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day12Benchmark_jmhType extends Day12Benchmark_jmhType_B3 {
+}
+
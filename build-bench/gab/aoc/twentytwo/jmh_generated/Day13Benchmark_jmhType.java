@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day13Benchmark_jmhType extends Day13Benchmark_jmhType_B3 {
+}
+
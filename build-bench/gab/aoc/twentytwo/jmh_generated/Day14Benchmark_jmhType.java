@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day14Benchmark_jmhType extends Day14Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day15Benchmark_jmhType extends Day15Benchmark_jmhType_B3 {
+}
+
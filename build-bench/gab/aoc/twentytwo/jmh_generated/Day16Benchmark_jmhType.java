@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day16Benchmark_jmhType extends Day16Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day1Benchmark_jmhType extends Day1Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day2Benchmark_jmhType extends Day2Benchmark_jmhType_B3 {
+}
+
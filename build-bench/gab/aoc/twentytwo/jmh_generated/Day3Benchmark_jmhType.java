@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day3Benchmark_jmhType extends Day3Benchmark_jmhType_B3 {
+}
+
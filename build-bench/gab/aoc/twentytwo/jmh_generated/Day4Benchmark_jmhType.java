@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day4Benchmark_jmhType extends Day4Benchmark_jmhType_B3 {
+}
+
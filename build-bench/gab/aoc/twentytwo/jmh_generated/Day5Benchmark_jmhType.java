@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day5Benchmark_jmhType extends Day5Benchmark_jmhType_B3 {
+}
+
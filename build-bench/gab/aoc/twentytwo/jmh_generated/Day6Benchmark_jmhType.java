@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day6Benchmark_jmhType extends Day6Benchmark_jmhType_B3 {
+}
+
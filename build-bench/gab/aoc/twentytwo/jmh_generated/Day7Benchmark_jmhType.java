@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day7Benchmark_jmhType extends Day7Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day8Benchmark_jmhType extends Day8Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package gab.aoc.twentytwo.jmh_generated;
+public class Day9Benchmark_jmhType extends Day9Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,99 @@
+package gab.aoc.twentytwo;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.OptionalLong;
+
+import gab.aoc.util.GcUsage;
+import gab.aoc.util.InputFileException;
+
+/**
+ * Prints how much each day allocated, phase by phase, along with the
+ * garbage collections while it ran. Allocation is also shown per line of
+ * input, which is a figure that shouldn't grow with the input size if a day
+ * scales well.
+ */
+final class AllocationReport
+{
+  private static final String ROW_FORMAT = "%-6s %-10s %16s %12s %6s %10s";
+
+  private AllocationReport() {}
+
+  /**
+   * @return the number of lines in the task's input, if it can be read
+   */
+  static OptionalLong countInputLines(final DayTask task)
+  {
+    try
+    {
+      return OptionalLong.of(task.countInputLines());
+    }
+    catch (final InputFileException e)
+    {
+      return OptionalLong.empty();
+    }
+  }
+
+  private static String formatKilobytes(final long bytes)
+  {
+    return (bytes < 0) ? "-" : String.format("%.1f", bytes / 1024.0);
+  }
+
+  private static String formatPerLine(
+      final long bytes, final OptionalLong lines)
+  {
+    if (bytes < 0 || !lines.isPresent() || lines.getAsLong() == 0)
+    {
+      return "-";
+    }
+
+    return String.valueOf(bytes / lines.getAsLong());
+  }
+
+  private static void printRow(
+      final PrintStream output,
+      final int day,
+      final String phase,
+      final long bytes,
+      final OptionalLong lines,
+      final GcUsage gc)
+  {
+    output.println(String.format(ROW_FORMAT,
+      day,
+      phase,
+      formatKilobytes(bytes),
+      formatPerLine(bytes, lines),
+      gc.collections(),
+      gc.collectionMillis()));
+  }
+
+  /**
+   * Print a table with a row for each phase of each day, and a total row
+   * for each day.
+   */
+  public static void print(
+      final PrintStream output, final List<TaskOutcome> outcomes)
+  {
+    output.println(String.format(ROW_FORMAT,
+      "Day", "Phase", "Allocated (KB)", "Bytes/line", "GCs", "GC (ms)"));
+
+    for (final TaskOutcome outcome : outcomes)
+    {
+      long totalBytes = 0;
+      GcUsage totalGc = GcUsage.none();
+
+      for (final PhaseMetrics phase : outcome.phases())
+      {
+        final long bytes = phase.usage().allocatedBytes();
+        printRow(output, outcome.day(), phase.name(), bytes,
+          outcome.inputLines(), phase.gc());
+
+        totalBytes = (bytes < 0 || totalBytes < 0) ? -1 : (totalBytes + bytes);
+        totalGc = totalGc.plus(phase.gc());
+      }
+
+      printRow(output, outcome.day(), "total", totalBytes,
+        outcome.inputLines(), totalGc);
+    }
+  }
+}
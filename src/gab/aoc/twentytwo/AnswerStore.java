@@ -0,0 +1,486 @@
+package gab.aoc.twentytwo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.InputFileException;
+import gab.aoc.util.TaskException;
+
+/**
+ * A file of days' answers from earlier runs, so that solving a day again on
+ * exactly the same input just looks up the answers instead of doing all the
+ * work again.
+ *
+ * Entries are keyed by the day, the day's solver version and a SHA-256 hash
+ * of the input file, so editing an input or changing how a day works never
+ * picks up stale answers. The file starts with a header naming it as a
+ * store (and its format version), and anything else is refused rather than
+ * overwritten. After that it's append-only: each record has a magic
+ * number, its length and a CRC, and a record that's torn or corrupt ends
+ * the file (it's cut off on the next append). When the file grows past its
+ * size limit, it's rewritten in place with only the newest entries, oldest
+ * first.
+ *
+ * Answers are stored as text, so a stored result prints exactly as it did
+ * when it was solved. Visualisations aren't stored, so days asked to draw
+ * one are always solved.
+ */
+class AnswerStore
+{
+  public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+
+  private static final int FILE_MAGIC = 0x414f4353; // "AOCS"
+  private static final int FORMAT_VERSION = 1;
+
+  //---------------------------------------------------------------------------
+  // File magic number and format version.
+  //---------------------------------------------------------------------------
+  private static final int HEADER_LENGTH = 8;
+
+  private static final int MAGIC = 0x414f4341; // "AOCA"
+
+  //---------------------------------------------------------------------------
+  // Magic number, payload length and CRC.
+  //---------------------------------------------------------------------------
+  private static final int RECORD_OVERHEAD = 12;
+
+  private final Path file;
+  private final long maxBytes;
+
+  //---------------------------------------------------------------------------
+  // Whole records (header, payload and CRC) by key, oldest first, as of the
+  // last time the file was read. A key that was stored more than once keeps
+  // its newest record, in the newest position.
+  //---------------------------------------------------------------------------
+  private Map<String, byte[]> records = new LinkedHashMap<>();
+  private long loadedSize = -1;
+
+  public AnswerStore(final Path file, final long maxBytes)
+  {
+    this.file = file;
+    this.maxBytes = maxBytes;
+  }
+
+  public AnswerStore(final Path file)
+  {
+    this(file, DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * Solve the task, unless there's a store and it already has the answers
+   * for the task's input. Hashing the input and looking up the answers are
+   * recorded as the "hash" and "lookup" phases.
+   */
+  static TaskResult solve(final Optional<AnswerStore> store,
+    final DayTask task) throws TaskException
+  {
+    if (!store.isPresent() || task.isVisualise())
+    {
+      return task.solve();
+    }
+
+    final String key = task.phase("hash",
+      () -> task.getDayName() + ":" + task.solverVersion() + ":" +
+        task.getInputHash() );
+
+    final Optional<TaskResult> stored =
+      task.phase("lookup", () -> store.get().get(key) );
+
+    if (stored.isPresent())
+    {
+      return stored.get();
+    }
+
+    final TaskResult result = task.solve();
+    store.get().put(key, result);
+    return result;
+  }
+
+  /**
+   * @return the stored answers for the given key, if there are any
+   */
+  public synchronized Optional<TaskResult> get(final String key)
+  {
+    try
+    {
+      //-----------------------------------------------------------------------
+      // Another process may have added to the file since it was read.
+      //-----------------------------------------------------------------------
+      final long size = Files.exists(this.file) ? Files.size(this.file) : 0;
+
+      if (size != this.loadedSize)
+      {
+        final byte[] contents = Files.exists(this.file) ?
+          Files.readAllBytes(this.file) : new byte[0];
+        checkHeader(contents);
+        this.records = new LinkedHashMap<>();
+        readRecords(contents, this.records);
+        this.loadedSize = size;
+      }
+
+      final byte[] record = this.records.get(key);
+
+      if (record == null)
+      {
+        return Optional.empty();
+      }
+
+      final DataInputStream input = new DataInputStream(
+        new ByteArrayInputStream(record, 8, record.length - RECORD_OVERHEAD));
+      input.readUTF();
+      return Optional.of(readResult(input));
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not read answer store", e);
+    }
+  }
+
+  /**
+   * Append the answers for the given key to the file, then compact it if it
+   * has grown past its size limit. The file is locked while it's written,
+   * so concurrent runs don't interleave their records.
+   */
+  public synchronized void put(final String key, final TaskResult result)
+  {
+    try (final FileChannel channel = FileChannel.open(this.file,
+           StandardOpenOption.CREATE, StandardOpenOption.READ,
+           StandardOpenOption.WRITE))
+    {
+      final FileLock lock = channel.lock();
+
+      try
+      {
+        append(channel, key, result);
+      }
+      finally
+      {
+        lock.release();
+      }
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not write answer store", e);
+    }
+  }
+
+  /**
+   * Append a record to the locked file, compacting it if need be.
+   */
+  private void append(
+      final FileChannel channel, final String key, final TaskResult result)
+    throws IOException
+  {
+    //-------------------------------------------------------------------------
+    // Re-read the file under the lock, and cut off anything after the last
+    // good record, so a torn append can't hide the new record. Nothing is
+    // cut until the header shows that the file really is a store.
+    //-------------------------------------------------------------------------
+    final ByteBuffer contents = ByteBuffer.allocate((int)channel.size());
+    while (contents.hasRemaining() && channel.read(contents) >= 0)
+    {
+      // Keep reading until the buffer is full.
+    }
+
+    checkHeader(contents.array());
+
+    if (contents.capacity() == 0)
+    {
+      writeFully(channel, header(), 0);
+    }
+
+    this.records = new LinkedHashMap<>();
+    final long validSize = readRecords(contents.array(), this.records);
+    channel.truncate(validSize);
+
+    final byte[] record = encodeRecord(key, result);
+    this.records.remove(key);
+    this.records.put(key, record);
+    channel.write(ByteBuffer.wrap(record), validSize);
+    channel.force(false);
+    this.loadedSize = validSize + record.length;
+
+    if (this.loadedSize > this.maxBytes)
+    {
+      compact(channel);
+    }
+  }
+
+  /**
+   * Rewrite the locked file in place with the newest records that fit in
+   * half the size limit.
+   *
+   * The file is rewritten through the same channel rather than replaced, as
+   * other runs lock the file itself: a replacement would be a new file that
+   * nobody holds a lock on, and a run waiting on the old one would append
+   * its record to the old file once it got the lock, and lose it. The
+   * header is kept, so if the rewrite is interrupted the file ends at the
+   * first torn record, as after any torn append.
+   */
+  private void compact(final FileChannel channel) throws IOException
+  {
+    final List<Map.Entry<String, byte[]>> newestFirst =
+      new ArrayList<>(this.records.entrySet());
+    Collections.reverse(newestFirst);
+
+    final List<Map.Entry<String, byte[]>> kept = new ArrayList<>();
+    long keptSize = 0;
+
+    for (final Map.Entry<String, byte[]> entry : newestFirst)
+    {
+      if (keptSize + entry.getValue().length > this.maxBytes / 2)
+      {
+        break;
+      }
+
+      kept.add(entry);
+      keptSize += entry.getValue().length;
+    }
+
+    Collections.reverse(kept);
+    final Map<String, byte[]> compacted = new LinkedHashMap<>();
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    for (final Map.Entry<String, byte[]> entry : kept)
+    {
+      compacted.put(entry.getKey(), entry.getValue());
+      buffer.write(entry.getValue());
+    }
+
+    channel.truncate(HEADER_LENGTH);
+    writeFully(channel, buffer.toByteArray(), HEADER_LENGTH);
+    channel.force(false);
+
+    this.records = compacted;
+    this.loadedSize = HEADER_LENGTH + keptSize;
+  }
+
+  private static void writeFully(
+      final FileChannel channel, final byte[] bytes, final long position)
+    throws IOException
+  {
+    final ByteBuffer contents = ByteBuffer.wrap(bytes);
+    long offset = position;
+
+    while (contents.hasRemaining())
+    {
+      offset += channel.write(contents, offset);
+    }
+  }
+
+  private static byte[] header()
+  {
+    return ByteBuffer.allocate(HEADER_LENGTH)
+      .putInt(FILE_MAGIC).putInt(FORMAT_VERSION).array();
+  }
+
+  /**
+   * @throws InputFileException unless the given file contents are empty
+   *   (a new store) or start with a store header
+   */
+  private void checkHeader(final byte[] contents)
+  {
+    if (contents.length == 0)
+    {
+      return;
+    }
+
+    final ByteBuffer buffer = ByteBuffer.wrap(contents);
+
+    if (contents.length < HEADER_LENGTH || buffer.getInt() != FILE_MAGIC)
+    {
+      throw new InputFileException("Not an answer store: " + this.file);
+    }
+
+    final int version = buffer.getInt();
+
+    if (version != FORMAT_VERSION)
+    {
+      throw new InputFileException("Answer store " + this.file +
+        " has unsupported format version " + version);
+    }
+  }
+
+  /**
+   * Read the records in the given file contents (after the header) into
+   * the map by key, up to the first one that's torn or corrupt.
+   *
+   * @return the length of the contents up to the end of the last good
+   *   record, including the header
+   */
+  private static int readRecords(
+      final byte[] contents, final Map<String, byte[]> records)
+    throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.wrap(contents);
+    int validLength = HEADER_LENGTH;
+
+    if (contents.length < HEADER_LENGTH)
+    {
+      return validLength;
+    }
+
+    //-------------------------------------------------------------------------
+    // The cast to Buffer is deliberate, as in ByteLines.
+    //-------------------------------------------------------------------------
+    ((Buffer)buffer).position(HEADER_LENGTH);
+
+    while (buffer.remaining() >= RECORD_OVERHEAD)
+    {
+      final int start = buffer.position();
+
+      if (buffer.getInt() != MAGIC)
+      {
+        break;
+      }
+
+      final int length = buffer.getInt();
+
+      if (length < 0 || buffer.remaining() < length + 4)
+      {
+        break;
+      }
+
+      final CRC32 crc = new CRC32();
+      crc.update(contents, buffer.position(), length);
+      final DataInputStream input = new DataInputStream(
+        new ByteArrayInputStream(contents, buffer.position(), length));
+      //-----------------------------------------------------------------------
+      // The cast to Buffer is deliberate, as in ByteLines.
+      //-----------------------------------------------------------------------
+      ((Buffer)buffer).position(buffer.position() + length);
+
+      if (buffer.getInt() != (int)crc.getValue())
+      {
+        break;
+      }
+
+      final String key = input.readUTF();
+      records.remove(key);
+      records.put(key, Arrays.copyOfRange(contents, start, buffer.position()));
+      validLength = buffer.position();
+    }
+
+    return validLength;
+  }
+
+  private static byte[] encodeRecord(final String key, final TaskResult result)
+    throws IOException
+  {
+    final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    final DataOutputStream output = new DataOutputStream(payload);
+    output.writeUTF(key);
+    writeResult(result, output);
+    output.flush();
+
+    final CRC32 crc = new CRC32();
+    crc.update(payload.toByteArray());
+
+    final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    final DataOutputStream recordOutput = new DataOutputStream(record);
+    recordOutput.writeInt(MAGIC);
+    recordOutput.writeInt(payload.size());
+    payload.writeTo(recordOutput);
+    recordOutput.writeInt((int)crc.getValue());
+    recordOutput.flush();
+    return record.toByteArray();
+  }
+
+  private static void writeResult(
+      final TaskResult result, final DataOutputStream output)
+    throws IOException
+  {
+    writeAnswer(result.partOne(), output);
+    output.writeBoolean(result.partTwo().isPresent());
+
+    if (result.partTwo().isPresent())
+    {
+      writeAnswer(result.partTwo().get(), output);
+    }
+
+    output.writeInt(result.extras().size());
+
+    for (final Answer extra : result.extras())
+    {
+      writeAnswer(extra, output);
+    }
+  }
+
+  private static TaskResult readResult(final DataInputStream input)
+    throws IOException
+  {
+    final Answer partOne = readAnswer(input);
+    TaskResult result = input.readBoolean() ?
+      new TaskResult(partOne, readAnswer(input)) : new TaskResult(partOne);
+
+    final int extras = input.readInt();
+
+    for (int i = 0; i < extras; i++)
+    {
+      result = result.withExtra(readAnswer(input));
+    }
+
+    return result;
+  }
+
+  private static void writeAnswer(
+      final Answer answer, final DataOutputStream output) throws IOException
+  {
+    output.writeUTF(answer.label());
+    output.writeBoolean(answer.isDrawing());
+
+    if (answer.isDrawing())
+    {
+      output.writeInt(answer.drawing().size());
+
+      for (final String line : answer.drawing())
+      {
+        output.writeUTF(line);
+      }
+    }
+    else
+    {
+      output.writeUTF(String.valueOf(answer.value()));
+    }
+  }
+
+  private static Answer readAnswer(final DataInputStream input)
+    throws IOException
+  {
+    final String label = input.readUTF();
+
+    if (input.readBoolean())
+    {
+      final int count = input.readInt();
+      final List<String> lines = new ArrayList<>(count);
+
+      for (int i = 0; i < count; i++)
+      {
+        lines.add(input.readUTF());
+      }
+
+      return Answer.drawing(label, lines);
+    }
+
+    return Answer.of(label, input.readUTF());
+  }
+}
@@ -0,0 +1,234 @@
+package gab.aoc.twentytwo;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.TaskException;
+
+/**
+ * Checks that each day still gets the right answers, within its time
+ * budget, so that a day can be reworked without fear of breaking it.
+ *
+ * The manifest has one line per check, with the day, the input file, the
+ * wall-clock budget in milliseconds, and then the expected answers:
+ * <pre>
+ * # day  input            budget-ms  answers...
+ * 1      inputs/day1.txt  2000       65912 195625
+ * </pre>
+ * The answers are compared with the day's result in order: part one, part
+ * two, then any extra answers. A drawing (e.g. Day 10's CRT) is written as
+ * its lines joined with '/'. Blank lines and lines starting with '#' are
+ * ignored.
+ *
+ * Days are run one at a time, so that they don't slow each other down.
+ */
+final class AnswerVerifier
+{
+  private static final String ROW_FORMAT = "%-6s %-24s %-10s %12s %12s";
+  private static final String DRAWING_LINE_SEPARATOR = "/";
+
+  private AnswerVerifier() {}
+
+  /**
+   * A single line of the manifest.
+   */
+  private static class Expectation
+  {
+    private final int day;
+    private final Path input;
+    private final long budgetMillis;
+    private final List<String> answers;
+
+    public Expectation(
+        final int day,
+        final Path input,
+        final long budgetMillis,
+        final List<String> answers)
+    {
+      this.day = day;
+      this.input = input;
+      this.budgetMillis = budgetMillis;
+      this.answers = answers;
+    }
+
+    public int day() { return this.day; }
+    public Path input() { return this.input; }
+    public long budgetMillis() { return this.budgetMillis; }
+    public List<String> answers() { return this.answers; }
+  }
+
+  private static List<Expectation> readManifest(final Path manifest)
+    throws TaskException
+  {
+    final List<String> lines;
+
+    try
+    {
+      lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+    }
+    catch (final IOException e)
+    {
+      throw new TaskException("Could not read manifest " + manifest, e);
+    }
+
+    final List<Expectation> expectations = new ArrayList<>();
+
+    for (int i = 0; i < lines.size(); i++)
+    {
+      final String line = lines.get(i).trim();
+
+      if (line.isEmpty() || line.startsWith("#"))
+      {
+        continue;
+      }
+
+      final String[] tokens = line.split("\\s+");
+
+      if (tokens.length < 4)
+      {
+        throw new TaskException("Bad manifest line " + (i + 1) + ": " + line);
+      }
+
+      try
+      {
+        expectations.add(new Expectation(
+          Integer.parseInt(tokens[0]),
+          Paths.get(tokens[1]),
+          Long.parseLong(tokens[2]),
+          Arrays.asList(tokens).subList(3, tokens.length)));
+      }
+      catch (final NumberFormatException e)
+      {
+        throw new TaskException(
+          "Bad manifest line " + (i + 1) + ": " + line, e);
+      }
+    }
+
+    return expectations;
+  }
+
+  /**
+   * @return the answer as it's written in the manifest: its value, or for a
+   *   drawing, its lines joined with '/'
+   */
+  private static String manifestForm(final Answer answer)
+  {
+    return answer.isDrawing() ?
+      String.join(DRAWING_LINE_SEPARATOR, answer.drawing()) :
+      String.valueOf(answer.value());
+  }
+
+  /**
+   * @return a description of each expected answer that the result doesn't
+   *   match, comparing them in order (part one, part two, then extras)
+   */
+  private static List<String> findWrongAnswers(
+      final TaskResult result, final List<String> expected)
+  {
+    final List<Answer> answers = result.answers();
+    final List<String> wrong = new ArrayList<>();
+
+    for (int i = 0; i < expected.size(); i++)
+    {
+      if (i >= answers.size())
+      {
+        wrong.add("answer " + (i + 1) + " is missing");
+        continue;
+      }
+
+      final String actual = manifestForm(answers.get(i));
+
+      if (!actual.equals(expected.get(i)))
+      {
+        wrong.add(answers.get(i).label() + ": expected " + expected.get(i) +
+          ", got " + actual);
+      }
+    }
+
+    return wrong;
+  }
+
+  /**
+   * Run every check in the manifest, printing a line for each.
+   *
+   * @return the exit status: 0 if every answer was right and within budget,
+   *   1 otherwise
+   */
+  public static int verify(
+      final Path manifest,
+      final RunOptions options,
+      final PrintStream output) throws TaskException
+  {
+    final List<Expectation> expectations = readManifest(manifest);
+    int problems = 0;
+
+    output.println(String.format(ROW_FORMAT,
+      "Day", "Input", "Status", "Time (ms)", "Budget (ms)"));
+
+    for (final Expectation expectation : expectations)
+    {
+      final TaskOutcome outcome = TaskBatch.runDay(
+        expectation.day(), options, Optional.of(expectation.input()));
+
+      final long elapsedMillis =
+        TimeUnit.NANOSECONDS.toMillis(outcome.elapsedNanos());
+
+      final List<String> wrong = outcome.succeeded() ?
+        findWrongAnswers(outcome.result().get(), expectation.answers()) :
+        Collections.emptyList();
+
+      final String status;
+
+      if (!outcome.succeeded())
+      {
+        status = outcome.status();
+      }
+      else if (!wrong.isEmpty())
+      {
+        status = "WRONG";
+      }
+      else if (elapsedMillis > expectation.budgetMillis())
+      {
+        status = "SLOW";
+      }
+      else
+      {
+        status = "OK";
+      }
+
+      output.println(String.format(ROW_FORMAT,
+        expectation.day(),
+        expectation.input(),
+        status,
+        elapsedMillis,
+        expectation.budgetMillis()));
+
+      outcome.failure().ifPresent( e ->
+        output.println("  " + TaskBatch.describeFailure(e)) );
+
+      for (final String problem : wrong)
+      {
+        output.println("  Wrong answer: " + problem);
+      }
+
+      problems += "OK".equals(status) ? 0 : 1;
+    }
+
+    output.println((problems == 0) ?
+      ("All " + expectations.size() + " checks passed") :
+      (problems + " of " + expectations.size() + " checks failed"));
+
+    return (problems == 0) ? 0 : 1;
+  }
+}
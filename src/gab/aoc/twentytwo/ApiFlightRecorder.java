@@ -0,0 +1,55 @@
+package gab.aoc.twentytwo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Optional;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Records through the jdk.jfr API, including the per-phase events. Only
+ * loaded (by FlightRecorder) when the API exists.
+ */
+final class ApiFlightRecorder extends FlightRecorder
+{
+  @Override
+  Closeable start(final String name, final Path destination)
+    throws IOException
+  {
+    final Recording recording;
+
+    try
+    {
+      recording = new Recording(Configuration.getConfiguration(SETTINGS));
+    }
+    catch (final ParseException e)
+    {
+      throw new IOException("Bad JFR settings: " + SETTINGS, e);
+    }
+
+    recording.setName(name);
+    recording.enable(PhaseEvent.class);
+    recording.start();
+
+    return () -> {
+      try
+      {
+        recording.stop();
+        recording.dump(destination);
+      }
+      finally
+      {
+        recording.close();
+      }
+    };
+  }
+
+  @Override
+  Optional<PhaseListener> phaseListener()
+  {
+    return Optional.of( (day, phase) -> PhaseEvent.begin(day, phase)::finish );
+  }
+}
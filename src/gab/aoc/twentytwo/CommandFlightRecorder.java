@@ -0,0 +1,48 @@
+package gab.aoc.twentytwo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Records through the DiagnosticCommand MBean's jfrStart and jfrStop
+ * operations, for JVMs without the jdk.jfr API. There are no per-phase
+ * events this way. On Oracle JDK 8 the JVM also needs
+ * -XX:+UnlockCommercialFeatures.
+ */
+final class CommandFlightRecorder extends FlightRecorder
+{
+  private static final String DIAGNOSTIC_COMMAND =
+    "com.sun.management:type=DiagnosticCommand";
+
+  private static void run(final String operation, final String... args)
+    throws IOException
+  {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    try
+    {
+      server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), operation,
+        new Object[] { args }, new String[] { String[].class.getName() });
+    }
+    catch (final JMException e)
+    {
+      throw new IOException("Flight Recorder " + operation + " failed", e);
+    }
+  }
+
+  @Override
+  Closeable start(final String name, final Path destination)
+    throws IOException
+  {
+    run("jfrStart", "name=" + name, "settings=" + SETTINGS);
+
+    return () -> run("jfrStop", "name=" + name,
+      "filename=" + destination.toAbsolutePath());
+  }
+}
@@ -1,56 +1,160 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
+
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.AsciiScanner;
 
 /**
- * Day 1's task. A simple one - we just group the list of calories for each
- * elf and use stream logic to compute the results.
+ * Day 1's task. A simple one - we total up the calories for each elf as we
+ * read through the list, keeping track of the three highest totals.
  */
 class Day1 extends DayTask
 {
   /**
-   * Takes a comma-separated list of numbers and returns their sum.
+   * Fold the input into a tally of the highest calorie counts. The input is
+   * scanned in place and nothing is retained, so it can be any size.
+   */
+  CalorieTally parse(final AsciiScanner scanner)
+  {
+    final CalorieTally tally = new CalorieTally();
+    parseInto(scanner, tally);
+    return tally.finish();
+  }
+
+  /**
+   * Add the scanner's lines to the tally, without finishing it - so more
+   * lines can be added later.
+   */
+  void parseInto(final AsciiScanner scanner, final CalorieTally tally)
+  {
+    while (scanner.hasRemaining())
+    {
+      if (scanner.atEol())
+      {
+        tally.finishElf();
+      }
+      else
+      {
+        tally.addCalories(scanner.nextInt());
+      }
+
+      scanner.nextLine();
+    }
+  }
+
+  /**
+   * @return the highest calorie count for any elf
+   */
+  int partOne(final CalorieTally tally)
+  {
+    return tally.highest();
+  }
+
+  /**
+   * @return the sum of the three highest calorie counts
    */
-  private static int sumCalorieList(final String commaSeparatedList)
+  int partTwo(final CalorieTally tally)
   {
-    final String[] items = commaSeparatedList.split(",");
-    final int sum = Stream.of(items).mapToInt(Integer::parseInt).sum();
-    return sum;
+    return tally.sumOfTopThree();
   }
 
   @Override
-  public void doTask(final PrintStream output, final boolean debug)
+  public TaskResult solve()
   {
-    //-------------------------------------------------------------------------
-    // By joining on comma, we can identify the file's empty lines by then
-    // splitting on double commas. The result, a list of comma-separated
-    // calorie counts per elf, is convenient for further processing.
-    //-------------------------------------------------------------------------
-    final List<String> inputLines = getFileLines();
-    final String[] listForEachElf = String.join(",", inputLines).split(",,");
-
-    final List<Integer> countForEachElf = Stream.of(listForEachElf)
-      .map(Day1::sumCalorieList)
-      .collect(Collectors.toList());
-
-    //-------------------------------------------------------------------------
-    // This sorts into highest-to-lowest order, which trivialises finding
-    // the highest and summing the top three.
-    //-------------------------------------------------------------------------
-    Collections.sort(countForEachElf, Collections.reverseOrder());
-
-    output.println("The highest calorie count for any elf is: " +
-      countForEachElf.get(0));
-
-    final int sumOfTopThree = countForEachElf.stream()
-      .limit(3)
-      .mapToInt(Integer::valueOf)
-      .sum();
-
-    output.println("The sum of the top 3 is: " + sumOfTopThree);
+    final CalorieTally tally =
+      phase(PARSE, () ->
+        scanAppendable(CalorieTally::new, CalorieTally::new, this::parseInto)
+          .finish());
+
+    final int highest = phase(PART_ONE, () -> partOne(tally));
+    final int sumOfTopThree = phase(PART_TWO, () -> partTwo(tally));
+
+    return new TaskResult(
+      Answer.of("The highest calorie count for any elf is", highest),
+      Answer.of("The sum of the top 3 is", sumOfTopThree));
+  }
+
+  /**
+   * Running tally of the calorie counts. Only the current elf's total and
+   * the three highest totals so far are kept.
+   */
+  static class CalorieTally
+  {
+    private static final int TOP_COUNT = 3;
+
+    /**
+     * The highest totals so far, highest first.
+     */
+    private final int[] topTotals = new int[TOP_COUNT];
+    private int currentTotal = 0;
+    private boolean currentElfHasItems = false;
+
+    public CalorieTally() {}
+
+    /**
+     * A copy of the given tally, part way through the input.
+     */
+    public CalorieTally(final CalorieTally tally)
+    {
+      System.arraycopy(tally.topTotals, 0, this.topTotals, 0, TOP_COUNT);
+      this.currentTotal = tally.currentTotal;
+      this.currentElfHasItems = tally.currentElfHasItems;
+    }
+
+    /**
+     * Add an item's calories to the current elf's total. Each elf's calorie
+     * counts are on consecutive lines, and an empty line separates one elf
+     * from the next.
+     */
+    public void addCalories(final int calories)
+    {
+      this.currentTotal += calories;
+      this.currentElfHasItems = true;
+    }
+
+    /**
+     * Record the total for the elf that we've just finished reading, if it
+     * ranks in the top three.
+     */
+    public void finishElf()
+    {
+      if (!this.currentElfHasItems)
+      {
+        return;
+      }
+
+      int total = this.currentTotal;
+
+      //-----------------------------------------------------------------------
+      // Insertion into a tiny sorted array: shuffle anything lower down by
+      // one place.
+      //-----------------------------------------------------------------------
+      for (int i = 0; i < TOP_COUNT; i++)
+      {
+        if (total > this.topTotals[i])
+        {
+          final int displaced = this.topTotals[i];
+          this.topTotals[i] = total;
+          total = displaced;
+        }
+      }
+
+      this.currentTotal = 0;
+      this.currentElfHasItems = false;
+    }
+
+    /**
+     * Finish the tally at the end of the input, where there's no empty line
+     * after the last elf.
+     */
+    public CalorieTally finish()
+    {
+      finishElf();
+      return this;
+    }
+
+    public int highest() { return this.topTotals[0]; }
+    public int sumOfTopThree() { return IntStream.of(this.topTotals).sum(); }
   }
 }
@@ -1,95 +1,190 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-import gab.aoc.util.InputFileException;
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.AsciiScanner;
 import gab.aoc.util.LogicException;
 
 public class Day10 extends DayTask
 {
-  @Override
-  public void doTask(PrintStream output, boolean debug)
+  /**
+   * Run the instructions as we read them, recording the register value
+   * during each cycle that we need for the answers.
+   */
+  RegisterValues parse(final AsciiScanner scanner)
+  {
+    final RegisterValues registerValues = new RegisterValues();
+    parseInto(scanner, registerValues);
+    return registerValues;
+  }
+
+  /**
+   * Run the scanner's instructions, carrying on from the given register
+   * values.
+   */
+  void parseInto(
+      final AsciiScanner scanner, final RegisterValues registerValues)
+  {
+    while (scanner.hasRemaining())
+    {
+      parseInstruction(scanner, registerValues);
+      scanner.nextLine();
+    }
+  }
+
+  /**
+   * Run the instruction on the scanner's current line, if it isn't blank.
+   */
+  private static void parseInstruction(
+      final AsciiScanner scanner, final RegisterValues registerValues)
+  {
+    if (scanner.tryExpect("addx "))
+    {
+      registerValues.addx(scanner.nextInt());
+    }
+    else if (!scanner.atEol())
+    {
+      scanner.expect("noop");
+      registerValues.noop();
+    }
+  }
+
+  /**
+   * As parse, but reading the lines in parallel. Each thread runs its
+   * lines from an unknown register value, recording the changes from it,
+   * and the runs are then added up in order.
+   */
+  RegisterValues parseParallel(final Stream<ByteBuffer> records)
   {
-    final List<String> inputLines = getFileLines();
+    return records.collect(Collector.of(
+      RegisterValues::fromUnknownStart,
+      (values, record) -> parseInstruction(new AsciiScanner(record), values),
+      RegisterValues::combine,
+      values -> new RegisterValues().combine(values)));
+  }
+
+  int partOne(final RegisterValues registerValues)
+  {
+    return registerValues.getSignalStrengthAtCycles(20, 60, 100, 140, 180, 220);
+  }
 
-    final Collector<String, RegisterValues, RegisterValues> registerCollector =
-      Collector.of(
-        RegisterValues::new,
-        RegisterValues::doInstruction,
-        RegisterValues::combine
-    );
+  List<String> partTwo(final RegisterValues registerValues)
+  {
+    return registerValues.drawAsSprite();
+  }
 
-    final RegisterValues registerValues = inputLines.stream()
-      .collect(registerCollector);
+  @Override
+  public TaskResult solve()
+  {
+    final RegisterValues registerValues =
+      phase(PARSE, () -> scanAppendable(
+        RegisterValues::new, RegisterValues::new, this::parseInto));
 
     final int sumOfSixSignalStrengths =
-      registerValues.getSignalStrengthAtCycles(20, 60, 100, 140, 180, 220);
+      phase(PART_ONE, () -> partOne(registerValues));
 
-    output.println("Sum of six signal strengths: " + sumOfSixSignalStrengths);
+    final List<String> crtLines =
+      phase(PART_TWO, () -> partTwo(registerValues));
 
-    final List<String> crtLines = registerValues.drawAsSprite();
-    output.println("CRT representation:");
-    crtLines.stream().forEach(output::println);
+    return new TaskResult(
+      Answer.of("Sum of six signal strengths", sumOfSixSignalStrengths),
+      Answer.drawing("CRT representation", crtLines));
   }
 
   /**
    * Helper class. Holds the register values and includes functions for
    * accumulating input lines, and processing the results.
+   *
+   * Both parts only look at the cycles that are drawn on the CRT, so we stop
+   * recording after that and the memory used doesn't grow with the input.
    */
-  private static class RegisterValues extends ArrayList<Integer>
+  static class RegisterValues extends ArrayList<Integer>
   {
     private static final int CRT_WIDTH = 40;
     private static final int CRT_HEIGHT = 6;
+    private static final int CYCLES_TO_RECORD = CRT_WIDTH * CRT_HEIGHT;
 
     private Integer currentValue = 1;
 
     public RegisterValues()
     {
-      super();
-      this.add(currentValue);
+      super(CYCLES_TO_RECORD);
+      this.record(currentValue);
     }
 
     /**
-     * Accumulator for input lines.
+     * A copy of the given register values, part way through the program.
      */
-    public void doInstruction(final String inputLine)
+    public RegisterValues(final RegisterValues values)
     {
-      //-----------------------------------------------------------------------
-      // Whether this is a noop or an addx, we start by repeating the current
-      // register value representing one cycle.
-      //-----------------------------------------------------------------------
-      this.add(currentValue);
+      super(values);
+      this.currentValue = values.currentValue;
+    }
 
-      if (!"noop".equals(inputLine))
+    /**
+     * Record the register value for the next cycle, if it's one we need.
+     */
+    private void record(final Integer value)
+    {
+      if (this.size() < CYCLES_TO_RECORD)
       {
-        final String[] tokens = inputLine.split(" ");
-
-        if (tokens.length != 2 || !"addx".equals(tokens[0]))
-        {
-          throw new InputFileException("Bad input line: " + inputLine);
-        }
-
-        //---------------------------------------------------------------------
-        // If this is an addx, then we alter the register value by the given
-        // factor and then record the value, representing a second cycle.
-        //---------------------------------------------------------------------
-        final Integer valueChange = Integer.parseInt(tokens[1]);
-        currentValue += valueChange;
-        this.add(currentValue);
+        this.add(value);
       }
     }
 
     /**
-     * This should never be called, as we aren't parallelising.
+     * A noop takes one cycle, and leaves the register value alone.
+     */
+    public void noop()
+    {
+      this.record(currentValue);
+    }
+
+    /**
+     * An addx takes two cycles, after which the register value is altered
+     * by the given amount.
+     */
+    public void addx(final int valueChange)
+    {
+      this.record(currentValue);
+      currentValue += valueChange;
+      this.record(currentValue);
+    }
+
+    /**
+     * @return values for running instructions from part way through the
+     *   program, where the register value isn't known. What's recorded is
+     *   the change from that value, to be combined onto the values from
+     *   running the instructions before.
+     */
+    public static RegisterValues fromUnknownStart()
+    {
+      final RegisterValues values = new RegisterValues();
+      values.clear();
+      values.currentValue = 0;
+      return values;
+    }
+
+    /**
+     * Add the values from running the instructions that come straight
+     * after ours, which were recorded from an unknown start by
+     * fromUnknownStart.
      */
     public RegisterValues combine(final RegisterValues values)
     {
-      this.addAll(values);
+      for (final Integer change : values)
+      {
+        this.record(this.currentValue + change);
+      }
+
+      this.currentValue += values.currentValue;
       return this;
     }
 
@@ -1,6 +1,8 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -11,8 +13,11 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.CancellationToken;
 import gab.aoc.util.InputFileException;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.ModelCodec;
 
 public class Day11 extends DayTask
 {
@@ -40,10 +45,11 @@ public class Day11 extends DayTask
       .reduce(1, Math::multiplyExact);
   }
 
-  @Override
-  public void doTask(PrintStream output, boolean debug)
+  /**
+   * Build the monkeys from the input, one section per monkey.
+   */
+  List<Monkey> parse(final List<String> inputLines)
   {
-    final List<String> inputLines = getFileLines();
     final String fullInput = String.join("\n", inputLines);
     final String[] monkeyInputs = fullInput.split("\n\n");
 
@@ -51,28 +57,76 @@ public class Day11 extends DayTask
       .map(Monkey::new)
       .collect(Collectors.toList());
 
+    return withCommonFactor(monkeys);
+  }
+
+  /**
+   * Give every monkey the product of all the test divisors, which keeps the
+   * worry levels manageable without changing any test results.
+   */
+  private static List<Monkey> withCommonFactor(final List<Monkey> monkeys)
+  {
     final long commonFactor = monkeys.stream()
       .mapToLong(Monkey::testDivisor)
       .reduce(1, (a, b) -> a * b);
 
     monkeys.stream().forEach( m -> m.setCommonFactor(commonFactor) );
-    IntStream.range(0, 20).forEach( i -> doRound(monkeys));
-    final long monkeyBusiness = getMonkeyBusiness(monkeys);
-
-    output.println(
-      "Amount of monkey business after 20 rounds: " + monkeyBusiness);
+    return monkeys;
+  }
 
+  /**
+   * Reset the monkeys to their starting items and run the given number of
+   * rounds, unless cancelled part way through.
+   *
+   * @return the resulting amount of monkey business
+   */
+  private static long runRounds(
+      final List<Monkey> monkeys,
+      final int worryFactor,
+      final int rounds,
+      final CancellationToken cancellation)
+  {
     monkeys.stream().forEach(Monkey::reset);
-    monkeys.stream().forEach( m -> m.setWorryFactor(1) );
-    IntStream.range(0, 10000).forEach( i -> doRound(monkeys));
-    final long extremeMonkeyBusiness = getMonkeyBusiness(monkeys);
+    monkeys.stream().forEach( m -> m.setWorryFactor(worryFactor) );
+
+    for (int i = 0; i < rounds; i++)
+    {
+      cancellation.checkCancelled();
+      doRound(monkeys);
+    }
+
+    return getMonkeyBusiness(monkeys);
+  }
+
+  long partOne(final List<Monkey> monkeys)
+  {
+    return runRounds(monkeys, 3, 20, cancellation());
+  }
+
+  long partTwo(final List<Monkey> monkeys)
+  {
+    return runRounds(monkeys, 1, 10000, cancellation());
+  }
+
+  @Override
+  public TaskResult solve()
+  {
+    final List<Monkey> monkeys =
+      phase(PARSE, () -> parseCached(new MonkeyCodec(), this::parse));
+
+    final long monkeyBusiness = phase(PART_ONE, () -> partOne(monkeys));
+
+    final long extremeMonkeyBusiness =
+      phase(PART_TWO, () -> partTwo(monkeys));
 
-    output.println(
-      "Amount of monkey business after 10,000 rounds while very worried: " +
-      extremeMonkeyBusiness);
+    return new TaskResult(
+      Answer.of("Amount of monkey business after 20 rounds", monkeyBusiness),
+      Answer.of(
+        "Amount of monkey business after 10,000 rounds while very worried",
+        extremeMonkeyBusiness));
   }
 
-  private static class Monkey
+  static class Monkey
   {
     private final List<BigInteger> currentItems = new ArrayList<>();
 
@@ -116,6 +170,26 @@ public class Day11 extends DayTask
       this.reset();
     }
 
+    /**
+     * Constructor for a monkey loaded from the model cache.
+     */
+    private Monkey(
+        final int index,
+        final int[] startingItems,
+        final String operation,
+        final int testDivisor,
+        final int onTrue,
+        final int onFalse)
+    {
+      this.index = index;
+      this.startingItems = startingItems;
+      this.operation = operation;
+      this.testDivisor = testDivisor;
+      this.onTrue = onTrue;
+      this.onFalse = onFalse;
+      this.reset();
+    }
+
     public int index() { return this.index; }
     public long testDivisor() { return this.testDivisor; }
     public long totalInspections() { return this.totalInspections; }
@@ -201,4 +275,62 @@ public class Day11 extends DayTask
       return afterWorryFactor.remainder(this.commonFactor);
     }
   }
+
+  /**
+   * Binary form of the parsed monkeys, for the model cache. Only the parsed
+   * input is stored; the common factor is worked out again on loading.
+   */
+  private static class MonkeyCodec implements ModelCodec<List<Monkey>>
+  {
+    @Override
+    public int formatVersion() { return 1; }
+
+    @Override
+    public void write(final List<Monkey> monkeys, final DataOutput output)
+      throws IOException
+    {
+      output.writeInt(monkeys.size());
+
+      for (final Monkey monkey : monkeys)
+      {
+        output.writeInt(monkey.index);
+        output.writeInt(monkey.startingItems.length);
+
+        for (final int item : monkey.startingItems)
+        {
+          output.writeInt(item);
+        }
+
+        output.writeUTF(monkey.operation);
+        output.writeInt(monkey.testDivisor);
+        output.writeInt(monkey.onTrue);
+        output.writeInt(monkey.onFalse);
+      }
+    }
+
+    @Override
+    public List<Monkey> read(final DataInput input) throws IOException
+    {
+      final int count = ModelCodec.readCount(input);
+      final List<Monkey> monkeys =
+        new ArrayList<>(ModelCodec.initialCapacity(count));
+
+      for (int i = 0; i < count; i++)
+      {
+        final int index = input.readInt();
+        final int[] startingItems =
+          ModelCodec.readInts(input, ModelCodec.readCount(input));
+
+        final String operation = input.readUTF();
+        final int testDivisor = input.readInt();
+        final int onTrue = input.readInt();
+        final int onFalse = input.readInt();
+
+        monkeys.add(new Monkey(
+          index, startingItems, operation, testDivisor, onTrue, onFalse));
+      }
+
+      return withCommonFactor(monkeys);
+    }
+  }
 }
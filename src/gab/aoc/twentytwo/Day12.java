@@ -1,218 +1,172 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.nio.ByteBuffer;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.ByteGrid;
+import gab.aoc.util.CsrGraph;
 import gab.aoc.util.InputFileException;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.ShortestPaths;
 
 public class Day12 extends DayTask
 {
-  private static List<Tile> getTilesForLine(final int row, final String line)
+  private static int charToHeight(final byte elevation)
   {
-    final String[] tileStrings = line.split("");
-    return IntStream.range(0, tileStrings.length)
-      .mapToObj( i -> new Tile(i, row, tileStrings[i]))
-      .collect(Collectors.toList());
+    return elevation - 'a';
   }
 
-  private static Map<Tile, Route> getRoutesFromPoint(final Tile start)
+  /**
+   * Build the grid of heights, and find the start and end.
+   */
+  HeightMap parse(final ByteBuffer input)
   {
-    final Map<Tile, Route> routeMap = new HashMap<>();
-    final List<Route> routesToIterate = new ArrayList<>();
-    routesToIterate.add(new Route(start));
+    final ByteGrid heights = ByteGrid.fromInput(input);
 
-    while (!routesToIterate.isEmpty())
-    {
-      final List<Route> iteratedRoutes = routesToIterate.stream()
-        .map(Route::iterate)
-        .collect(ArrayList::new, ArrayList::addAll, ArrayList::addAll);
-
-      routesToIterate.clear();
-
-      for (final Route route : iteratedRoutes)
-      {
-        final Tile routeHead = route.getCurrentHead();
-        final Route currentShortest = routeMap.get(routeHead);
-
-        if (currentShortest == null || route.steps() < currentShortest.steps())
-        {
-          routeMap.put(routeHead, route);
-          routesToIterate.add(route);
-        }
-      }
-    }
-
-    return routeMap;
-  }
-
-  @Override
-  public void doTask(PrintStream output, boolean debug)
-  {
-    final List<String> inputLines = getFileLines();
-
-    final List<Tile> allTiles = IntStream.range(0, inputLines.size())
-      .mapToObj( i -> getTilesForLine(i, inputLines.get(i)) )
-      .collect(ArrayList::new, ArrayList::addAll, ArrayList::addAll);
-
-    allTiles.forEach( tile -> tile.calculateConnections(allTiles) );
-
-    final Tile startingTile = allTiles.stream()
-      .filter(Tile::isStart)
-      .findFirst()
+    final int start = heights.find((byte)'S')
       .orElseThrow( () -> new InputFileException("Failed to find start") );
 
-    final Tile endingTile = allTiles.stream()
-      .filter(Tile::isEnd)
-      .findFirst()
+    final int end = heights.find((byte)'E')
       .orElseThrow( () -> new InputFileException("Failed to find end") );
 
-    final Map<Tile, Route> routesFromStart = getRoutesFromPoint(startingTile);
-    final Route shortestRouteToTop = routesFromStart.get(endingTile);
-    output.println("Steps to reach top: " + shortestRouteToTop.steps());
-
-    final Route shortestScenicRoute = allTiles.stream()
-      .filter( t -> (t.height() == 0) )
-      .map(Day12::getRoutesFromPoint)
-      .map( m -> m.get(endingTile) )
-      .filter(Objects::nonNull)
-      .min( (r1, r2) -> (r1.steps() - r2.steps()) )
-      .orElseThrow( () -> new LogicException("Failed to find scenic route") );
-
-    output.println("Steps for scenic route: " + shortestScenicRoute.steps());
-  }
+    heights.setAt(start, (byte)'a');
+    heights.setAt(end, (byte)'z');
 
-  private static class Tile
-  {
-    private final int xPos;
-    private final int yPos;
-    private final int height;
-    private final boolean start;
-    private final boolean end;
-    private final List<Tile> connectedTiles = new ArrayList<>();
-
-    private static int charToHeight(final String elevation)
+    for (int i = 0; i < heights.size(); i++)
     {
-      final char elevationChar = elevation.charAt(0);
-      return elevationChar - 97;
-    }
+      final int height = charToHeight(heights.getAt(i));
 
-    public Tile(final int x, final int y, final String elevation)
-    {
-      this.xPos = x;
-      this.yPos = y;
-
-      if ("S".equals(elevation))
-      {
-        start = true;
-        end = false;
-        height = charToHeight("a");
-      }
-      else if ("E".equals(elevation))
+      if (height < 0 || height > charToHeight((byte)'z'))
       {
-        start = false;
-        end = true;
-        height = charToHeight("z");
+        throw new InputFileException("Bad elevation at " +
+          heights.x(i) + "," + heights.y(i) + ": " + (char)heights.getAt(i));
       }
-      else
-      {
-        start = false;
-        end = false;
-        height = charToHeight(elevation);
-      }
-    }
 
-    public void calculateConnections(final List<Tile> allTiles)
-    {
-      allTiles.stream()
-        .filter(this::isAdjacent)
-        .filter( t -> (t.height() - this.height() <= 1) )
-        .forEach(this.connectedTiles::add);
+      heights.setAt(i, (byte)height);
     }
 
-    public int x() { return this.xPos; }
-    public int y() { return this.yPos; }
-    public int height() { return this.height; }
-    public boolean isStart() { return this.start; }
-    public boolean isEnd() { return this.end; }
-    public List<Tile> getConnections() { return this.connectedTiles; }
+    return new HeightMap(heights, start, end, getStepsBack(heights));
+  }
 
-    @Override
-    public String toString()
-    {
-      return
-        "(x: " + this.x() + ", y: " + this.y() + ", h: " + this.height() + ")";
-    }
+  /**
+   * @return a graph of the tiles (by their index in the grid), with an
+   *   edge back from each tile to every tile it could have been reached
+   *   from, i.e. to each neighbour that's at most one level lower
+   */
+  private static CsrGraph getStepsBack(final ByteGrid heights)
+  {
+    final CsrGraph.Edges stepsBack = new CsrGraph.Edges();
+    final int[] neighbours = new int[4];
 
-    private boolean isAdjacent(final Tile otherTile)
+    for (int tile = 0; tile < heights.size(); tile++)
     {
-      final int xDif = Math.abs(otherTile.x() - this.x());
-      final int yDif = Math.abs(otherTile.y() - this.y());
-      return (xDif + yDif == 1);
+      final int found = heights.neighbours(tile, neighbours);
+
+      for (int i = 0; i < found; i++)
+      {
+        if (heights.getAt(neighbours[i]) - heights.getAt(tile) <= 1)
+        {
+          stepsBack.add(neighbours[i], tile);
+        }
+      }
     }
+
+    return CsrGraph.fromEdges(heights.size(), stepsBack);
   }
 
-  private static class Route
+  /**
+   * Find the fewest steps from every tile to the end, by searching
+   * breadth-first backwards from the end. Both parts are answered from
+   * this one search.
+   */
+  ShortestPaths getStepsToEnd(final HeightMap map)
   {
-    private final List<Tile> path;
-    private boolean complete = false;
+    final ShortestPaths stepsToEnd =
+      new ShortestPaths(map.stepsBack(), cancellation());
+    stepsToEnd.breadthFirst(map.end());
+    return stepsToEnd;
+  }
 
-    public Route(final Tile startingTile)
-    {
-      this.path = new ArrayList<>();
-      this.path.add(startingTile);
-    }
+  int partOne(final HeightMap map, final ShortestPaths stepsToEnd)
+  {
+    final int stepsToTop = stepsToEnd.distanceTo(map.start());
 
-    private Route(final Route existingRoute, final Tile nextStep)
+    if (stepsToTop == ShortestPaths.UNREACHABLE)
     {
-      this.path = new ArrayList<>(existingRoute.getPath());
-      this.path.add(nextStep);
+      throw new LogicException("Failed to find route to top");
     }
 
-    public List<Route> iterate()
-    {
-      if (this.complete)
-      {
-        return new ArrayList<>();
-      }
+    return stepsToTop;
+  }
 
-      final Tile currentEndpoint = this.path.get(this.path.size() - 1);
-      final List<Route> nextSteps = currentEndpoint.getConnections().stream()
-        .filter( t -> (!path.contains(t)) )
-        .map( t -> new Route(this, t) )
-        .collect(Collectors.toList());
+  /**
+   * The search from the end gives the steps from every possible start, so
+   * we only need to pick the lowest one.
+   */
+  int partTwo(final HeightMap map, final ShortestPaths stepsToEnd)
+  {
+    final ByteGrid heights = map.heights();
+    int fewestSteps = ShortestPaths.UNREACHABLE;
 
-      if (nextSteps.isEmpty())
+    for (int i = 0; i < heights.size(); i++)
+    {
+      if (heights.getAt(i) == 0)
       {
-        this.complete = true;
+        fewestSteps = Math.min(fewestSteps, stepsToEnd.distanceTo(i));
       }
-
-      return nextSteps;
     }
 
-    public List<Tile> getPath()
+    if (fewestSteps == ShortestPaths.UNREACHABLE)
     {
-      return Collections.unmodifiableList(this.path);
+      throw new LogicException("Failed to find scenic route");
     }
 
-    public Tile getCurrentHead()
-    {
-      return this.path.get(this.path.size() - 1);
-    }
+    return fewestSteps;
+  }
 
-    public int steps() { return this.path.size() - 1; }
+  @Override
+  public TaskResult solve()
+  {
+    final ByteBuffer input = phase(READ, this::getFileBuffer);
+    final HeightMap map = phase(PARSE, () -> parse(input));
+    final ShortestPaths stepsToEnd =
+      phase("search", () -> getStepsToEnd(map));
+
+    final int stepsToTop = phase(PART_ONE, () -> partOne(map, stepsToEnd));
+    final int scenicSteps =
+      phase(PART_TWO, () -> partTwo(map, stepsToEnd));
+
+    return new TaskResult(
+      Answer.of("Steps to reach top", stepsToTop),
+      Answer.of("Steps for scenic route", scenicSteps));
+  }
 
-    @Override
-    public String toString()
+  /**
+   * The height of every tile (0 to 25), the indices in that grid of the
+   * start and end tiles, and the steps between tiles (backwards).
+   */
+  static class HeightMap
+  {
+    private final ByteGrid heights;
+    private final int start;
+    private final int end;
+    private final CsrGraph stepsBack;
+
+    public HeightMap(
+        final ByteGrid heights,
+        final int start,
+        final int end,
+        final CsrGraph stepsBack)
     {
-      return String.join(", ", this.path.stream().map(Tile::toString).collect(Collectors.toList()));
+      this.heights = heights;
+      this.start = start;
+      this.end = end;
+      this.stepsBack = stepsBack;
     }
+
+    public ByteGrid heights() { return this.heights; }
+    public int start() { return this.start; }
+    public int end() { return this.end; }
+    public CsrGraph stepsBack() { return this.stepsBack; }
   }
 }
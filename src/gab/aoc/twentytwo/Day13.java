@@ -1,6 +1,8 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -10,7 +12,9 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
 import gab.aoc.util.InputFileException;
+import gab.aoc.util.ModelCodec;
 
 public class Day13 extends DayTask
 {
@@ -125,16 +129,21 @@ public class Day13 extends DayTask
     return Optional.empty();
   }
 
-  @Override
-  public void doTask(PrintStream output, boolean debug)
+  /**
+   * Parse every packet in the input, ignoring the blank separator lines.
+   */
+  List<Packet> parse(final List<String> inputLines)
   {
-    final List<String> inputLines = getFileLines();
-
     final List<Packet> allPackets = inputLines.stream()
       .filter( str -> !str.isEmpty() )
       .map(Packet::new)
       .collect(Collectors.toList());
 
+    return allPackets;
+  }
+
+  int partOne(final List<Packet> allPackets)
+  {
     final List<Pair<Packet>> pairsOfPackets = allPackets.stream()
       .collect(ArrayList::new, Day13::addItemToPairList, ArrayList::addAll);
 
@@ -149,11 +158,14 @@ public class Day13 extends DayTask
       .mapToInt(Integer::valueOf)
       .sum();
 
-    output.println(
-      "Sum of indices in right order: " + sumOfIndicesInRightOrder);
+    return sumOfIndicesInRightOrder;
+  }
 
+  int partTwo(final List<Packet> inputPackets)
+  {
     final Packet firstDivider = new Packet("[[2]]");
     final Packet secondDivider = new Packet("[[6]]");
+    final List<Packet> allPackets = new ArrayList<>(inputPackets);
     allPackets.add(firstDivider);
     allPackets.add(secondDivider);
 
@@ -163,10 +175,26 @@ public class Day13 extends DayTask
 
     final int firstDividerIndex = sortedPacketList.indexOf(firstDivider) + 1;
     final int secondDividerIndex = sortedPacketList.indexOf(secondDivider) + 1;
-    output.println("Decoder key: " + firstDividerIndex * secondDividerIndex);
+    return firstDividerIndex * secondDividerIndex;
+  }
+
+  @Override
+  public TaskResult solve()
+  {
+    final List<Packet> allPackets =
+      phase(PARSE, () -> parseCached(new PacketCodec(), this::parse));
+
+    final int sumOfIndicesInRightOrder =
+      phase(PART_ONE, () -> partOne(allPackets));
+
+    final int decoderKey = phase(PART_TWO, () -> partTwo(allPackets));
+
+    return new TaskResult(
+      Answer.of("Sum of indices in right order", sumOfIndicesInRightOrder),
+      Answer.of("Decoder key", decoderKey));
   }
 
-  private static class Packet
+  static class Packet
   {
     private final List<Object> contents;
     private int inputScanIndex = 0;
@@ -186,6 +214,14 @@ public class Day13 extends DayTask
       this.contents = buildContents(subLine);
     }
 
+    /**
+     * Constructor for a packet loaded from the model cache.
+     */
+    private Packet(final List<Object> contents)
+    {
+      this.contents = contents;
+    }
+
     private List<Object> buildContents(final String input)
     {
       final List<Object> workingList = new ArrayList<>();
@@ -240,4 +276,88 @@ public class Day13 extends DayTask
     public T getFirst() { return this.first; }
     public T getSecond() { return this.second; }
   }
+
+  /**
+   * Binary form of the parsed packets, for the model cache. Each list is
+   * written as its size followed by its elements, where each element is
+   * tagged as either a number or a nested list. The numbers are small, so
+   * they're written as variable-length ints.
+   */
+  private static class PacketCodec implements ModelCodec<List<Packet>>
+  {
+    private static final byte NUMBER = 0;
+    private static final byte LIST = 1;
+
+    private static void writeList(
+        final List<?> list, final DataOutput output) throws IOException
+    {
+      ModelCodec.writeVarInt(output, list.size());
+
+      for (final Object element : list)
+      {
+        if (element instanceof List<?>)
+        {
+          output.writeByte(LIST);
+          writeList((List<?>)element, output);
+        }
+        else
+        {
+          output.writeByte(NUMBER);
+          ModelCodec.writeVarInt(output, (Integer)element);
+        }
+      }
+    }
+
+    private static List<Object> readList(final DataInput input)
+      throws IOException
+    {
+      final int size = ModelCodec.readVarInt(input);
+      final List<Object> list =
+        new ArrayList<>(ModelCodec.initialCapacity(size));
+
+      for (int i = 0; i < size; i++)
+      {
+        final byte tag = input.readByte();
+
+        switch (tag)
+        {
+          case NUMBER: list.add(ModelCodec.readVarInt(input)); break;
+          case LIST: list.add(readList(input)); break;
+          default: throw new IOException("Bad element tag: " + tag);
+        }
+      }
+
+      return list;
+    }
+
+    @Override
+    public int formatVersion() { return 1; }
+
+    @Override
+    public void write(final List<Packet> packets, final DataOutput output)
+      throws IOException
+    {
+      output.writeInt(packets.size());
+
+      for (final Packet packet : packets)
+      {
+        writeList(packet.contents, output);
+      }
+    }
+
+    @Override
+    public List<Packet> read(final DataInput input) throws IOException
+    {
+      final int count = ModelCodec.readCount(input);
+      final List<Packet> packets =
+        new ArrayList<>(ModelCodec.initialCapacity(count));
+
+      for (int i = 0; i < count; i++)
+      {
+        packets.add(new Packet(readList(input)));
+      }
+
+      return packets;
+    }
+  }
 }
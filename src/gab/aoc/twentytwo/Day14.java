@@ -1,65 +1,34 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.BitGrid;
+import gab.aoc.util.CancellationToken;
 import gab.aoc.util.Coordinate;
 import gab.aoc.util.InputFileException;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.LongArrayList;
 
 public class Day14 extends DayTask
 {
-  /**
-   * Given a list of rocks, return the lowest x coordinate.
-   */
-  private static int getMinX(final List<Coordinate> rocks)
-  {
-    return rocks.stream()
-      .mapToInt(Coordinate::x)
-      .min()
-      .orElseThrow( () -> new InputFileException("Failed to get min x") );
-  }
+  private static final int SAND_ORIGIN_X = 500;
+  private static final int SAND_ORIGIN_Y = 0;
 
   /**
-   * Given a list of rocks, return the highest x coordinate.
+   * Part 2 requires some optimisation. We add two "imaginary" walls, this
+   * many spaces left and right of the rocks, which the sand never passes.
    */
-  private static int getMaxX(final List<Coordinate> rocks)
-  {
-    return rocks.stream()
-      .mapToInt(Coordinate::x)
-      .max()
-      .orElseThrow( () -> new InputFileException("Failed to get max x") );
-  }
+  private static final int WALL_GAP = 3;
 
   /**
-   * Given a list of rocks, return the highest y coordinate.
+   * The floor is this many spaces below the bottom-most rock.
    */
-  private static int getMaxY(final List<Coordinate> rocks)
-  {
-    return rocks.stream()
-      .mapToInt(Coordinate::y)
-      .max()
-      .orElseThrow( () -> new InputFileException("Failed to get max y") );
-  }
-
-  private static Coordinate coordinateFromInput(final String input)
-  {
-    final String[] tokens = input.split(",");
-
-    if (tokens.length != 2)
-    {
-      throw new InputFileException("Bad coordinate string: " + input);
-    }
-
-    final int x = Integer.parseInt(tokens[0]);
-    final int y = Integer.parseInt(tokens[1]);
-    return new Coordinate(x, y);
-  }
+  private static final int FLOOR_GAP = 2;
 
   /**
    * Visualise the grid of rocks and sand. Does not draw anything beyond the
@@ -69,34 +38,33 @@ public class Day14 extends DayTask
    * print.
    */
   private static List<String> visualise(
-      final List<Coordinate> rocks, final List<Coordinate> sand)
+      final BitGrid cave, final LongArrayList sand)
   {
-    final int minX = getMinX(rocks);
-    final int maxX = getMaxX(rocks);
-    final int maxY = getMaxY(rocks);
-    final int floor = maxY + 2;
+    final BitGrid sandGrid = BitGrid.sameShapeAs(cave);
+    sand.forEach( s ->
+      sandGrid.set(Coordinate.unpackX(s), Coordinate.unpackY(s)) );
+
+    final int floor = cave.maxY();
     final List<String> printLines = new ArrayList<>();
 
-    for (int y = 0; y <= floor; y++)
+    for (int y = cave.minY(); y <= floor; y++)
     {
       final StringBuilder line = new StringBuilder();
 
-      for (int x = minX; x <= maxX; x++)
+      for (int x = cave.minX() + WALL_GAP; x <= cave.maxX() - WALL_GAP; x++)
       {
-        final Coordinate c = new Coordinate(x, y);
-
-        if (c.y() == 0 && c.x() == 500)
+        if (y == SAND_ORIGIN_Y && x == SAND_ORIGIN_X)
         {
           //-------------------------------------------------------------------
           // Sand origin
           //-------------------------------------------------------------------
           line.append('+');
         }
-        else if (rocks.contains(c) || y == floor)
+        else if (cave.get(x, y) || y == floor)
         {
           line.append('#');
         }
-        else if (sand.contains(c))
+        else if (sandGrid.get(x, y))
         {
           line.append('o');
         }
@@ -112,34 +80,92 @@ public class Day14 extends DayTask
     return printLines;
   }
 
-  @Override
-  public void doTask(PrintStream output, boolean debug)
+  /**
+   * Build every rock structure from the input (one per line, e.g.
+   * "498,4 -> 498,6 -> 496,6"), and mark all of their rocks in a grid of
+   * the cave. The grid runs from the top of the cave down to the floor,
+   * and from the left wall to the right wall, so its edges are the limits
+   * of where the sand can go.
+   */
+  BitGrid parse(final AsciiScanner scanner)
   {
-    final List<String> inputLines = getFileLines();
+    final LongArrayList allRocks = new LongArrayList();
 
-    final List<RockStructure> structures = inputLines.stream()
-      .map(RockStructure::buildFromInputLine)
-      .collect(Collectors.toList());
+    while (scanner.hasRemaining())
+    {
+      if (!scanner.atEol())
+      {
+        final RockStructure structure = new RockStructure(allRocks);
 
-    final List<Coordinate> allRocks = structures.stream()
-      .flatMap( s -> s.getRocks().stream() )
-      .collect(Collectors.toList());
+        do
+        {
+          final int x = scanner.nextInt();
+          scanner.expect((byte)',');
+          final int y = scanner.nextInt();
+          structure.addLineTo(new Coordinate(x, y));
+        }
+        while (scanner.tryExpect(" -> "));
+      }
 
+      scanner.nextLine();
+    }
+
+    final int minX = allRocks.stream()
+      .mapToInt(Coordinate::unpackX)
+      .min()
+      .orElseThrow( () -> new InputFileException("Failed to get min x") );
+
+    final int maxX = allRocks.stream()
+      .mapToInt(Coordinate::unpackX)
+      .max()
+      .orElseThrow( () -> new InputFileException("Failed to get max x") );
+
+    final int maxY = allRocks.stream()
+      .mapToInt(Coordinate::unpackY)
+      .max()
+      .orElseThrow( () -> new InputFileException("Failed to get max y") );
+
+    final int leftWall = minX - WALL_GAP;
+    final int rightWall = maxX + WALL_GAP;
+    final int floor = maxY + FLOOR_GAP;
+
+    if (SAND_ORIGIN_X <= leftWall || SAND_ORIGIN_X >= rightWall)
+    {
+      throw new InputFileException("Sand origin is beyond the rocks");
+    }
+
+    final BitGrid cave = new BitGrid(leftWall, SAND_ORIGIN_Y,
+      rightWall - leftWall + 1, floor - SAND_ORIGIN_Y + 1);
+
+    allRocks.forEach( r -> cave.set(Coordinate.unpackX(r),
+                                    Coordinate.unpackY(r)) );
+    return cave;
+  }
+
+  /**
+   * Drop sand from the origin until it has backed up to the origin or, if
+   * 'stopAtFloor' is set, until the first unit comes to rest on the floor.
+   *
+   * @return the units of sand at rest (packed with Coordinate.pack), in the
+   *   order that they came to rest
+   */
+  private static LongArrayList dropSand(
+      final BitGrid cave,
+      final boolean stopAtFloor,
+      final CancellationToken cancellation)
+  {
     //-------------------------------------------------------------------------
-    // Part 2 requires some optimisation. We add two "imaginary" walls, three
-    // spaces left and right of our grid. This avoids having to iterate the
-    // falling sand past these "walls". We can easily calculate the amount of
-    // stacked sand either side afterwards - all we need to track is the
-    // height of the pile next to the "walls", and track sand that falls "back
-    // into the grid".
+    // The walls avoid having to iterate the falling sand past them. We can
+    // easily calculate the amount of stacked sand either side afterwards -
+    // all we need to track is the height of the pile next to the "walls",
+    // and track sand that falls "back into the grid".
     //-------------------------------------------------------------------------
-    final int leftWall = getMinX(allRocks) - 3;
-    final int rightWall = getMaxX(allRocks) + 3;
-    final int maxY = getMaxY(allRocks);
-    final int floor = maxY + 2;
-    final List<Coordinate> sandAtRest = new ArrayList<>();
-    final Coordinate sandOrigin = new Coordinate(500, 0);
-    Coordinate fallingSand = sandOrigin;
+    final int leftWall = cave.minX();
+    final int rightWall = cave.maxX();
+    final int floor = cave.maxY();
+    final int maxY = floor - FLOOR_GAP;
+    final BitGrid occupied = cave.copy();
+    final LongArrayList sandAtRest = new LongArrayList();
 
     //-------------------------------------------------------------------------
     // On each iteration, we drop the sand to the lowest possible height, and
@@ -148,131 +174,181 @@ public class Day14 extends DayTask
     //
     // Iteration stops when sand has backed up to the origin.
     //-------------------------------------------------------------------------
-    while (sandAtRest.isEmpty() ||
-           !sandAtRest.get(sandAtRest.size() - 1).equals(sandOrigin))
+    while (true)
     {
-      final int currentX = fallingSand.x();
-      final int currentY = fallingSand.y();
-      final List<Coordinate> fullList = new ArrayList<>(allRocks);
-      fullList.addAll(sandAtRest);
-
-      final int depthOfObstacle = fullList.stream()
-        .filter( c -> c.x() == currentX )
-        .filter( c -> c.y() > currentY )
-        .mapToInt(Coordinate::y)
-        .min()
-        .orElse(floor);
+      cancellation.checkCancelled();
+      int x = SAND_ORIGIN_X;
+      int y = SAND_ORIGIN_Y;
 
-      //-----------------------------------------------------------------------
-      // If the sand has any room to fall, propagate it down (so that it sits
-      // above the obstacle).
-      //-----------------------------------------------------------------------
-      if (depthOfObstacle - 1 > currentY)
+      while (y + 1 < floor)
       {
-        fallingSand = new Coordinate(currentX, depthOfObstacle - 1);
+        if (!occupied.get(x, y + 1))
+        {
+          y++;
+        }
+        //---------------------------------------------------------------------
+        // Preferentially move diagonally left if possible, else diagonally
+        // right if possible.
+        //---------------------------------------------------------------------
+        else if (x - 1 > leftWall && !occupied.get(x - 1, y + 1))
+        {
+          x--;
+          y++;
+        }
+        else if (x + 1 < rightWall && !occupied.get(x + 1, y + 1))
+        {
+          x++;
+          y++;
+        }
+        else
+        {
+          break;
+        }
       }
 
       //-----------------------------------------------------------------------
-      // Preferentially move diagonally left if possible, else diagonally
-      // right if possible.
+      // Sand has come to rest. Add it to the list and reset.
       //-----------------------------------------------------------------------
-      final Coordinate leftShift =
-        new Coordinate(fallingSand.x() - 1, fallingSand.y() + 1);
-
-      final Coordinate rightShift =
-        new Coordinate(fallingSand.x() + 1, fallingSand.y() + 1);
-
-      final boolean moveLeft = (leftShift.x() > leftWall) &&
-        (leftShift.y() < floor) &&
-        fullList.stream().noneMatch( c -> c.equals(leftShift) );
+      occupied.set(x, y);
+      sandAtRest.add(Coordinate.pack(x, y));
 
-      final boolean moveRight = !moveLeft && (rightShift.x() < rightWall) &&
-        (leftShift.y() < floor) &&
-        fullList.stream().noneMatch( c -> c.equals(rightShift) );
-
-      if (moveLeft)
-      {
-        fallingSand = leftShift;
-      }
-      else if (moveRight)
-      {
-        fallingSand = rightShift;
-      }
-      else
+      if ((stopAtFloor && y > maxY) ||
+          (x == SAND_ORIGIN_X && y == SAND_ORIGIN_Y))
       {
-        //---------------------------------------------------------------------
-        // Sand has come to rest. Add it to the list and reset.
-        //---------------------------------------------------------------------
-        sandAtRest.add(fallingSand);
-        fallingSand = sandOrigin;
+        break;
       }
     }
 
-    output.println("\nAfter sand has fallen:");
-    visualise(allRocks, sandAtRest).forEach(output::println);
+    return sandAtRest;
+  }
 
-    //-------------------------------------------------------------------------
-    // The part 1 count "ends" with the first sand that leaves the "grid" -
-    // that is, the first sand that hits the floor.
-    //-------------------------------------------------------------------------
-    final Coordinate firstSandOnFloor = sandAtRest.stream()
-      .filter( c -> c.y() > maxY )
+  /**
+   * The part 1 count "ends" with the first sand that leaves the "grid" -
+   * that is, the first sand that hits the floor.
+   */
+  private static int countSandBeforeFloor(
+      final BitGrid cave, final LongArrayList sandAtRest)
+  {
+    final int maxY = cave.maxY() - FLOOR_GAP;
+
+    return IntStream.range(0, sandAtRest.size())
+      .filter( i -> Coordinate.unpackY(sandAtRest.get(i)) > maxY )
       .findFirst()
       .orElseThrow( () -> new LogicException("Unable to calculate part 1") );
+  }
 
-    final int part1 = sandAtRest.indexOf(firstSandOnFloor);
-    output.println("\nUnits of sand at rest (part 1): " + part1);
-
-    //-------------------------------------------------------------------------
-    // For the part 2 answer, we need to calculate the sand that would have
-    // fallen to rest beyond the walls.
-    //-------------------------------------------------------------------------
-    final int leftSandPileHeight = floor - sandAtRest.stream()
-      .filter( c -> c.x() == leftWall + 1 )
-      .mapToInt(Coordinate::y)
+  /**
+   * @return the height of the pile of sand in the given column, from the
+   *   floor
+   */
+  private static int getPileHeight(
+      final LongArrayList sandAtRest, final int x, final int floor)
+  {
+    return floor - sandAtRest.stream()
+      .filter( s -> Coordinate.unpackX(s) == x )
+      .mapToInt(Coordinate::unpackY)
       .min()
       .orElse(floor);
+  }
+
+  /**
+   * For the part 2 answer, we need to calculate the sand that would have
+   * fallen to rest beyond the walls.
+   */
+  private static int countSandIncludingWalls(
+      final BitGrid cave, final LongArrayList sandAtRest)
+  {
+    final int floor = cave.maxY();
+
+    final int leftSandPileHeight =
+      getPileHeight(sandAtRest, cave.minX() + 1, floor);
 
     final int leftSandTotal =
       IntStream.range(1, leftSandPileHeight).sum();
 
-    final int rightSandPileHeight = floor - sandAtRest.stream()
-      .filter( c -> c.x() == rightWall - 1 )
-      .mapToInt(Coordinate::y)
-      .min()
-      .orElse(floor);
+    final int rightSandPileHeight =
+      getPileHeight(sandAtRest, cave.maxX() - 1, floor);
 
     final int rightSandTotal =
       IntStream.range(1, rightSandPileHeight).sum();
 
-    final int part2 = sandAtRest.size() + leftSandTotal + rightSandTotal;
-    output.println("Units of sand at rest (part 2): " + part2);
+    return sandAtRest.size() + leftSandTotal + rightSandTotal;
   }
 
-  private static class RockStructure
+  /**
+   * Part 1 only needs the sand up until the first unit reaches the floor, so
+   * we can stop the simulation early.
+   */
+  int partOne(final BitGrid cave)
+  {
+    final LongArrayList sandAtRest = dropSand(cave, true, cancellation());
+    return countSandBeforeFloor(cave, sandAtRest);
+  }
+
+  int partTwo(final BitGrid cave)
   {
-    public static RockStructure buildFromInputLine(final String input)
+    final LongArrayList sandAtRest = dropSand(cave, false, cancellation());
+    return countSandIncludingWalls(cave, sandAtRest);
+  }
+
+  @Override
+  public TaskResult solve()
+  {
+    //-------------------------------------------------------------------------
+    // We run the simulation once to completion and get both answers from
+    // that, which also gives us the full pile of sand to visualise.
+    //-------------------------------------------------------------------------
+    final ByteBuffer input = phase(READ, this::getFileBuffer);
+    final BitGrid cave = phase(PARSE, () -> parse(new AsciiScanner(input)));
+
+    final LongArrayList sandAtRest =
+      phase("simulate", () -> dropSand(cave, false, cancellation()));
+
+    final int part1 =
+      phase(PART_ONE, () -> countSandBeforeFloor(cave, sandAtRest));
+
+    final int part2 =
+      phase(PART_TWO, () -> countSandIncludingWalls(cave, sandAtRest));
+
+    final TaskResult result = new TaskResult(
+      Answer.of("Units of sand at rest (part 1)", part1),
+      Answer.of("Units of sand at rest (part 2)", part2));
+
+    if (!isVisualise())
     {
-      final String[] tokens = input.split(" -> ");
-      return Stream.of(tokens).collect(
-        RockStructure::new, RockStructure::addLineTo, RockStructure::combine);
+      return result;
     }
 
-    private final List<Coordinate> rocks = new ArrayList<>();
+    final List<String> drawing = new ArrayList<>();
+    drawing.add("After sand has fallen:");
+    drawing.addAll(visualise(cave, sandAtRest));
+    return result.withVisualisation(drawing);
+  }
+
+  /**
+   * Adds the rocks of one structure, packed with Coordinate.pack, to a list
+   * shared by all of them. Rocks where lines meet or cross are added more
+   * than once, which doesn't matter once they're marked in the grid.
+   */
+  private static class RockStructure
+  {
+    private final LongArrayList rocks;
     private Coordinate lastAdded = null;
 
-    public List<Coordinate> getRocks()
+    public RockStructure(final LongArrayList rocks)
     {
-      return Collections.unmodifiableList(this.rocks);
+      this.rocks = rocks;
     }
 
-    public void addLineTo(final String newCoordinate)
+    /**
+     * Add rocks in a straight line from the last point added to the given
+     * point.
+     */
+    public void addLineTo(final Coordinate endOfLine)
     {
-      final Coordinate endOfLine = coordinateFromInput(newCoordinate);
-
       if (this.lastAdded == null)
       {
-        rocks.add(endOfLine);
+        this.rocks.add(endOfLine.packed());
         this.lastAdded = endOfLine;
         return;
       }
@@ -295,20 +371,13 @@ public class Day14 extends DayTask
       final int start = (vertical) ? Math.min(startOfLine.y(), endOfLine.y())
                                    : Math.min(startOfLine.x(), endOfLine.x());
 
-      final List<Coordinate> newRocks = IntStream.rangeClosed(start, start + length)
-        .mapToObj( i -> (vertical) ? new Coordinate(endOfLine.x(), i)
-                                   : new Coordinate(i, endOfLine.y()) )
-        .filter( r -> !this.rocks.contains(r) )
-        .collect(Collectors.toList());
+      for (int i = start; i <= start + length; i++)
+      {
+        this.rocks.add((vertical) ? Coordinate.pack(endOfLine.x(), i)
+                                  : Coordinate.pack(i, endOfLine.y()));
+      }
 
-      this.rocks.addAll(newRocks);
       this.lastAdded = endOfLine;
     }
-
-    public RockStructure combine(final RockStructure structure)
-    {
-      this.rocks.addAll(structure.getRocks());
-      return this;
-    }
   }
 }
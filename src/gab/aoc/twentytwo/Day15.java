@@ -1,64 +1,131 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.IntStream;
+import java.util.OptionalLong;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.CancellationToken;
 import gab.aoc.util.Coordinate;
-import gab.aoc.util.InputFileException;
+import gab.aoc.util.IntervalSet;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.LongHashSet;
+import gab.aoc.util.ModelCodec;
 
 public class Day15 extends DayTask
 {
+  /**
+   * @return the tuning frequency for a distress beacon at the given location
+   */
+  static long getTuningFrequency(final Coordinate distressBeacon)
+  {
+    return distressBeacon.x() * 4000000L + distressBeacon.y();
+  }
 
+  /**
+   * Build the layout of sensors and beacons from the input, which has a
+   * line for each sensor, e.g.
+   * "Sensor at x=2, y=18: closest beacon is at x=-2, y=15".
+   */
+  TunnelLayout parse(final AsciiScanner scanner)
+  {
+    final TunnelLayout layout = new TunnelLayout();
 
-  @Override
-  public void doTask(PrintStream output, boolean debug)
+    while (scanner.hasRemaining())
+    {
+      parseReading(scanner, layout);
+      scanner.nextLine();
+    }
+
+    return layout;
+  }
+
+  /**
+   * Add the reading on the scanner's current line to the layout, if the
+   * line isn't blank.
+   */
+  private static void parseReading(
+      final AsciiScanner scanner, final TunnelLayout layout)
   {
-    final List<String> inputLines = getFileLines();
+    if (scanner.atEol())
+    {
+      return;
+    }
 
-    final TunnelLayout layout = inputLines.stream()
-      .collect(
-        TunnelLayout::new, TunnelLayout::processLine, TunnelLayout::combine);
+    scanner.expect("Sensor at x=");
+    final int xSensor = scanner.nextInt();
+    scanner.expect(", y=");
+    final int ySensor = scanner.nextInt();
+    scanner.expect(": closest beacon is at x=");
+    final int xBeacon = scanner.nextInt();
+    scanner.expect(", y=");
+    final int yBeacon = scanner.nextInt();
 
-    final int part1 = layout.getBeaconFreeSpacesForRow(2000000).size();
-    output.println("Beacon free spaces at row: " + part1);
+    layout.addReading(xSensor, ySensor, xBeacon, yBeacon);
+  }
 
-    final Coordinate distressBeacon = layout.findDistressBeacon();
-    output.println("Found distress beacon at: " + distressBeacon);
-    final long tuningFrequency = distressBeacon.x() * 4000000L + distressBeacon.y();
-    output.println("Distress beacon tuning frequency: " + tuningFrequency);
+  /**
+   * As parse, but reading the lines in parallel.
+   */
+  TunnelLayout parseParallel(final Stream<ByteBuffer> records)
+  {
+    return records.collect(Collector.of(
+      TunnelLayout::new,
+      (layout, record) -> parseReading(new AsciiScanner(record), layout),
+      TunnelLayout::combine,
+      Collector.Characteristics.IDENTITY_FINISH));
   }
 
-  private static class TunnelLayout
+  int partOne(final TunnelLayout layout)
   {
-    private static final String COORD_REGEX = "[xy]=(?<digit>\\-?\\d+)[:,]?";
-    private static final Pattern COORD_PATTERN = Pattern.compile(COORD_REGEX);
+    return (int)layout.countBeaconFreeSpacesInRow(2000000, cancellation());
+  }
 
-    private static int parseCoordinateNumber(final String token)
-    {
-      final Matcher matcher = COORD_PATTERN.matcher(token);
+  /**
+   * @return the location of the distress beacon. The answer itself is the
+   * tuning frequency, which can be calculated from that.
+   */
+  Coordinate partTwo(final TunnelLayout layout)
+  {
+    return layout.findDistressBeacon(cancellation());
+  }
 
-      if (!matcher.matches())
-      {
-        throw new InputFileException("Bad coordinate token: " + token);
-      }
+  @Override
+  public TaskResult solve()
+  {
+    final TunnelLayout layout =
+      phase(PARSE, () -> scanCached(new LayoutCodec(), this::parse));
 
-      final String parsedNumber = matcher.group("digit");
-      return Integer.parseInt(parsedNumber);
-    }
+    final int part1 = phase(PART_ONE, () -> partOne(layout));
+    final Coordinate distressBeacon = phase(PART_TWO, () -> partTwo(layout));
+    final long tuningFrequency = getTuningFrequency(distressBeacon);
+
+    return new TaskResult(
+        Answer.of("Beacon free spaces at row", part1),
+        Answer.of("Distress beacon tuning frequency", tuningFrequency))
+      .withExtra(Answer.of("Found distress beacon at", distressBeacon));
+  }
+
+  static class TunnelLayout
+  {
+    /**
+     * The distress beacon's x and y are each between zero and this.
+     */
+    private static final int SEARCH_LIMIT = 4000000;
 
-    final Map<Coordinate, Integer> sensorBeaconDistances = new HashMap<>();
+    final Map<Coordinate, Integer> sensorBeaconDistances =
+      new LinkedHashMap<>();
     final List<Coordinate> beacons = new ArrayList<>();
 
     public Map<Coordinate, Integer> getDistances()
@@ -66,47 +133,65 @@ public class Day15 extends DayTask
       return Collections.unmodifiableMap(this.sensorBeaconDistances);
     }
 
-    public void processLine(final String input)
+    /**
+     * Add a sensor, and the closest beacon to it.
+     */
+    public void addReading(
+        final int xSensor,
+        final int ySensor,
+        final int xBeacon,
+        final int yBeacon)
     {
-      final String[] tokens = input.split(" ");
-
-      if (tokens.length != 10)
-      {
-        throw new InputFileException("Bad input line: " + input);
-      }
-
-      //-----------------------------------------------------------------------
-      // For each token containing a coordinate, we want to split out the
-      // number, retaining any negative sign.
-      //-----------------------------------------------------------------------
-      final int xSensor = parseCoordinateNumber(tokens[2]);
-      final int ySensor = parseCoordinateNumber(tokens[3]);
-      final int xBeacon = parseCoordinateNumber(tokens[8]);
-      final int yBeacon = parseCoordinateNumber(tokens[9]);
-
       final Coordinate sensorCoordinate = new Coordinate(xSensor, ySensor);
       final Coordinate beaconCoordinate = new Coordinate(xBeacon, yBeacon);
 
       final int distance =
         sensorCoordinate.manhattanDistanceTo(beaconCoordinate);
 
-      this.sensorBeaconDistances.put(sensorCoordinate, distance);
-      this.beacons.add(beaconCoordinate);
+      this.addSensor(sensorCoordinate, distance);
+      this.addBeacon(beaconCoordinate);
     }
 
+    /**
+     * Add a sensor, with the distance to its closest beacon.
+     */
+    private void addSensor(final Coordinate sensor, final int distance)
+    {
+      this.sensorBeaconDistances.put(sensor, distance);
+    }
+
+    private void addBeacon(final Coordinate beacon)
+    {
+      this.beacons.add(beacon);
+    }
+
+    /**
+     * Add the readings from the lines that come straight after ours. The
+     * sensors and beacons stay in input order.
+     */
     public TunnelLayout combine(final TunnelLayout layout)
     {
       this.sensorBeaconDistances.putAll(layout.getDistances());
+      this.beacons.addAll(layout.beacons);
       return this;
     }
 
-    public Set<Coordinate> getBeaconFreeSpacesForRow(final int row)
+    /**
+     * Add the spaces in the given row that are covered by each sensor (that
+     * is, no further from it than its closest beacon) to the given set,
+     * clipped to the given range of x.
+     */
+    private void addCoveredSpaces(
+        final int row,
+        final long xFrom,
+        final long xTo,
+        final IntervalSet covered)
     {
-      final Set<Coordinate> beaconFreeSpaces = new HashSet<>();
-
-      for (final Coordinate sensor : this.sensorBeaconDistances.keySet())
+      for (final Map.Entry<Coordinate, Integer> reading :
+             this.sensorBeaconDistances.entrySet())
       {
-        final int maxDistance = this.sensorBeaconDistances.get(sensor);
+        final Coordinate sensor = reading.getKey();
+        final int maxDistance = reading.getValue();
         final int rowDistance = Math.abs(row - sensor.y());
 
         if (rowDistance > maxDistance)
@@ -114,140 +199,146 @@ public class Day15 extends DayTask
           continue;
         }
 
-        final int xMin = sensor.x() - (maxDistance - rowDistance);
-        final int xMax = sensor.x() + (maxDistance - rowDistance);
+        final long xMin =
+          Math.max(xFrom, (long)sensor.x() - (maxDistance - rowDistance));
+        final long xMax =
+          Math.min(xTo, (long)sensor.x() + (maxDistance - rowDistance));
 
-        IntStream.rangeClosed(xMin, xMax)
-          .mapToObj( x -> new Coordinate(x, row) )
-          .filter( c -> !this.beacons.contains(c) )
-          .forEach(beaconFreeSpaces::add);
+        if (xMin <= xMax)
+        {
+          covered.add(xMin, xMax);
+        }
       }
-
-      return Collections.unmodifiableSet(beaconFreeSpaces);
     }
 
-    public Coordinate findDistressBeacon()
+    /**
+     * @return the number of spaces in the given row that can't hold a
+     *   beacon - those covered by a sensor, less any known beacons there
+     */
+    public long countBeaconFreeSpacesInRow(
+        final int row, final CancellationToken cancellation)
     {
-      return IntStream.rangeClosed(0, 4000000)
-        .mapToObj(this::searchRowForDistressBeacon)
-        .filter(Optional::isPresent)
-        .map(Optional::get)
-        .findFirst()
-        .orElseThrow( () -> new LogicException("Failed to find beacon") );
-    }
+      cancellation.checkCancelled();
+      final IntervalSet covered = new IntervalSet();
+      addCoveredSpaces(row, Long.MIN_VALUE, Long.MAX_VALUE, covered);
 
-    public Optional<Coordinate> searchRowForDistressBeacon(final int row)
-    {
-      //-----------------------------------------------------------------------
-      // Try to be clever about this. For each row, work out (and combine)
-      // the ranges which are covered by each sensor. (This will include all
-      // known beacons, so we can ignore those.
-      //-----------------------------------------------------------------------
-      List<Interval> intervalsOfEmptySpace = new ArrayList<>();
-
-      for (final Coordinate sensor : this.sensorBeaconDistances.keySet())
-      {
-        final int maxDistance = this.sensorBeaconDistances.get(sensor);
-        final int rowDistance = Math.abs(row - sensor.y());
+      final LongHashSet knownBeacons = new LongHashSet(this.beacons.size());
+      this.beacons.stream()
+        .filter( beacon -> beacon.y() == row )
+        .filter( beacon -> covered.contains(beacon.x()) )
+        .forEach( beacon -> knownBeacons.add(beacon.packed()) );
 
-        if (rowDistance > maxDistance)
-        {
-          continue;
-        }
+      return covered.coveredLength() - knownBeacons.size();
+    }
 
-        final int xMin =
-          Math.max(0, sensor.x() - (maxDistance - rowDistance));
-        final int xMax =
-          Math.min(4000000, sensor.x() + (maxDistance - rowDistance));
+    /**
+     * Search every row for the distress beacon, checking between rows
+     * whether we've been cancelled. The same set of intervals is reused
+     * for each row.
+     */
+    public Coordinate findDistressBeacon(final CancellationToken cancellation)
+    {
+      final IntervalSet covered = new IntervalSet();
 
-        Interval newInterval = new Interval(xMin, xMax);
-        final List<Interval> updatedList = new ArrayList<>();
+      for (int row = 0; row <= SEARCH_LIMIT; row++)
+      {
+        cancellation.checkCancelled();
+        final Optional<Coordinate> beacon =
+          searchRowForDistressBeacon(row, covered);
 
-        for (final Interval interval : intervalsOfEmptySpace)
+        if (beacon.isPresent())
         {
-          //-------------------------------------------------------------------
-          // Merge in any overlapping intervals, otherwise copy them across to
-          // the new list.
-          //-------------------------------------------------------------------
-          if (interval.overlaps(newInterval))
-          {
-            newInterval = interval.combine(newInterval);
-          }
-          else
-          {
-            updatedList.add(interval);
-          }
+          return beacon.get();
         }
-
-        updatedList.add(newInterval);
-        intervalsOfEmptySpace = updatedList;
       }
 
-      final List<Interval> finalIntervals = intervalsOfEmptySpace;
-
-      if (finalIntervals.size() > 1 ||
-          finalIntervals.get(0).start() > 0 ||
-          finalIntervals.get(0).end() < 4000000)
-      {
-        //---------------------------------------------------------------------
-        // We've found it! Work out where the beacon is.
-        //---------------------------------------------------------------------
-        return IntStream.range(0, 4000000)
-          .filter( i -> !anyIntervalContains(finalIntervals, i) )
-          .mapToObj( x -> new Coordinate(x, row) )
-          .findFirst();
-      }
-      else
-      {
-        return Optional.empty();
-      }
+      throw new LogicException("Failed to find beacon");
     }
 
-    private boolean anyIntervalContains(
-        final Collection<Interval> intervals, final int i)
+    /**
+     * Work out (and combine) the ranges of the row which are covered by
+     * each sensor. This will include all known beacons, so we can ignore
+     * those. The distress beacon is in the first gap, if there is one.
+     */
+    private Optional<Coordinate> searchRowForDistressBeacon(
+        final int row, final IntervalSet covered)
     {
-      return intervals.stream().anyMatch( interval -> interval.contains(i) );
+      covered.clear();
+      addCoveredSpaces(row, 0, SEARCH_LIMIT, covered);
+
+      final OptionalLong x = covered.firstGap(0, SEARCH_LIMIT);
+
+      return x.isPresent() ?
+        Optional.of(new Coordinate((int)x.getAsLong(), row)) :
+        Optional.empty();
     }
   }
 
-  private static class Interval
+  /**
+   * Binary form of the parsed layout, for the model cache: each sensor with
+   * its beacon distance, followed by each beacon.
+   */
+  private static class LayoutCodec implements ModelCodec<TunnelLayout>
   {
-    private final int start;
-    private final int end;
-
-    public Interval(final int start, final int end)
+    private static void writeCoordinate(
+        final Coordinate c, final DataOutput output) throws IOException
     {
-      this.start = start;
-      this.end = end;
+      output.writeInt(c.x());
+      output.writeInt(c.y());
     }
 
-    public int start() { return this.start; }
-    public int end() { return this.end; }
-
-    public boolean overlaps(final Interval interval)
+    private static Coordinate readCoordinate(final DataInput input)
+      throws IOException
     {
-      return (this.contains(interval.start()) ||
-              this.contains(interval.end()) ||
-              interval.contains(this.start()) ||
-              interval.contains(this.end()));
+      final int x = input.readInt();
+      final int y = input.readInt();
+      return new Coordinate(x, y);
     }
 
-    public Interval combine(final Interval interval)
-    {
-      final int newStart = Math.min(this.start(), interval.start());
-      final int newEnd = Math.max(this.end(), interval.end());
-      return new Interval(newStart, newEnd);
-    }
+    @Override
+    public int formatVersion() { return 1; }
 
-    public boolean contains(final int i)
+    @Override
+    public void write(final TunnelLayout layout, final DataOutput output)
+      throws IOException
     {
-      return (i >= this.start() && i <= this.end());
+      final Map<Coordinate, Integer> distances = layout.getDistances();
+      output.writeInt(distances.size());
+
+      for (final Map.Entry<Coordinate, Integer> sensor : distances.entrySet())
+      {
+        writeCoordinate(sensor.getKey(), output);
+        output.writeInt(sensor.getValue());
+      }
+
+      output.writeInt(layout.beacons.size());
+
+      for (final Coordinate beacon : layout.beacons)
+      {
+        writeCoordinate(beacon, output);
+      }
     }
 
     @Override
-    public String toString()
+    public TunnelLayout read(final DataInput input) throws IOException
     {
-      return "start: " + this.start() + ", end: " + this.end();
+      final TunnelLayout layout = new TunnelLayout();
+      final int sensorCount = input.readInt();
+
+      for (int i = 0; i < sensorCount; i++)
+      {
+        final Coordinate sensor = readCoordinate(input);
+        layout.addSensor(sensor, input.readInt());
+      }
+
+      final int beaconCount = input.readInt();
+
+      for (int i = 0; i < beaconCount; i++)
+      {
+        layout.addBeacon(readCoordinate(input));
+      }
+
+      return layout;
     }
   }
 }
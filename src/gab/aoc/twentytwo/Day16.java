@@ -1,7 +1,5 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -9,65 +7,147 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.CancellationToken;
+import gab.aoc.util.CsrGraph;
 import gab.aoc.util.InputFileException;
+import gab.aoc.util.LabelInterner;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.ShortestPaths;
 
 public class Day16 extends DayTask
 {
+  private static final String START_VALVE = "AA";
+  private static final int MINUTES = 30;
 
-  @Override
-  public void doTask(PrintStream output, boolean debug)
+  /**
+   * Build the map of valves and tunnels from the input.
+   */
+  TunnelMap parse(final List<String> inputLines)
   {
-    final List<String> inputLines = getFileLines();
-    final TunnelMap tunnelMap = TunnelMap.build(inputLines);
-    final Node startingNode = tunnelMap.getNode("AA");
-    List<Route> routes = new ArrayList<>();
-    routes.add(new Route(startingNode));
+    return TunnelMap.build(inputLines);
+  }
 
-    for (int i = 1; i < 31; i++)
-    {
-      output.println("Iteration " + i);
-      List<Route> updatedRoutes = new ArrayList<>();
+  /**
+   * Find the most pressure that can be released in the given time, starting
+   * at valve AA.
+   *
+   * Moving through a tunnel or opening a valve takes a minute, and an open
+   * valve releases its flow rate in pressure every minute from the minute
+   * it's opened. So the only moves that matter are to go straight to some
+   * closed, working valve (by the shortest route) and open it, and we
+   * search every order of doing that which fits in the time.
+   */
+  private static int getHighestPressureRelease(
+      final TunnelMap tunnelMap,
+      final int minutes,
+      final CancellationToken cancellation)
+  {
+    final int start = tunnelMap.getValve(START_VALVE);
+    final int[] distances =
+      ShortestPaths.floydWarshall(tunnelMap.tunnels(), cancellation);
+
+    //-------------------------------------------------------------------------
+    // Trying the valves with the highest flow first tends to find a good
+    // answer early, which lets the search skip more of the rest.
+    //-------------------------------------------------------------------------
+    final int[] workingValves = IntStream.range(0, tunnelMap.valveCount())
+      .filter( v -> tunnelMap.flowRate(v) > 0 )
+      .boxed()
+      .sorted( (v1, v2) -> tunnelMap.flowRate(v2) - tunnelMap.flowRate(v1) )
+      .mapToInt(Integer::intValue)
+      .toArray();
+
+    final ValveSearch search = new ValveSearch(
+      tunnelMap, distances, workingValves, cancellation);
+    search.openValvesFrom(start, minutes, 0);
+    return search.highestPressureRelease();
+  }
 
-      routes.stream()
-        .map( route -> route.getNextRoutes(tunnelMap) )
-        .forEach(updatedRoutes::addAll);
+  int partOne(final TunnelMap tunnelMap)
+  {
+    return getHighestPressureRelease(tunnelMap, MINUTES, cancellation());
+  }
 
-      routes = updatedRoutes;
-    }
+  @Override
+  public TaskResult solve()
+  {
+    final List<String> inputLines = phase(READ, this::getFileLines);
+    final TunnelMap tunnelMap = phase(PARSE, () -> parse(inputLines));
 
-    final int highestPossiblePressureRelease = routes.stream()
-      .mapToInt(Route::pressureReleased)
-      .max()
-      .orElseThrow( () -> new LogicException("Failed to get pressure") );
+    final int highestPossiblePressureRelease =
+      phase(PART_ONE, () -> partOne(tunnelMap));
 
-    output.println(
-      "Highest possible pressure release: " + highestPossiblePressureRelease);
+    return new TaskResult(Answer.of(
+      "Highest possible pressure release", highestPossiblePressureRelease));
   }
 
-  private static class TunnelMap
+  /**
+   * The valves, each identified by an int (in the order they're listed in
+   * the input), and the tunnels between them as a graph.
+   */
+  static class TunnelMap
   {
     private static final String FLOW_REGEX = "rate=(?<flow>\\d+);";
     private static final Pattern FLOW_PATTERN = Pattern.compile(FLOW_REGEX);
 
-    public static TunnelMap build(final List<String> input)
+    private final LabelInterner valves;
+    private final int[] flowRates;
+    private final CsrGraph tunnels;
+
+    private TunnelMap(
+        final LabelInterner valves,
+        final int[] flowRates,
+        final CsrGraph tunnels)
     {
-      final TunnelMap map = new TunnelMap();
-      input.stream().forEach(map::processLine);
-      return map;
+      this.valves = valves;
+      this.flowRates = flowRates;
+      this.tunnels = tunnels;
     }
 
-    private final List<Node> nodes = new ArrayList<>();
+    public static TunnelMap build(final List<String> input)
+    {
+      final List<Node> nodes = input.stream()
+        .map(TunnelMap::processLine)
+        .collect(Collectors.toList());
+
+      final LabelInterner valves = new LabelInterner();
+      nodes.forEach( node -> valves.intern(node.label()) );
+
+      final int[] flowRates = nodes.stream()
+        .mapToInt(Node::flowRate)
+        .toArray();
 
-    public Node getNode(final String label)
+      final CsrGraph.Edges edges = new CsrGraph.Edges();
+
+      for (final Node node : nodes)
+      {
+        final int from = valves.intern(node.label());
+        node.connections()
+          .forEach( label -> edges.add(from, valves.intern(label)) );
+      }
+
+      if (valves.size() > nodes.size())
+      {
+        throw new InputFileException(
+          "No valve " + valves.label(nodes.size()));
+      }
+
+      return new TunnelMap(
+        valves, flowRates, CsrGraph.fromEdges(nodes.size(), edges));
+    }
+
+    public int getValve(final String label)
     {
-      return this.nodes.stream()
-        .filter( node -> node.label().equals(label) )
-        .findFirst()
+      return this.valves.idOf(label)
         .orElseThrow( () -> new LogicException("No node " + label) );
     }
 
-    private void processLine(final String line)
+    public int valveCount() { return this.flowRates.length; }
+    public int flowRate(final int valve) { return this.flowRates[valve]; }
+    public CsrGraph tunnels() { return this.tunnels; }
+
+    private static Node processLine(final String line)
     {
       final String[] tokens = line.split(" ");
 
@@ -91,11 +171,13 @@ public class Day16 extends DayTask
         .map( label -> label.replace(",", "") )
         .collect(Collectors.toList());
 
-      final Node newNode = new Node(nodeLabel, flowRate, connections);
-      this.nodes.add(newNode);
+      return new Node(nodeLabel, flowRate, connections);
     }
   }
 
+  /**
+   * One line of the input: a valve, and the valves its tunnels lead to.
+   */
   private static class Node
   {
     private final String label;
@@ -119,74 +201,124 @@ public class Day16 extends DayTask
     }
   }
 
-  private static class Route
+  /**
+   * A depth-first search over the orders in which the working valves could
+   * be opened, tracking which are open in a single array as it goes.
+   */
+  private static class ValveSearch
   {
-    final List<Node> nodeRoute = new ArrayList<>();
-    final List<Node> valvesOpened = new ArrayList<>();
-    private int length = 0;
-    private int pressureReleased = 0;
-
-    public static Route startingAt(final Node startingNode)
+    private final TunnelMap tunnelMap;
+    private final int[] distances;
+    private final int[] workingValves;
+    private final boolean[] opened;
+    private final CancellationToken cancellation;
+    private int highestPressureRelease = 0;
+
+    public ValveSearch(
+        final TunnelMap tunnelMap,
+        final int[] distances,
+        final int[] workingValves,
+        final CancellationToken cancellation)
     {
-      return new Route(startingNode);
+      this.tunnelMap = tunnelMap;
+      this.distances = distances;
+      this.workingValves = workingValves;
+      this.opened = new boolean[workingValves.length];
+      this.cancellation = cancellation;
     }
 
-    private Route(final Node startingNode)
+    public int highestPressureRelease()
     {
-      this.nodeRoute.add(startingNode);
+      return this.highestPressureRelease;
     }
 
-    private Route(final Route original)
+    /**
+     * @return the minutes it takes to walk from one valve to another, or
+     *   ShortestPaths.UNREACHABLE
+     */
+    private int distance(final int from, final int to)
     {
-      this.nodeRoute.addAll(original.nodeRoute);
-      this.valvesOpened.addAll(original.valvesOpened);
-      this.length = original.length;
-      this.pressureReleased = original.pressureReleased;
+      return this.distances[from * this.tunnelMap.valveCount() + to];
     }
 
-    public int routeLength() { return this.length; }
-    public int pressureReleased() { return this.pressureReleased; }
-    public Node currentNode() { return nodeRoute.get(nodeRoute.size() - 1); }
-
-    public List<Route> getNextRoutes(final TunnelMap tunnelMap)
+    /**
+     * @return the pressure the given valve would release if we went straight
+     *   there and opened it, or zero if there isn't time
+     */
+    private int pressureFromOpening(
+        final int from, final int valve, final int minutesLeft)
     {
-      final List<Route> nextRoutes = new ArrayList<>();
-      final Node currentNode = this.currentNode();
+      final int distance = distance(from, valve);
 
-      if (!valvesOpened.contains(currentNode) && currentNode.flowRate() > 0)
+      if (distance == ShortestPaths.UNREACHABLE || distance >= minutesLeft)
       {
-        final Route openValveRoute = new Route(this);
-        openValveRoute.openCurrentValve();
-        nextRoutes.add(openValveRoute);
+        return 0;
       }
 
-      for (final String nodeLabel : currentNode.connections())
-      {
-        final Node nextNode = tunnelMap.getNode(nodeLabel);
-        final Route nextStep = new Route(this);
-        nextStep.moveTo(nextNode);
-        nextRoutes.add(nextStep);
-      }
-
-      nextRoutes.stream().forEach(Route::updateLengthAndPressure);
-      return nextRoutes;
+      return this.tunnelMap.flowRate(valve) * (minutesLeft - distance);
     }
 
-    private void openCurrentValve()
+    /**
+     * Try opening each closed valve next, from the given valve, and recurse.
+     *
+     * @param released the pressure that the valves opened so far will have
+     *   released by the end
+     */
+    public void openValvesFrom(
+        final int valve, final int minutesLeft, final int released)
     {
-      this.valvesOpened.add(this.currentNode());
-    }
+      this.cancellation.checkCancelled();
+      this.highestPressureRelease =
+        Math.max(this.highestPressureRelease, released);
+
+      //-----------------------------------------------------------------------
+      // Two upper bounds on what the closed valves can add:
+      // - going to each of them straight from here
+      // - opening them in order of flow, each as soon as it could possibly
+      //   be (two minutes after the last, to move and open)
+      // If opening them wouldn't beat the best found so far, even by the
+      // lower of these, nothing from here will.
+      //-----------------------------------------------------------------------
+      int eachFromHere = 0;
+      int soonestInTurn = 0;
+      int soonest = minutesLeft;
+
+      for (int i = 0; i < this.workingValves.length; i++)
+      {
+        final int valveToOpen = this.workingValves[i];
+
+        if (!this.opened[i] &&
+            pressureFromOpening(valve, valveToOpen, minutesLeft) > 0)
+        {
+          eachFromHere +=
+            pressureFromOpening(valve, valveToOpen, minutesLeft);
+          soonestInTurn +=
+            this.tunnelMap.flowRate(valveToOpen) * Math.max(0, soonest);
+          soonest -= 2;
+        }
+      }
 
-    private void moveTo(final Node destinationNode)
-    {
-      this.nodeRoute.add(destinationNode);
-    }
+      final int mostPossible =
+        released + Math.min(eachFromHere, soonestInTurn);
 
-    private void updateLengthAndPressure()
-    {
-      length++;
-      valvesOpened.stream()
-        .forEach( node -> this.pressureReleased += node.flowRate() );
+      if (mostPossible <= this.highestPressureRelease)
+      {
+        return;
+      }
+
+      for (int i = 0; i < this.workingValves.length; i++)
+      {
+        final int next = this.workingValves[i];
+        final int pressure = pressureFromOpening(valve, next, minutesLeft);
+
+        if (!this.opened[i] && pressure > 0)
+        {
+          this.opened[i] = true;
+          openValvesFrom(next, minutesLeft - distance(valve, next) - 1,
+            released + pressure);
+          this.opened[i] = false;
+        }
+      }
     }
   }
 }
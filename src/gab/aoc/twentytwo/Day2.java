@@ -1,6 +1,5 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
@@ -9,6 +8,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Stream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
 import gab.aoc.util.InputFileException;
 import gab.aoc.util.LogicException;
 import gab.aoc.util.TaskException;
@@ -36,12 +36,11 @@ public class Day2 extends DayTask
   }
 
   /**
-   * Get the round score for the given input line, assuming that both labels
-   * represent plays (i.e. rock/paper/scissors).
+   * Get the round score for the given input labels, assuming that both
+   * labels represent plays (i.e. rock/paper/scissors).
    */
-  private static int scoreRound(final String line)
+  private static int scoreRound(final List<String> labels)
   {
-    final List<String> labels = splitInputLine(line);
     final Play opponent = Play.get(labels.get(0));
     final Play mine = Play.get(labels.get(1));
     return scoreRound(opponent, mine);
@@ -57,13 +56,12 @@ public class Day2 extends DayTask
   }
 
   /**
-   * Get the round score for the given input line, assuming that the first
+   * Get the round score for the given input labels, assuming that the first
    * label represents the opponent's play and the second label represents our
    * required strategy (win/draw/lose).
    */
-  private static int scoreStrategy(final String line)
+  private static int scoreStrategy(final List<String> labels)
   {
-    final List<String> labels = splitInputLine(line);
     final Play opponent = Play.get(labels.get(0));
     final Strategy strategy = Strategy.get(labels.get(1));
     final Play mine;
@@ -80,24 +78,57 @@ public class Day2 extends DayTask
     return score;
   }
 
+  /**
+   * Score every round under both interpretations of the second label as we
+   * read through the input, without retaining the lines.
+   */
+  ScoreTally parse(final Stream<String> inputLines)
+  {
+    final ScoreTally tally = new ScoreTally();
+    inputLines.map(Day2::splitInputLine).forEachOrdered(tally::addRound);
+    return tally;
+  }
+
+  int partOne(final ScoreTally tally)
+  {
+    return tally.scoreSum();
+  }
+
+  int partTwo(final ScoreTally tally)
+  {
+    return tally.strategyScore();
+  }
+
   @Override
-  public void doTask(final PrintStream output, final boolean debug)
-    throws TaskException
+  public TaskResult solve() throws TaskException
   {
-    final List<String> inputSequence = getFileLines();
-    final int scoreSum = inputSequence.stream()
-      .map(Day2::scoreRound)
-      .mapToInt(Integer::valueOf)
-      .sum();
+    final ScoreTally tally = phase(PARSE, () -> parseFileLines(this::parse));
+
+    final int scoreSum = phase(PART_ONE, () -> partOne(tally));
+    final int strategyScore = phase(PART_TWO, () -> partTwo(tally));
 
-    output.println("Part 1: Score sum: " + scoreSum);
+    return new TaskResult(
+      Answer.of("Part 1: Score sum", scoreSum),
+      Answer.of("Part 2: Score sum", strategyScore));
+  }
 
-    final int strategyScore = inputSequence.stream()
-      .map(Day2::scoreStrategy)
-      .mapToInt(Integer::valueOf)
-      .sum();
+  /**
+   * Running totals for both parts: the score if the second label is our
+   * play, and the score if it's our strategy.
+   */
+  static class ScoreTally
+  {
+    private int scoreSum = 0;
+    private int strategyScore = 0;
+
+    public void addRound(final List<String> labels)
+    {
+      this.scoreSum += scoreRound(labels);
+      this.strategyScore += scoreStrategy(labels);
+    }
 
-    output.println("Part 2: Score sum: " + strategyScore);
+    public int scoreSum() { return this.scoreSum; }
+    public int strategyScore() { return this.strategyScore; }
   }
 
   /**
@@ -1,17 +1,22 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
-import java.util.List;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collector;
+import java.util.stream.Stream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.InputFileException;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.RecordSpliterator;
 
 public class Day3 extends DayTask
 {
@@ -61,40 +66,63 @@ public class Day3 extends DayTask
    * Given a group of elves (i.e. a list of 3 inputs), find the character that
    * is present in all three, returned as its decimal code point.
    */
-  private static int getGroupCommonItem(final ElfGroup group)
+  private static OptionalInt findGroupCommonItem(final ElfGroup group)
   {
     final String first = group.get(0);
     final String second = group.get(1);
     final String third = group.get(2);
 
-    final int commonItemCode = first.codePoints()
+    return first.codePoints()
       .filter( codePoint -> second.indexOf(codePoint) >= 0 )
       .filter( codePoint -> third.indexOf(codePoint) >= 0 )
-      .findFirst()
-      .orElseThrow( () -> new LogicException("Bad group: " + group) );
+      .findFirst();
+  }
+
+  /**
+   * Each line of the input is one rucksack. We work out the priorities for
+   * both parts as we read through the lines, so that only the current group
+   * of three is ever held in memory. The lines can be read in parallel if
+   * they're only split between groups of three.
+   */
+  RucksackTally parse(final Stream<String> inputLines)
+  {
+    return inputLines.collect(new ElfGroupCollector());
+  }
+
+  /**
+   * @return the record's (ASCII) bytes as a String
+   */
+  static String toLine(final ByteBuffer record)
+  {
+    final byte[] bytes = new byte[record.remaining()];
+    record.get(bytes);
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  int partOne(final RucksackTally tally)
+  {
+    return tally.sumOfPriorities();
+  }
 
-    return commonItemCode;
+  int partTwo(final RucksackTally tally)
+  {
+    return tally.sumOfBadgePriorities();
   }
 
   @Override
-  public void doTask(final PrintStream output, final boolean debug)
+  public TaskResult solve()
   {
-    final List<String> inputLines = getFileLines();
-    final int sumOfPriorities = inputLines.stream()
-      .map(Day3::getSharedItem)
-      .mapToInt(Day3::getPriorityForItem)
-      .sum();
-
-    output.println("Result: " + sumOfPriorities);
-
-    final int sumOfBadgePriorities = inputLines.stream()
-      .collect(new ElfGroupCollector())
-      .stream()
-      .map(Day3::getGroupCommonItem)
-      .mapToInt(Day3::getPriorityForItem)
-      .sum();
-
-    output.println("Result for part 2: " + sumOfBadgePriorities);
+    final RucksackTally tally =
+      phase(PARSE, () -> parse(
+        parallelFileRecords(RecordSpliterator.Boundary.THREE_LINE_GROUP)
+          .map(Day3::toLine) ));
+
+    final int sumOfPriorities = phase(PART_ONE, () -> partOne(tally));
+    final int sumOfBadgePriorities = phase(PART_TWO, () -> partTwo(tally));
+
+    return new TaskResult(
+      Answer.of("Result", sumOfPriorities),
+      Answer.of("Result for part 2", sumOfBadgePriorities));
   }
 
   /**
@@ -110,74 +138,121 @@ public class Day3 extends DayTask
   }
 
   /**
-   * Another typdef to simplify the collector parameters, which would
-   * otherwise be littered with <List<List<String>>>.
+   * The running totals for both parts, for a run of consecutive lines.
+   *
+   * A run may be part of a larger input read in parallel, but the input is
+   * only ever split between elf groups, so every run starts with the first
+   * line of a group. Only the last group can be left unfinished, and only
+   * at the end of the input.
    */
-  private static class ElfGroupList extends ArrayList<ElfGroup> {}
-
-  /**
-   * Custom collector. Takes the list of input lines (as strings) and
-   * partitions it into a list of 'elf groups' (i.e. a list of lists of 3
-   * entries each).
-   */
-  private static class ElfGroupCollector
-      implements Collector<String, ElfGroupList, ElfGroupList>
+  static class RucksackTally
   {
-    private ElfGroup batch = new ElfGroup();
+    private long lineCount = 0;
+    private int sumOfPriorities = 0;
+    private int sumOfBadgePriorities = 0;
+    private ElfGroup partialGroup = new ElfGroup();
 
-    private final BiConsumer<ElfGroupList, String> accumulator =
-        (collectorOutput, lineToAdd) ->
+    /**
+     * Add the next line to the run.
+     */
+    public void add(final String line)
     {
-      batch.add(lineToAdd);
+      this.sumOfPriorities += getPriorityForItem(getSharedItem(line));
+      this.partialGroup.add(line);
 
-      if (batch.size() == GROUP_SIZE)
+      if (this.partialGroup.size() == GROUP_SIZE)
       {
-        collectorOutput.add(batch);
-        batch = new ElfGroup();
+        final ElfGroup group = this.partialGroup;
+        final int commonItem = findGroupCommonItem(group)
+          .orElseThrow( () -> new LogicException("Bad group: " + group) );
+
+        this.sumOfBadgePriorities += getPriorityForItem(commonItem);
+        this.partialGroup = new ElfGroup();
       }
-    };
 
-    private final BinaryOperator<ElfGroupList> combiner =
-        (first, second) ->
+      this.lineCount++;
+    }
+
+    /**
+     * Add the run of lines that comes straight after this one.
+     */
+    public RucksackTally combine(final RucksackTally next)
     {
-      ElfGroupList combined = new ElfGroupList();
-      combined.addAll(first);
-      combined.addAll(second);
-      return combined;
-    };
+      if (next.lineCount == 0)
+      {
+        return this;
+      }
+
+      if (!this.partialGroup.isEmpty())
+      {
+        throw new LogicException(
+          "Input split part way through an elf group: " + this.partialGroup);
+      }
+
+      this.lineCount += next.lineCount;
+      this.sumOfPriorities += next.sumOfPriorities;
+      this.sumOfBadgePriorities += next.sumOfBadgePriorities;
+      this.partialGroup = next.partialGroup;
+      return this;
+    }
+
+    /**
+     * @return the group left unfinished at the end of the input
+     */
+    private ElfGroup unfinishedGroup() { return this.partialGroup; }
+
+    public int sumOfPriorities() { return this.sumOfPriorities; }
+
+    public int sumOfBadgePriorities() { return this.sumOfBadgePriorities; }
+  }
+
+  /**
+   * Custom collector. Takes the input lines (as strings), totalling the
+   * priority of each rucksack's shared item, and partitions them into
+   * 'elf groups' of 3 entries each to total the badge priorities. The
+   * stream can be parallel, as long as it's only split between groups.
+   */
+  private static class ElfGroupCollector
+      implements Collector<String, RucksackTally, RucksackTally>
+  {
+    private final BiConsumer<RucksackTally, String> accumulator =
+      RucksackTally::add;
+
+    private final BinaryOperator<RucksackTally> combiner =
+      RucksackTally::combine;
 
-    private final UnaryOperator<ElfGroupList> finisher =
-        output ->
+    private final UnaryOperator<RucksackTally> finisher =
+        tally ->
     {
-      if (!batch.isEmpty())
+      if (!tally.unfinishedGroup().isEmpty())
       {
-        output.add(batch);
-        batch = new ElfGroup();
+        throw new InputFileException(
+          "Incomplete elf group: " + tally.unfinishedGroup());
       }
 
-      return output;
+      return tally;
     };
 
     @Override
-    public Supplier<ElfGroupList> supplier()
+    public Supplier<RucksackTally> supplier()
     {
-      return ElfGroupList::new;
+      return RucksackTally::new;
     }
 
     @Override
-    public BiConsumer<ElfGroupList, String> accumulator()
+    public BiConsumer<RucksackTally, String> accumulator()
     {
       return accumulator;
     }
 
     @Override
-    public BinaryOperator<ElfGroupList> combiner()
+    public BinaryOperator<RucksackTally> combiner()
     {
       return combiner;
     }
 
     @Override
-    public UnaryOperator<ElfGroupList> finisher()
+    public UnaryOperator<RucksackTally> finisher()
     {
       return finisher;
     }
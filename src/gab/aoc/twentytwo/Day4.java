@@ -1,89 +1,99 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.IntervalSet;
 
 public class Day4 extends DayTask
 {
   /**
-   * Get a pairing of ranges for each input line, as a two-element list of
-   * integer lists.
+   * Check each input line's pairing (e.g. "2-4,6-8") for both parts as we
+   * scan through the input. The ranges are compared by their bounds, so
+   * nothing is built for each line.
    */
-  private static List<List<Integer>> getPairing(final String line)
+  PairingTally parse(final AsciiScanner scanner)
   {
-    final String[] ranges = line.split(",");
-    final List<List<Integer>> pairings = Stream.of(ranges)
-      .map(Day4::getRange)
-      .collect(Collectors.toList());
+    final PairingTally tally = new PairingTally();
 
-    return pairings;
+    while (scanner.hasRemaining())
+    {
+      if (!scanner.atEol())
+      {
+        final int firstStart = scanner.nextInt();
+        scanner.expect((byte)'-');
+        final int firstEnd = scanner.nextInt();
+        scanner.expect((byte)',');
+        final int secondStart = scanner.nextInt();
+        scanner.expect((byte)'-');
+        final int secondEnd = scanner.nextInt();
+
+        tally.addPairing(firstStart, firstEnd, secondStart, secondEnd);
+      }
+
+      scanner.nextLine();
+    }
+
+    return tally;
   }
 
-  /**
-   * Given the string representation of a range (e.g. "5-8"), return an
-   * integer list of the range.
-   */
-  private static List<Integer> getRange(final String rangeString)
+  long partOne(final PairingTally tally)
   {
-    final String[] bounds = rangeString.split("-");
-    final int start = Integer.parseInt(bounds[0]);
-    final int end = Integer.parseInt(bounds[1]);
-    final List<Integer> range = IntStream.rangeClosed(start, end)
-      .boxed()
-      .collect(Collectors.toList());
-
-    return range;
+    return tally.subsetPairingsCount();
   }
 
-  /**
-   * Given a range pairing, return true if either pairing is a subset of
-   * the other.
-   */
-  private static boolean checkForSubset(final List<List<Integer>> pairing)
+  long partTwo(final PairingTally tally)
   {
-    final List<Integer> first = pairing.get(0);
-    final List<Integer> second = pairing.get(1);
-    final boolean subsetExists =
-      (Collections.indexOfSubList(first, second) >= 0) ||
-      (Collections.indexOfSubList(second, first) >= 0);
-
-    return subsetExists;
+    return tally.overlapPairingsCount();
   }
 
-  /**
-   * Given a range pairing, return true if there is any overlap between the
-   * two ranges.
-   */
-  private static boolean checkForOverlap(final List<List<Integer>> pairing)
+  @Override
+  public TaskResult solve()
   {
-    final List<Integer> first = pairing.get(0);
-    final List<Integer> second = pairing.get(1);
-    final boolean overlapExists = first.stream()
-      .anyMatch(second::contains);
+    final PairingTally tally =
+      phase(PARSE, () -> parse(getFileScanner()));
+
+    final long subsetPairingsCount = phase(PART_ONE, () -> partOne(tally));
+    final long overlapPairingsCount = phase(PART_TWO, () -> partTwo(tally));
 
-    return overlapExists;
+    return new TaskResult(
+      Answer.of("Number of pairings with subset", subsetPairingsCount),
+      Answer.of("Number of pairings with overlap", overlapPairingsCount));
   }
 
-  @Override
-  public void doTask(final PrintStream output, final boolean debug)
+  /**
+   * Running counts of the pairings with a subset, and with any overlap.
+   */
+  static class PairingTally
   {
-    final List<String> inputLines = getFileLines();
-    final long subsetPairingsCount = inputLines.stream()
-      .map(Day4::getPairing)
-      .filter(Day4::checkForSubset)
-      .count();
+    private long subsetPairingsCount = 0;
+    private long overlapPairingsCount = 0;
+
+    /**
+     * Count a pairing of two inclusive ranges, if either range contains the
+     * other, and if they overlap at all.
+     */
+    public void addPairing(
+        final int firstStart,
+        final int firstEnd,
+        final int secondStart,
+        final int secondEnd)
+    {
+      final boolean subsetExists =
+        IntervalSet.encloses(firstStart, firstEnd, secondStart, secondEnd) ||
+        IntervalSet.encloses(secondStart, secondEnd, firstStart, firstEnd);
 
-    output.println("Number of pairings with subset: " + subsetPairingsCount);
+      if (subsetExists)
+      {
+        this.subsetPairingsCount++;
+      }
 
-    final long overlapPairingsCount = inputLines.stream()
-      .map(Day4::getPairing)
-      .filter(Day4::checkForOverlap)
-      .count();
+      if (IntervalSet.overlaps(firstStart, firstEnd, secondStart, secondEnd))
+      {
+        this.overlapPairingsCount++;
+      }
+    }
 
-    output.println("Number of pairings with overlap: " + overlapPairingsCount);
+    public long subsetPairingsCount() { return this.subsetPairingsCount; }
+    public long overlapPairingsCount() { return this.overlapPairingsCount; }
   }
 }
@@ -1,19 +1,21 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
 import gab.aoc.util.InputFileException;
 
 public class Day5 extends DayTask
 {
-  @Override
-  public void doTask(final PrintStream output, final boolean debug)
+  /**
+   * Split the input into the starting stack layout and the list of
+   * instructions that follow it.
+   */
+  Procedure parse(final List<String> inputLines)
   {
-    final List<String> inputLines = getFileLines();
     final int breakIndex = inputLines.indexOf("");
 
     if (breakIndex == -1)
@@ -28,21 +30,63 @@ public class Day5 extends DayTask
       .map(Instruction::new)
       .collect(Collectors.toList());
 
-    //-------------------------------------------------------------------------
-    // Part 1: moving crates one at a time.
-    //-------------------------------------------------------------------------
-    final CargoLayout partOneCargo = CargoLayout.withSingleCrane(stackLines);
-    instructions.stream().forEach(partOneCargo::applyInstruction);
-    final String partOneAnswer = partOneCargo.getTopOfEachStack();
-    output.println("Part 1: " + partOneAnswer);
-
-    //-------------------------------------------------------------------------
-    // Part 2: moving multiple crates at once.
-    //-------------------------------------------------------------------------
-    final CargoLayout partTwoCargo = CargoLayout.withMultiCrane(stackLines);
-    instructions.stream().forEach(partTwoCargo::applyInstruction);
-    final String partTwoAnswer = partTwoCargo.getTopOfEachStack();
-    output.println("Part 2: " + partTwoAnswer);
+    return new Procedure(stackLines, instructions);
+  }
+
+  /**
+   * Part 1: moving crates one at a time.
+   */
+  String partOne(final Procedure procedure)
+  {
+    final CargoLayout partOneCargo =
+      CargoLayout.withSingleCrane(procedure.stackLines());
+    procedure.instructions().stream().forEach(partOneCargo::applyInstruction);
+    return partOneCargo.getTopOfEachStack();
+  }
+
+  /**
+   * Part 2: moving multiple crates at once.
+   */
+  String partTwo(final Procedure procedure)
+  {
+    final CargoLayout partTwoCargo =
+      CargoLayout.withMultiCrane(procedure.stackLines());
+    procedure.instructions().stream().forEach(partTwoCargo::applyInstruction);
+    return partTwoCargo.getTopOfEachStack();
+  }
+
+  @Override
+  public TaskResult solve()
+  {
+    final List<String> inputLines = phase(READ, this::getFileLines);
+    final Procedure procedure = phase(PARSE, () -> parse(inputLines));
+
+    final String partOneAnswer = phase(PART_ONE, () -> partOne(procedure));
+    final String partTwoAnswer = phase(PART_TWO, () -> partTwo(procedure));
+
+    return new TaskResult(
+      Answer.of("Part 1", partOneAnswer),
+      Answer.of("Part 2", partTwoAnswer));
+  }
+
+  /**
+   * The parsed input: the lines describing the starting stacks, and the
+   * instructions to apply to them.
+   */
+  static class Procedure
+  {
+    private final List<String> stackLines;
+    private final List<Instruction> instructions;
+
+    public Procedure(
+        final List<String> stackLines, final List<Instruction> instructions)
+    {
+      this.stackLines = stackLines;
+      this.instructions = instructions;
+    }
+
+    public List<String> stackLines() { return this.stackLines; }
+    public List<Instruction> instructions() { return this.instructions; }
   }
 
   /**
@@ -175,7 +219,7 @@ public class Day5 extends DayTask
   /**
    * Helper class for parsing instruction lines.
    */
-  private static class Instruction
+  static class Instruction
   {
     private final int numberToMove;
     private final int fromStack;
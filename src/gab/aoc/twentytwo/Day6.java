@@ -1,11 +1,11 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
 import gab.aoc.util.InputFileException;
 import gab.aoc.util.TaskException;
 
@@ -44,16 +44,35 @@ public class Day6 extends DayTask
     return !anyDuplicates;
   }
 
+  /**
+   * The datastream buffer is the first (and only) line of the input.
+   */
+  String parse(final List<String> inputLines)
+  {
+    return inputLines.get(0);
+  }
+
+  int partOne(final String input)
+  {
+    return detectFirstUniqueSubstring(input, 4);
+  }
+
+  int partTwo(final String input)
+  {
+    return detectFirstUniqueSubstring(input, 14);
+  }
+
   @Override
-  public void doTask(PrintStream output, boolean debug) throws TaskException
+  public TaskResult solve() throws TaskException
   {
-    final List<String> inputLines = getFileLines();
-    final String input = inputLines.get(0);
+    final List<String> inputLines = phase(READ, this::getFileLines);
+    final String input = phase(PARSE, () -> parse(inputLines));
 
-    final int markerLocation = detectFirstUniqueSubstring(input, 4);
-    output.println("Part 1: " + markerLocation);
+    final int markerLocation = phase(PART_ONE, () -> partOne(input));
+    final int messageLocation = phase(PART_TWO, () -> partTwo(input));
 
-    final int messageLocation = detectFirstUniqueSubstring(input, 14);
-    output.println("Part 2: " + messageLocation);
+    return new TaskResult(
+      Answer.of("Part 1", markerLocation),
+      Answer.of("Part 2", messageLocation));
   }
 }
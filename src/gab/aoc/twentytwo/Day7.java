@@ -1,49 +1,50 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
 import gab.aoc.util.LogicException;
 
 public class Day7 extends DayTask
 {
-  @Override
-  public void doTask(final PrintStream output, final boolean debug)
+  /**
+   * Build the directory tree from the terminal output. Where each line
+   * leaves us in the tree depends on every line before it, so the tree is
+   * built in one pass, in order.
+   */
+  RootDirectory parse(final List<String> inputLines)
   {
-    final List<String> inputLines = getFileLines();
+    final RootDirectory tree = RootDirectory.newRoot();
 
-    final Collector<String, RootDirectory, RootDirectory> treeCollector =
-      Collector.of(
-        RootDirectory::newRoot,
-        RootDirectory::processOutputLine,
-        RootDirectory::combine,
-        Collector.Characteristics.IDENTITY_FINISH
-    );
+    inputLines.subList(1, inputLines.size()).stream()
+      .map( line -> line.split(" ") )
+      .forEachOrdered(tree::processOutputLine);
 
-    final RootDirectory tree = inputLines.subList(1, inputLines.size())
-      .stream()
-      .collect(treeCollector);
-
-    final List<TreeItem> allItems = tree.flatten();
+    return tree;
+  }
 
-    final long sumOfAllDirectoriesUnder100k = allItems.stream()
+  long partOne(final RootDirectory tree)
+  {
+    final long sumOfAllDirectoriesUnder100k = tree.flatten().stream()
       .filter(TreeItem::isDirectory)
       .mapToLong(TreeItem::getSize)
       .filter( size -> size < 100000L )
       .sum();
 
-    output.println("Part 1: " + sumOfAllDirectoriesUnder100k);
+    return sumOfAllDirectoriesUnder100k;
+  }
 
+  long partTwo(final RootDirectory tree)
+  {
     final long freeSpace = 70000000L - tree.getSize();
     final long spaceToFree = 30000000L - freeSpace;
 
-    final long sizeOfItemToDelete = allItems.stream()
+    final long sizeOfItemToDelete = tree.flatten().stream()
       .filter(TreeItem::isDirectory)
       .mapToLong(TreeItem::getSize)
       .sorted() // lowest to highest
@@ -51,7 +52,21 @@ public class Day7 extends DayTask
       .findFirst()
       .orElseThrow( () -> new LogicException("Failed to find for delete") );
 
-    output.println("Part 2: " + sizeOfItemToDelete);
+    return sizeOfItemToDelete;
+  }
+
+  @Override
+  public TaskResult solve()
+  {
+    final List<String> inputLines = phase(READ, this::getFileLines);
+    final RootDirectory tree = phase(PARSE, () -> parse(inputLines));
+
+    final long partOneAnswer = phase(PART_ONE, () -> partOne(tree));
+    final long partTwoAnswer = phase(PART_TWO, () -> partTwo(tree));
+
+    return new TaskResult(
+      Answer.of("Part 1", partOneAnswer),
+      Answer.of("Part 2", partTwoAnswer));
   }
 
   /**
@@ -233,9 +248,8 @@ public class Day7 extends DayTask
   }
 
   /*
-   * A root directory, with no parent. Includes logic required to be the
-   * working object in the input collector, to build the file tree from the
-   * task input.
+   * A root directory, with no parent. Includes the logic to build the file
+   * tree from the task input, one line at a time.
    */
   public static class RootDirectory extends Directory
   {
@@ -245,7 +259,7 @@ public class Day7 extends DayTask
     public static RootDirectory newRoot() { return new RootDirectory(); }
 
     /**
-     * The directory on which our collector is currently acting.
+     * The directory that the lines processed so far have left us in.
      */
     private Directory currentAccumulatorDir = this;
 
@@ -286,14 +300,12 @@ public class Day7 extends DayTask
     }
 
     /**
-     * Collector helper function. Process a line from the task input. This
+     * Process a line from the task input, already split into words. This
      * will either be a command prompt (which will inform where we are in the
      * directory tree), or a file or directory to add to the tree.
      */
-    public void processOutputLine(final String line)
+    public void processOutputLine(final String[] tokens)
     {
-      final String[] tokens = line.split(" ");
-
       if (tokens[0].equals("$"))
       {
         processCommand(tokens);
@@ -352,21 +364,5 @@ public class Day7 extends DayTask
 
       currentAccumulatorDir.addItemToContents(newItem);
     }
-
-    /**
-     * Combiner for the collector. In theory, combines two RootDirectories.
-     * In practice, should never be called as we don't run the stream in
-     * parallel.
-     */
-    public RootDirectory combine(final RootDirectory dir)
-    {
-      dir.getAsDirectory()
-        .orElseThrow( () -> new LogicException("Not a directory") )
-        .listContents()
-        .stream()
-        .forEach(this::addItemToContents);
-
-      return this;
-    }
   }
 }
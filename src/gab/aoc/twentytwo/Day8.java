@@ -1,149 +1,222 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.ByteCells;
+import gab.aoc.util.ByteGrid;
+import gab.aoc.util.InputFileException;
+import gab.aoc.util.InputWindows;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.OffHeapByteGrid;
 
 public class Day8 extends DayTask
 {
-  @Override
-  public void doTask(final PrintStream output, final boolean debug)
+  /**
+   * Forests read from inputs bigger than this are held off the heap, in a
+   * scratch file in the temporary directory. They can be bigger than any
+   * array (or the 2GB that can be mapped in one go), so they're read from
+   * the input in windows.
+   */
+  private static final int OFF_HEAP_INPUT_SIZE = 1 << 28;
+
+  /**
+   * Heights only need the low four bits of each cell, so part 1 borrows
+   * this one to mark visible trees.
+   */
+  private static final int VISIBLE = 0x10;
+  private static final int HEIGHT_MASK = 0x0f;
+
+  /**
+   * Build the grid of tree heights, one digit per tree.
+   */
+  ByteCells parse(final InputWindows input)
   {
-    final List<String> inputLines = getFileLines();
-
-    final Collector<String, TreeCollector, List<Tree>> treeCollector =
-      Collector.of(
-        TreeCollector::new,
-        TreeCollector::addNewRow,
-        TreeCollector::combine,
-        TreeCollector::getTrees
-    );
+    final ByteCells heights = (input.size() > OFF_HEAP_INPUT_SIZE) ?
+      parseOffHeap(input) : ByteGrid.fromInput(input);
 
-    final List<Tree> trees = inputLines.stream().collect(treeCollector);
-    trees.stream().forEach( tree -> tree.updateTreeVisibilityAndScore(trees) );
-
-    final long numberOfVisibleTrees = trees.stream()
-      .filter(Tree::isVisible)
-      .count();
+    for (int y = heights.minY(); y <= heights.maxY(); y++)
+    {
+      for (int x = heights.minX(); x <= heights.maxX(); x++)
+      {
+        final byte digit = heights.get(x, y);
 
-    output.println("Number of visible trees: " + numberOfVisibleTrees);
+        if (digit < '0' || digit > '9')
+        {
+          throw new InputFileException(
+            "Bad tree height at " + x + "," + y + ": " + (char)digit);
+        }
 
-    final int highestScore = trees.stream()
-      .mapToInt(Tree::score)
-      .max()
-      .orElseThrow( () -> new LogicException("Failed to get highest score"));
+        heights.set(x, y, (byte)(digit - '0'));
+      }
+    }
 
-    output.println("Highest score: " + highestScore);
+    return heights;
   }
 
-  private static class Tree
+  private static ByteCells parseOffHeap(final InputWindows input)
   {
-    private final int row;
-    private final int column;
-    private final int height;
-    private final String stringDescription;
-    private boolean visible = false;
-    private int score = 1;
-
-    private static List<Tree> filterList(
-        final List<Tree> list, final Predicate<Tree> filter)
+    try
     {
-      return list.stream().filter(filter).collect(Collectors.toList());
+      return OffHeapByteGrid.fromInput(
+        input, Paths.get(System.getProperty("java.io.tmpdir")));
     }
-
-    public Tree(final int row, final int column, final int height)
+    catch (final IOException e)
     {
-      this.row = row;
-      this.column = column;
-      this.height = height;
-      this.stringDescription = "x:" + row + ",y:" + column + ",h:" + height;
+      throw new UncheckedIOException(e);
     }
+  }
 
-    public int row() { return this.row; }
-    public int column() { return this.column; }
-    public int height() { return this.height; }
-    public int score() { return this.score; }
-    public boolean isVisible() { return this.visible; }
+  /**
+   * Look along one line of trees from the edge, marking each tree that's
+   * taller than every tree before it.
+   */
+  private static void markVisibleFromEdge(
+      final ByteCells heights,
+      final int startX,
+      final int startY,
+      final int xStep,
+      final int yStep)
+  {
+    int tallest = -1;
 
-    public void updateTreeVisibilityAndScore(final List<Tree> allTrees)
+    for (int x = startX, y = startY;
+         heights.contains(x, y) && tallest < 9;
+         x += xStep, y += yStep)
     {
-      final List<Tree> sameColumn = filterList(
-        allTrees, tree -> tree.column() == this.column());
+      final int cell = heights.get(x, y);
+      final int height = cell & HEIGHT_MASK;
 
-      final List<Tree> sameRow = filterList(
-        allTrees, tree -> tree.row() == this.row());
+      if (height > tallest)
+      {
+        heights.set(x, y, (byte)(cell | VISIBLE));
+        tallest = height;
+      }
+    }
+  }
 
-      final List<Tree> above = filterList(
-        sameColumn, tree -> tree.row() < this.row());
+  /**
+   * A tree is visible if it's visible from at least one edge, so rather
+   * than looking outwards from every tree we look inwards from every edge -
+   * four passes over the grid in total. The trees are marked in the grid
+   * itself, so no more memory is needed however big the forest is, and the
+   * marks are cleared again as they're counted.
+   */
+  long partOne(final ByteCells heights)
+  {
+    final int lastX = heights.maxX();
+    final int lastY = heights.maxY();
 
-      final List<Tree> below = filterList(
-        sameColumn, tree -> tree.row() > this.row());
+    for (int y = heights.minY(); y <= lastY; y++)
+    {
+      checkCancelled();
+      markVisibleFromEdge(heights, heights.minX(), y, 1, 0);
+      markVisibleFromEdge(heights, lastX, y, -1, 0);
+    }
 
-      final List<Tree> left = filterList(
-        sameRow, tree -> tree.column() < this.column());
+    for (int x = heights.minX(); x <= lastX; x++)
+    {
+      checkCancelled();
+      markVisibleFromEdge(heights, x, heights.minY(), 0, 1);
+      markVisibleFromEdge(heights, x, lastY, 0, -1);
+    }
 
-      final List<Tree> right = filterList(
-        sameRow, tree -> tree.column() > this.column());
+    long numberOfVisibleTrees = 0;
 
-      for (final List<Tree> list : Arrays.asList(above, below, left, right))
+    for (int y = heights.minY(); y <= lastY; y++)
+    {
+      for (int x = heights.minX(); x <= lastX; x++)
       {
-        final List<Tree> equalOrTaller = list.stream()
-          .filter( tree -> tree.height() >= this.height() )
-          .collect(Collectors.toList());
+        final int cell = heights.get(x, y);
 
-        this.visible = this.visible || equalOrTaller.isEmpty();
-
-        score *= equalOrTaller.stream()
-          .mapToInt(this::getPositionDifference)
-          .sorted()
-          .findFirst()
-          .orElse(list.size());
+        if ((cell & VISIBLE) != 0)
+        {
+          numberOfVisibleTrees++;
+          heights.set(x, y, (byte)(cell & HEIGHT_MASK));
+        }
       }
     }
 
-    @Override
-    public final String toString() { return this.stringDescription; }
+    return numberOfVisibleTrees;
+  }
+
+  /**
+   * @return the number of trees that can be seen from the given tree in
+   *   one direction, i.e. up to and including the first tree at least as
+   *   tall, or up to the edge
+   */
+  private static int viewingDistance(
+      final ByteCells heights,
+      final int fromX,
+      final int fromY,
+      final int xStep,
+      final int yStep)
+  {
+    final int height = heights.get(fromX, fromY);
+    int distance = 0;
 
-    private int getPositionDifference(final Tree tree)
+    for (int x = fromX + xStep, y = fromY + yStep;
+         heights.contains(x, y);
+         x += xStep, y += yStep)
     {
-      return Math.abs(
-        (tree.row() + tree.column()) - (this.row() + this.column()) );
+      distance++;
+
+      if (heights.get(x, y) >= height)
+      {
+        break;
+      }
     }
+
+    return distance;
   }
 
-  private static class TreeCollector
+  /**
+   * @return the product of the viewing distances in each direction
+   */
+  private static int scenicScore(
+      final ByteCells heights, final int x, final int y)
   {
-    private final List<Tree> trees = new ArrayList<>();
-    private int row = 0;
+    return viewingDistance(heights, x, y, 0, -1) *
+      viewingDistance(heights, x, y, 0, 1) *
+      viewingDistance(heights, x, y, -1, 0) *
+      viewingDistance(heights, x, y, 1, 0);
+  }
 
-    public void addNewRow(final String line)
+  int partTwo(final ByteCells heights)
+  {
+    if (heights.width() == 0 || heights.height() == 0)
     {
-      final String[] heightStrings = line.split("");
+      throw new LogicException("Failed to get highest score");
+    }
 
-      final int[] heights = Stream.of(heightStrings)
-        .mapToInt(Integer::parseInt)
-        .toArray();
+    int highestScore = 0;
 
-      IntStream.range(0, heights.length)
-        .forEach( col -> trees.add(new Tree(this.row, col, heights[col])) );
+    for (int y = heights.minY(); y <= heights.maxY(); y++)
+    {
+      checkCancelled();
 
-      row++;
+      for (int x = heights.minX(); x <= heights.maxX(); x++)
+      {
+        highestScore = Math.max(highestScore, scenicScore(heights, x, y));
+      }
     }
 
-    public TreeCollector combine(final TreeCollector secondCollector)
-    {
-      trees.addAll(secondCollector.getTrees());
-      return this;
-    }
+    return highestScore;
+  }
+
+  @Override
+  public TaskResult solve()
+  {
+    final InputWindows input = phase(READ, this::getFileWindows);
+    final ByteCells heights = phase(PARSE, () -> parse(input));
+
+    final long numberOfVisibleTrees = phase(PART_ONE, () -> partOne(heights));
+    final int highestScore = phase(PART_TWO, () -> partTwo(heights));
 
-    public List<Tree> getTrees() { return trees; }
+    return new TaskResult(
+      Answer.of("Number of visible trees", numberOfVisibleTrees),
+      Answer.of("Highest score", highestScore));
   }
 }
@@ -1,94 +1,106 @@
 package gab.aoc.twentytwo;
 
-import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
+import gab.aoc.twentytwo.TaskResult.Answer;
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.Coordinate;
 import gab.aoc.util.InputFileException;
 import gab.aoc.util.LogicException;
+import gab.aoc.util.LongHashSet;
 
 public class Day9 extends DayTask
 {
   /**
-   * Translate a line of input (e.g. "U 5") into a sequence of directions
-   * (in this example, a list with 5 entries of Direction.UP).
+   * Move a rope of length 2 and a rope of length 10 through the motions in
+   * the input (e.g. "U 5" for 5 steps up), one step at a time, as we scan
+   * it. Only the ropes' current positions and the distinct positions
+   * visited by their tails are kept.
    */
-  private static List<Direction> getDirectionsFromLine(final String line)
+  List<Rope> parse(final AsciiScanner scanner)
   {
-    final String[] tokens = line.split(" ");
+    final List<Rope> ropes = Arrays.asList(new Rope(2), new Rope(10));
 
-    if (tokens.length != 2)
+    while (scanner.hasRemaining())
     {
-      throw new InputFileException("Bad line: " + line);
-    }
+      if (!scanner.atEol())
+      {
+        final Direction dir = Direction.map(scanner.nextByte());
+        scanner.expect((byte)' ');
+        final int count = scanner.nextInt();
+
+        for (int i = 0; i < count; i++)
+        {
+          ropes.forEach( rope -> rope.moveHead(dir) );
+        }
+      }
 
-    final Direction dir = Direction.map(tokens[0]);
-    final int count = Integer.parseInt(tokens[1]);
-    final List<Direction> output = new ArrayList<>();
+      scanner.nextLine();
+    }
 
-    IntStream.range(0, count).forEach( i -> output.add(dir) );
-    return output;
+    return ropes;
   }
 
-  @Override
-  public void doTask(PrintStream output, boolean debug)
+  long partOne(final List<Rope> ropes)
   {
-    final List<String> inputLines = getFileLines();
-
-    final List<Direction> flattenedDirectionList = inputLines.stream()
-      .map(Day9::getDirectionsFromLine)
-      .collect(ArrayList::new, ArrayList::addAll, ArrayList::addAll);
-
-    final Rope rope = new Rope(2);
-    flattenedDirectionList.stream().forEach(rope::moveHead);
-
-    final long uniqueTailPositions = rope.getTailHistory().stream()
-      .distinct()
-      .count();
+    return ropes.get(0).countUniqueTailPositions();
+  }
 
-    output.println("Length 2 rope, unique tail pos: " + uniqueTailPositions);
+  long partTwo(final List<Rope> ropes)
+  {
+    return ropes.get(1).countUniqueTailPositions();
+  }
 
-    final Rope longRope = new Rope(10);
-    flattenedDirectionList.stream().forEach(longRope::moveHead);
+  @Override
+  public TaskResult solve()
+  {
+    final List<Rope> ropes = phase(PARSE, () -> parse(getFileScanner()));
 
-    final long uniqueLongTailPos = longRope.getTailHistory().stream()
-      .distinct()
-      .count();
+    final long uniqueTailPositions = phase(PART_ONE, () -> partOne(ropes));
+    final long uniqueLongTailPos = phase(PART_TWO, () -> partTwo(ropes));
 
-    output.println("Length 10 rope, unique tail pos: " + uniqueLongTailPos);
+    return new TaskResult(
+      Answer.of("Length 2 rope, unique tail pos", uniqueTailPositions),
+      Answer.of("Length 10 rope, unique tail pos", uniqueLongTailPos));
   }
 
   /**
    * Enum representation of the 4 movement inputs.
    */
-  private enum Direction
+  enum Direction
   {
-    UP("U"),
-    DOWN("D"),
-    LEFT("L"),
-    RIGHT("R"),
+    UP('U'),
+    DOWN('D'),
+    LEFT('L'),
+    RIGHT('R'),
     ;
 
-    public static Direction map(final String token)
+    private static final Direction[] DIRECTIONS = values();
+
+    public static Direction map(final byte token)
     {
-      return Stream.of(Direction.values())
-        .filter( dir -> dir.token().equals(token) )
-        .findFirst()
-        .orElseThrow( () -> new InputFileException("Bad token: " + token) );
+      for (final Direction dir : DIRECTIONS)
+      {
+        if (dir.token() == token)
+        {
+          return dir;
+        }
+      }
+
+      throw new InputFileException("Bad token: " + (char)token);
     }
 
-    private final String token;
+    private final char token;
 
-    private Direction(final String token)
+    private Direction(final char token)
     {
       this.token = token;
     }
 
-    public String token() { return this.token; }
+    public char token() { return this.token; }
   }
 
   /**
@@ -128,26 +140,19 @@ public class Day9 extends DayTask
     @Override
     public int hashCode()
     {
-      return Arrays.hashCode(new int[] { this.x, this.y });
+      return 31 * (31 + this.x) + this.y;
     }
   }
 
   /**
-   * Class representing one of the rope segments. Encapsulates its position,
-   * the segment that it follows (unless it's the head), and its position
-   * history.
+   * Class representing one of the rope segments. Encapsulates its position
+   * and the segment that it follows (unless it's the head).
    */
   private static class RopeSegment
   {
     private Position position = new Position(0, 0);
-    private List<Position> history = new ArrayList<>();
     private RopeSegment following = null;
 
-    public RopeSegment()
-    {
-      this.history.add(this.position);
-    }
-
     /**
      * Set the segment that this segment follows. Not applicable for the
      * head.
@@ -168,7 +173,6 @@ public class Day9 extends DayTask
     public void update(final Position newPosition)
     {
       this.position = newPosition;
-      this.history.add(newPosition);
     }
 
     /**
@@ -205,22 +209,16 @@ public class Day9 extends DayTask
         this.update(new Position(xNew, yNew));
       }
     }
-
-    /**
-     * @return this segment's movement history, as an unmodifiable list
-     */
-    public List<Position> getHistory()
-    {
-      return Collections.unmodifiableList(this.history);
-    }
   }
 
   /**
-   * Class representing a rope with multiple segments.
+   * Class representing a rope with multiple segments. Keeps track of the
+   * distinct positions that its tail has visited.
    */
-  private static class Rope
+  static class Rope
   {
     private final List<RopeSegment> segments = new ArrayList<>();
+    private final LongHashSet tailPositions = new LongHashSet();
 
     /**
      * New rope containing a given number of segments (must be at least 2).
@@ -233,6 +231,7 @@ public class Day9 extends DayTask
       }
 
       IntStream.range(0, length).forEach(this::addSegment);
+      this.recordTailPosition();
     }
 
     /**
@@ -255,6 +254,14 @@ public class Day9 extends DayTask
      */
     private RopeSegment head() { return this.segments.get(0); }
 
+    /**
+     * @return this rope's tail segment
+     */
+    private RopeSegment tail()
+    {
+      return this.segments.get(this.segments.size() - 1);
+    }
+
     /**
      * Move this rope's head in the given direction. The other segments will
      * be automatically updated as appropriate.
@@ -277,14 +284,26 @@ public class Day9 extends DayTask
 
       this.segments.subList(1, this.segments.size()).stream()
         .forEach(RopeSegment::updateFromFollowing);
+
+      this.recordTailPosition();
+    }
+
+    /**
+     * Add the tail's current position, packed into a long, to the positions
+     * that it has visited.
+     */
+    private void recordTailPosition()
+    {
+      final Position position = this.tail().position();
+      this.tailPositions.add(Coordinate.pack(position.x(), position.y()));
     }
 
     /**
-     * @return the position history of this rope's tail segment
+     * @return the number of distinct positions visited by this rope's tail
      */
-    public List<Position> getTailHistory()
+    public long countUniqueTailPositions()
     {
-      return this.segments.get(this.segments.size() - 1).getHistory();
+      return this.tailPositions.size();
     }
   }
 }
@@ -0,0 +1,58 @@
+package gab.aoc.twentytwo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A Flight Recorder recording around one day's task, using the JDK's
+ * "profile" settings plus the per-phase events (where the JVM has the
+ * jdk.jfr API), written to "dayN.jfr" in the given directory when closed.
+ * Close it in a finally block after the task, so that the file is written
+ * even if the task fails or times out.
+ *
+ * Recordings cover the whole JVM, so when days run concurrently each file
+ * also has the other days' samples in it - but the phase events are tagged
+ * with their day.
+ */
+final class DayRecording implements AutoCloseable
+{
+  private final Optional<Closeable> recording;
+
+  private DayRecording(final Optional<Closeable> recording)
+  {
+    this.recording = recording;
+  }
+
+  /**
+   * Start recording the given day, if a directory has been given for the
+   * recordings - otherwise this does nothing.
+   */
+  public static DayRecording start(
+      final int day, final Optional<Path> directory) throws IOException
+  {
+    if (!directory.isPresent())
+    {
+      return new DayRecording(Optional.empty());
+    }
+
+    Files.createDirectories(directory.get());
+
+    return new DayRecording(Optional.of(FlightRecorder.get().start(
+      "day" + day, directory.get().resolve("day" + day + ".jfr"))));
+  }
+
+  /**
+   * Stop recording, and write the file.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if (this.recording.isPresent())
+    {
+      this.recording.get().close();
+    }
+  }
+}
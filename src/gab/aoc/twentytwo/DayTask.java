@@ -1,33 +1,244 @@
 package gab.aoc.twentytwo;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.ByteLines;
+import gab.aoc.util.CancellationToken;
+import gab.aoc.util.GcUsage;
 import gab.aoc.util.InputFileException;
+import gab.aoc.util.InputWindows;
+import gab.aoc.util.ModelCache;
+import gab.aoc.util.ModelCodec;
+import gab.aoc.util.RecordSpliterator;
+import gab.aoc.util.ThreadUsage;
 import gab.aoc.util.TaskException;
 
 /**
  * Superclass for each day's task, with getters for the input file. Each
- * day needs to derive this class and implement 'doTask'.
+ * day needs to derive this class and implement 'solve'.
  */
 public abstract class DayTask
 {
-  private static final String INPUTS_DIR = "inputs";
+  static final String INPUTS_DIR = "inputs";
+
+  /**
+   * Names for the standard phases of a task. Days can use other names for
+   * work that doesn't fit these.
+   */
+  protected static final String READ = "read";
+  protected static final String PARSE = "parse";
+  protected static final String PART_ONE = "part1";
+  protected static final String PART_TWO = "part2";
+
+  /**
+   * Size, in chars, of the buffer used when streaming the input file. This
+   * is all that's held in memory at once, however large the file is.
+   */
+  private static final int LINE_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Size of the windows that files too big to map in one go are split into
+   * for parallelFileRecords. Each thread reads a window at a time, so these
+   * are smaller than usual, to give every thread something to do.
+   */
+  private static final int PARALLEL_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final List<PhaseMetrics> phaseMetrics = new ArrayList<>();
+  private Optional<ModelCache> modelCache = Optional.empty();
+  private Optional<ParseCheckpoints> parseCheckpoints = Optional.empty();
+  private Optional<Path> inputFile = Optional.empty();
+  private Optional<byte[]> inputBytes = Optional.empty();
+  private Optional<String> inputHash = Optional.empty();
+  private boolean visualise = false;
+  private Optional<PhaseListener> phaseListener = Optional.empty();
+  private CancellationToken cancellation = new CancellationToken();
+
+  /**
+   * Use the given cache for parsed models, for days that support it.
+   */
+  final void setModelCache(final ModelCache cache)
+  {
+    this.modelCache = Optional.of(cache);
+  }
+
+  /**
+   * Use the given checkpoints to parse only what's been appended to the
+   * input since the last run, for days that support it.
+   */
+  final void setParseCheckpoints(final ParseCheckpoints checkpoints)
+  {
+    this.parseCheckpoints = Optional.of(checkpoints);
+  }
+
+  /**
+   * Read the input from the given file, rather than from this day's usual
+   * file in the inputs directory.
+   */
+  final void setInputFile(final Path file)
+  {
+    this.inputFile = Optional.of(file);
+  }
+
+  /**
+   * Read the input from the given bytes, already loaded into memory, rather
+   * than from the file - e.g. to solve the same input many times over
+   * without measuring the disk each time. The bytes mustn't be modified.
+   *
+   * @param hash the bytes' hash, from ModelCache.hashBytes, so that they
+   *   needn't be hashed again to look up the model cache
+   */
+  final void setInputBytes(final byte[] bytes, final String hash)
+  {
+    this.inputBytes = Optional.of(bytes);
+    this.inputHash = Optional.of(hash);
+  }
+
+  /**
+   * @return the SHA-256 hash of the input, which keys the model cache and
+   *   the answer store
+   */
+  final String getInputHash()
+  {
+    return this.inputHash.orElseGet( () ->
+      ModelCache.hashFile(getFilePath()) );
+  }
+
+  /**
+   * Draw a visualisation of the solution, for days that can.
+   */
+  final void setVisualise(final boolean visualise)
+  {
+    this.visualise = visualise;
+  }
+
+  /**
+   * @return true if a visualisation has been asked for. Drawing can be
+   *   expensive, so days should only do it when this is set.
+   */
+  protected final boolean isVisualise()
+  {
+    return this.visualise;
+  }
+
+  /**
+   * Tell the given listener (e.g. to emit a Flight Recorder event) about
+   * each phase.
+   */
+  final void setPhaseListener(final Optional<PhaseListener> listener)
+  {
+    this.phaseListener = listener;
+  }
+
+  /**
+   * Use the given token to find out whether this task should stop early.
+   */
+  final void setCancellationToken(final CancellationToken token)
+  {
+    this.cancellation = token;
+  }
+
+  /**
+   * @return the token saying whether this task should stop early. Long
+   *   loops should call checkCancelled on it now and then.
+   */
+  protected final CancellationToken cancellation()
+  {
+    return this.cancellation;
+  }
+
+  /**
+   * Stop the task, by throwing TaskCancelledException, if it has been
+   * cancelled (e.g. because it ran out of time).
+   */
+  protected final void checkCancelled()
+  {
+    this.cancellation.checkCancelled();
+  }
+
+  /**
+   * Run one named phase of the task (e.g. "parse"), recording the wall
+   * time, CPU time, bytes allocated and garbage collections. The metrics
+   * are recorded even if the phase fails, and are also passed to the phase
+   * listener, if there is one.
+   */
+  protected final <T> T phase(final String name, final Supplier<T> action)
+  {
+    final Optional<Consumer<PhaseMetrics>> finish =
+      this.phaseListener.map( listener -> listener.begin(getDayName(), name) );
+    final GcUsage startGc = GcUsage.current();
+    final ThreadUsage start = ThreadUsage.current();
+
+    try
+    {
+      return action.get();
+    }
+    finally
+    {
+      final ThreadUsage usage = ThreadUsage.current().since(start);
+      final GcUsage gc = GcUsage.current().since(startGc);
+      final PhaseMetrics metrics = new PhaseMetrics(name, usage, gc);
+      this.phaseMetrics.add(metrics);
+      finish.ifPresent( f -> f.accept(metrics) );
+    }
+  }
+
+  /**
+   * @return the metrics for each phase run so far, in the order they ran
+   */
+  final List<PhaseMetrics> getPhaseMetrics()
+  {
+    return Collections.unmodifiableList(new ArrayList<>(this.phaseMetrics));
+  }
+
+  /**
+   * @return this day's name, e.g. "day1"
+   */
+  final String getDayName()
+  {
+    return this.getClass().getSimpleName().toLowerCase();
+  }
 
   /**
    * Get a Path representing this day's input file, which is expected to have
    * been (manually) saved/downloaded to the inputs directory as e.g.
-   * "day1.txt", "day2.txt" etc.
+   * "day1.txt", "day2.txt" etc. - unless another file has been set with
+   * setInputFile.
    */
   protected final Path getFilePath()
   {
-    final String dayName = this.getClass().getSimpleName().toLowerCase();
-    final String filePathString = INPUTS_DIR + "/" + dayName + ".txt";
+    if (this.inputFile.isPresent())
+    {
+      return this.inputFile.get();
+    }
+
+    final String filePathString = INPUTS_DIR + "/" + getDayName() + ".txt";
     final Path filePath = Paths.get(filePathString);
     return filePath;
   }
@@ -38,6 +249,11 @@ public abstract class DayTask
    */
   protected final List<String> getFileLines()
   {
+    if (this.inputBytes.isPresent())
+    {
+      return parseFileLines( lines -> lines.collect(Collectors.toList()) );
+    }
+
     try
     {
       final Path filePath = getFilePath();
@@ -55,14 +271,286 @@ public abstract class DayTask
   }
 
   /**
-   * Run the day's task, outputting the result to the given PrintStream.
-   * Which will probably always be stdout, but it gives me flexibility to
-   * send it somewhere else in the future.
+   * Parse the input file's lines with the given parser. If a model cache is
+   * in use, the parsed model is stored there using the given codec, and on
+   * later runs over the same input it's loaded from there instead.
+   */
+  protected final <M> M parseCached(
+    final ModelCodec<M> codec, final Function<List<String>, M> parser)
+  {
+    final Supplier<M> parseInput = () -> parser.apply(getFileLines());
+
+    return this.modelCache
+      .map( cache ->
+        cache.getOrParse(getDayName(), getInputHash(), codec, parseInput) )
+      .orElseGet(parseInput);
+  }
+
+  /**
+   * Get a Stream of the lines of the input file, which are read lazily
+   * through a bounded buffer rather than all being held in memory. The
+   * Stream holds the file open, so it must be closed - use it in a
+   * try-with-resources block, or use parseFileLines instead.
    *
-   * In principle, 'debug' should turn on debug logging, but I haven't made
-   * use of that. Any proper debug logging in the future should go to a trace
-   * file, which will require a function signature update.
+   * I/O errors part way through the file are thrown from the Stream as
+   * UncheckedIOException.
+   */
+  protected final Stream<String> streamFileLines()
+  {
+    try
+    {
+      final InputStream input = this.inputBytes.isPresent() ?
+        new ByteArrayInputStream(this.inputBytes.get()) :
+        Files.newInputStream(getFilePath());
+
+      final BufferedReader reader = new BufferedReader(
+        new InputStreamReader(input, StandardCharsets.UTF_8),
+        LINE_BUFFER_SIZE);
+
+      return reader.lines().onClose( () -> closeReader(reader) );
+    }
+    catch (final NoSuchFileException e)
+    {
+      throw new InputFileException("Input file not found", e);
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not read input file", e);
+    }
+  }
+
+  private static void closeReader(final BufferedReader reader)
+  {
+    try
+    {
+      reader.close();
+    }
+    catch (final IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Pass a lazily-read Stream of the input file's lines to the given
+   * parser, and return its result. The file is closed before this returns,
+   * so the parser mustn't hold on to the Stream.
+   */
+  protected final <T> T parseFileLines(
+    final Function<Stream<String>, T> parser)
+  {
+    try (final Stream<String> lines = streamFileLines())
+    {
+      return parser.apply(lines);
+    }
+    catch (final UncheckedIOException e)
+    {
+      throw new InputFileException("Could not read input file", e.getCause());
+    }
+  }
+
+  /**
+   * Get a read-only memory-mapped buffer over the raw bytes of the input
+   * file. Nothing is decoded, so a day can parse the (ASCII) input directly
+   * without ever materialising Strings. The mapping stays valid after this
+   * returns, and is released when the buffer is garbage collected.
+   *
+   * If the input has been loaded with setInputBytes, the buffer is a
+   * read-only view of those bytes instead.
+   *
+   * A buffer can't hold more than 2GB, so bigger files can't be read this
+   * way. Use getFileWindows (or getFileScanner) for those.
+   */
+  protected final ByteBuffer getFileBuffer()
+  {
+    if (this.inputBytes.isPresent())
+    {
+      return ByteBuffer.wrap(this.inputBytes.get()).asReadOnlyBuffer();
+    }
+
+    final Path filePath = getFilePath();
+
+    try (final FileChannel channel =
+           FileChannel.open(filePath, StandardOpenOption.READ))
+    {
+      final long size = channel.size();
+
+      if (size > Integer.MAX_VALUE)
+      {
+        throw new InputFileException(
+          "Input file too large to map: " + size + " bytes");
+      }
+
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    catch (final NoSuchFileException e)
+    {
+      throw new InputFileException("Input file not found", e);
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not map input file", e);
+    }
+  }
+
+  /**
+   * @return true if the input is a file too big to map as a single buffer
+   */
+  private boolean isFileTooLargeToMap()
+  {
+    if (this.inputBytes.isPresent())
+    {
+      return false;
+    }
+
+    try
+    {
+      return Files.size(getFilePath()) > Integer.MAX_VALUE;
+    }
+    catch (final NoSuchFileException e)
+    {
+      throw new InputFileException("Input file not found", e);
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not read input file", e);
+    }
+  }
+
+  /**
+   * Get the input file as a series of read-only buffers, each ending at the
+   * end of a line: just the one from getFileBuffer, if the file fits in it,
+   * or else windows of up to 1GB mapped from the file as they're reached.
+   */
+  protected final InputWindows getFileWindows()
+  {
+    return isFileTooLargeToMap() ?
+      InputWindows.mapFile(getFilePath(), InputWindows.DEFAULT_WINDOW_SIZE) :
+      InputWindows.of(getFileBuffer());
+  }
+
+  /**
+   * Get the lines of the input file as views onto the mapped file buffer.
+   * Each excludes the end-of-line characters, as with getFileLines.
+   */
+  protected final ByteLines getFileRecords()
+  {
+    return new ByteLines(getFileBuffer());
+  }
+
+  /**
+   * Get a parallel Stream of the lines of the mapped input file, as with
+   * getFileRecords. The file is split between threads at the given kind of
+   * boundary, and the lines stay in order, so a collector's combiner must
+   * keep the left-hand result's lines before the right-hand one's.
+   *
+   * Files too big to map in one go are mapped in windows, split at the same
+   * kind of boundary, and it's the windows that are shared between threads.
+   */
+  protected final Stream<ByteBuffer> parallelFileRecords(
+    final RecordSpliterator.Boundary boundary)
+  {
+    if (!isFileTooLargeToMap())
+    {
+      return StreamSupport.stream(
+        new RecordSpliterator(getFileBuffer(), boundary), true);
+    }
+
+    final InputWindows windows =
+      InputWindows.mapFile(getFilePath(), PARALLEL_WINDOW_SIZE, boundary);
+
+    return StreamSupport.stream(windows.spliterator(), true)
+      .flatMap( window -> StreamSupport.stream(
+        new RecordSpliterator(window, boundary), false) );
+  }
+
+  /**
+   * Get a scanner over the mapped input file, for days that parse the bytes
+   * directly rather than line by line. Files of any size can be scanned, as
+   * the scanner reads through getFileWindows.
+   */
+  protected final AsciiScanner getFileScanner()
+  {
+    return new AsciiScanner(getFileWindows().iterator());
+  }
+
+  /**
+   * Parse the input file with the given scanning parser, using the model
+   * cache as for parseCached.
+   */
+  protected final <M> M scanCached(
+    final ModelCodec<M> codec, final Function<AsciiScanner, M> parser)
+  {
+    final Supplier<M> parseInput = () -> parser.apply(getFileScanner());
+
+    return this.modelCache
+      .map( cache ->
+        cache.getOrParse(getDayName(), getInputHash(), codec, parseInput) )
+      .orElseGet(parseInput);
+  }
+
+  /**
+   * Parse the input file by folding its lines, in order, into an
+   * accumulator. If parse checkpoints are in use, and the input has only
+   * had lines appended since the last run, the fold carries on from where
+   * it got to last time rather than starting again. Checkpoints need the
+   * input in a single buffer, so files bigger than 2GB are always parsed
+   * from the start.
+   *
+   * @param empty creates the accumulator for an empty input
+   * @param copy copies an accumulator. The parsed result is a copy of the
+   *   checkpointed one, so the day is free to change it.
+   * @param parseInto parses lines from the scanner into the accumulator
+   */
+  protected final <A> A scanAppendable(
+    final Supplier<A> empty,
+    final UnaryOperator<A> copy,
+    final BiConsumer<AsciiScanner, A> parseInto)
+  {
+    if (this.parseCheckpoints.isPresent() && !isFileTooLargeToMap())
+    {
+      return this.parseCheckpoints.get()
+        .parse(getDayName(), getFileBuffer(), empty, copy, parseInto);
+    }
+
+    final A accumulator = empty.get();
+    parseInto.accept(getFileScanner(), accumulator);
+    return accumulator;
+  }
+
+  /**
+   * @return the number of lines in the input file, for reporting costs per
+   *   line
+   */
+  final long countInputLines()
+  {
+    long lines = 0;
+
+    for (final ByteBuffer window : getFileWindows())
+    {
+      for (final ByteBuffer record : new ByteLines(window))
+      {
+        lines++;
+      }
+    }
+
+    return lines;
+  }
+
+  /**
+   * @return the version of this day's solver. This must be changed whenever
+   *   a change to the day could change its answers, so that answers stored
+   *   by earlier versions are ignored.
+   */
+  protected int solverVersion()
+  {
+    return 1;
+  }
+
+  /**
+   * Run the day's task, and return the answers. Nothing is printed here -
+   * that's up to the caller (normally RunTask.printResult) - so the answers
+   * can be used as values, and timings don't include console output.
    */
-  public abstract void doTask(
-    final PrintStream output, final boolean debug) throws TaskException;
+  public abstract TaskResult solve() throws TaskException;
 }
@@ -0,0 +1,75 @@
+package gab.aoc.twentytwo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Starts Flight Recorder recordings, through whichever interface the JVM
+ * has: the jdk.jfr API (JDK 11 and later, and 8u262 and later), which can
+ * also record an event for each phase, or else the DiagnosticCommand MBean
+ * (the same as jcmd's JFR.start and JFR.stop).
+ *
+ * This code targets Java 8, where jdk.jfr may not exist at all, so nothing
+ * outside ApiFlightRecorder refers to it. That class (and PhaseEvent) is
+ * only built where the API exists, and only loaded when a recording is
+ * asked for.
+ */
+abstract class FlightRecorder
+{
+  private static final String API_RECORDER =
+    "gab.aoc.twentytwo.ApiFlightRecorder";
+
+  /**
+   * The JDK's built-in settings used for every recording.
+   */
+  static final String SETTINGS = "profile";
+
+  /**
+   * Found the first time it's asked for, so a run without --jfr never
+   * looks.
+   */
+  private static class Holder
+  {
+    static final FlightRecorder INSTANCE = find();
+  }
+
+  /**
+   * @return the recorder for this JVM
+   */
+  static FlightRecorder get()
+  {
+    return Holder.INSTANCE;
+  }
+
+  private static FlightRecorder find()
+  {
+    try
+    {
+      Class.forName("jdk.jfr.Recording");
+      return Class.forName(API_RECORDER).asSubclass(FlightRecorder.class)
+        .getDeclaredConstructor().newInstance();
+    }
+    catch (final ReflectiveOperationException | LinkageError e)
+    {
+      return new CommandFlightRecorder();
+    }
+  }
+
+  /**
+   * Start a recording with the given name.
+   *
+   * @return closing it stops the recording and writes it to the given file
+   */
+  abstract Closeable start(String name, Path destination) throws IOException;
+
+  /**
+   * @return a listener that records an event for each phase, if this
+   *   recorder can
+   */
+  Optional<PhaseListener> phaseListener()
+  {
+    return Optional.empty();
+  }
+}
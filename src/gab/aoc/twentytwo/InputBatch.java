@@ -0,0 +1,139 @@
+package gab.aoc.twentytwo;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import gab.aoc.util.TaskException;
+
+/**
+ * Runs one day over every input file in a directory, spread over a
+ * work-stealing pool, and reports one line per file followed by the overall
+ * throughput. This is much cheaper than a JVM launch per input.
+ */
+class InputBatch
+{
+  private final int day;
+  private final RunOptions options;
+
+  public InputBatch(final int day, final RunOptions options)
+  {
+    this.day = day;
+    this.options = options;
+  }
+
+  /**
+   * @return the regular files in the directory, sorted by name
+   */
+  private static List<Path> listInputs(final Path directory)
+    throws TaskException
+  {
+    try (Stream<Path> entries = Files.list(directory))
+    {
+      return entries
+        .filter(Files::isRegularFile)
+        .sorted()
+        .collect(Collectors.toList());
+    }
+    catch (final IOException e)
+    {
+      throw new TaskException("Could not list inputs in " + directory, e);
+    }
+  }
+
+  private static long sizeOf(final Path file)
+  {
+    try
+    {
+      return Files.size(file);
+    }
+    catch (final IOException e)
+    {
+      return 0;
+    }
+  }
+
+  /**
+   * @return the values of the answers in the result, leaving out drawings
+   *   (e.g. Day 10's CRT)
+   */
+  private static List<String> findAnswers(final TaskResult result)
+  {
+    return result.answers().stream()
+      .filter( answer -> !answer.isDrawing() )
+      .map( answer -> String.valueOf(answer.value()) )
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Run the day over every input in the directory, and print the results.
+   *
+   * @return true if every input succeeded
+   */
+  public boolean run(final Path directory, final PrintStream output)
+    throws TaskException
+  {
+    final List<Path> inputs = listInputs(directory);
+    final ForkJoinPool pool = new ForkJoinPool(this.options.parallelism());
+    final List<TaskOutcome> outcomes;
+
+    final long start = System.nanoTime();
+
+    try
+    {
+      final List<ForkJoinTask<TaskOutcome>> submitted = inputs.stream()
+        .map( input -> pool.submit(
+          () -> TaskBatch.runDay(this.day, this.options, Optional.of(input)) ) )
+        .collect(Collectors.toList());
+
+      outcomes = submitted.stream()
+        .map(ForkJoinTask::join)
+        .collect(Collectors.toList());
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+
+    final long elapsedNanos = System.nanoTime() - start;
+    long totalBytes = 0;
+    int failures = 0;
+
+    for (int i = 0; i < inputs.size(); i++)
+    {
+      final Path input = inputs.get(i);
+      final TaskOutcome outcome = outcomes.get(i);
+      totalBytes += sizeOf(input);
+
+      final String result = outcome.succeeded() ?
+        ("OK " + String.join(" ", findAnswers(outcome.result().get()))) :
+        (outcome.status() + " " +
+          TaskBatch.describeFailure(outcome.failure().get()));
+
+      output.println(String.format("%-30s %10.3f ms  %s",
+        input.getFileName(), outcome.elapsedNanos() / 1e6, result));
+
+      failures += outcome.succeeded() ? 0 : 1;
+    }
+
+    final double seconds = elapsedNanos / 1e9;
+
+    output.println(String.format(
+      "%d files (%d failed), %.3f MB in %.3f s: %.1f files/s, %.2f MB/s",
+      inputs.size(),
+      failures,
+      totalBytes / 1e6,
+      seconds,
+      inputs.size() / seconds,
+      totalBytes / 1e6 / seconds));
+
+    return failures == 0;
+  }
+}
@@ -0,0 +1,162 @@
+package gab.aoc.twentytwo;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+
+import gab.aoc.util.ThreadUsage;
+
+/**
+ * Writes the timings and phase metrics for a run as JSON, for feeding into
+ * dashboards. Times are in nanoseconds; CPU time and allocated bytes are -1
+ * where the JVM couldn't measure them. Garbage collections are counted for
+ * the whole JVM.
+ *
+ * The output looks like:
+ * <pre>
+ * {
+ *   "wallNanos": 123,
+ *   "days": [
+ *     {
+ *       "day": 1,
+ *       "status": "OK",
+ *       "wallNanos": 100,
+ *       "phases": [
+ *         { "name": "parse", "wallNanos": 90, "cpuNanos": 80,
+ *           "allocatedBytes": 1024, "gcCount": 0, "gcMillis": 0 }
+ *       ]
+ *     }
+ *   ]
+ * }
+ * </pre>
+ */
+final class MetricsReport
+{
+  private MetricsReport() {}
+
+  /**
+   * @return the given string as a quoted JSON string
+   */
+  private static String quote(final String value)
+  {
+    final StringBuilder quoted = new StringBuilder("\"");
+
+    for (final char c : value.toCharArray())
+    {
+      switch (c)
+      {
+        case '"': quoted.append("\\\""); break;
+        case '\\': quoted.append("\\\\"); break;
+        case '\n': quoted.append("\\n"); break;
+        case '\r': quoted.append("\\r"); break;
+        case '\t': quoted.append("\\t"); break;
+        default:
+          if (c < 0x20)
+          {
+            quoted.append(String.format("\\u%04x", (int)c));
+          }
+          else
+          {
+            quoted.append(c);
+          }
+      }
+    }
+
+    return quoted.append('"').toString();
+  }
+
+  private static void appendPhase(
+      final StringBuilder json, final PhaseMetrics phase)
+  {
+    final ThreadUsage usage = phase.usage();
+    json.append("        { \"name\": ").append(quote(phase.name()));
+    json.append(", \"wallNanos\": ").append(usage.wallNanos());
+    json.append(", \"cpuNanos\": ").append(usage.cpuNanos());
+    json.append(", \"allocatedBytes\": ").append(usage.allocatedBytes());
+    json.append(", \"gcCount\": ").append(phase.gc().collections());
+    json.append(", \"gcMillis\": ").append(phase.gc().collectionMillis());
+    json.append(" }");
+  }
+
+  private static void appendDay(
+      final StringBuilder json, final TaskOutcome outcome)
+  {
+    json.append("    {\n");
+    json.append("      \"day\": ").append(outcome.day()).append(",\n");
+    json.append("      \"status\": ")
+      .append(quote(outcome.status())).append(",\n");
+
+    outcome.failure().ifPresent( e ->
+      json.append("      \"error\": ").append(quote(e.toString()))
+        .append(",\n") );
+
+    json.append("      \"wallNanos\": ").append(outcome.elapsedNanos())
+      .append(",\n");
+    json.append("      \"phases\": [");
+
+    final Iterator<PhaseMetrics> phases = outcome.phases().iterator();
+
+    while (phases.hasNext())
+    {
+      json.append("\n");
+      appendPhase(json, phases.next());
+      json.append(phases.hasNext() ? "," : "\n      ");
+    }
+
+    json.append("]\n");
+    json.append("    }");
+  }
+
+  /**
+   * @return the JSON report for the given outcomes
+   */
+  public static String toJson(
+      final List<TaskOutcome> outcomes, final long totalNanos)
+  {
+    final StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"wallNanos\": ").append(totalNanos).append(",\n");
+    json.append("  \"days\": [\n");
+
+    final Iterator<TaskOutcome> days = outcomes.iterator();
+
+    while (days.hasNext())
+    {
+      appendDay(json, days.next());
+      json.append(days.hasNext() ? ",\n" : "\n");
+    }
+
+    json.append("  ]\n");
+    json.append("}\n");
+    return json.toString();
+  }
+
+  /**
+   * Write the JSON report to the given file, or to the given stream if the
+   * file is "-".
+   */
+  public static void write(
+      final String destination,
+      final PrintStream standardOutput,
+      final List<TaskOutcome> outcomes,
+      final long totalNanos) throws IOException
+  {
+    final String json = toJson(outcomes, totalNanos);
+
+    if ("-".equals(destination))
+    {
+      standardOutput.print(json);
+      standardOutput.flush();
+    }
+    else
+    {
+      final Path file = Paths.get(destination);
+      Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
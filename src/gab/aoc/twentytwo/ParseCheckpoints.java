@@ -0,0 +1,166 @@
+package gab.aoc.twentytwo;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import gab.aoc.util.AsciiScanner;
+import gab.aoc.util.LogicException;
+
+/**
+ * The state of each day's parse as of the last complete line of its input,
+ * kept between runs in the same JVM (i.e. in watch mode). When a day's input
+ * has only had lines added to the end since it was last parsed, parsing
+ * carries on from the saved state, and only the new lines are parsed.
+ *
+ * A checkpoint holds a SHA-256 hash of the input up to the point where it
+ * was taken, so any other edit to the input means parsing it all again.
+ */
+class ParseCheckpoints
+{
+  private static final byte LF = '\n';
+
+  private final Map<String, Checkpoint<?>> checkpoints =
+    new ConcurrentHashMap<>();
+
+  /**
+   * Parse the input by folding its lines into an accumulator, starting
+   * from the named day's checkpoint if the input still begins with what it
+   * covered, and then save a new checkpoint after the last complete line.
+   * Any incomplete last line is parsed too, but isn't saved in the
+   * checkpoint, as later appends may add to it.
+   *
+   * @param copy copies an accumulator, so that the one saved in the
+   *   checkpoint isn't changed by whatever the day goes on to do
+   */
+  public <A> A parse(
+      final String name,
+      final ByteBuffer input,
+      final Supplier<A> empty,
+      final UnaryOperator<A> copy,
+      final BiConsumer<AsciiScanner, A> parseInto)
+  {
+    final int start = input.position();
+    final int end = input.limit();
+    final int boundary = lastLineEnd(input);
+    final MessageDigest digest = newDigest();
+
+    @SuppressWarnings("unchecked")
+    final Checkpoint<A> checkpoint =
+      (Checkpoint<A>)this.checkpoints.get(name);
+    A accumulator = null;
+    int from = start;
+
+    if (checkpoint != null && checkpoint.end <= boundary)
+    {
+      digest.update(slice(input, start, checkpoint.end));
+
+      if (Arrays.equals(copyOf(digest).digest(), checkpoint.digest))
+      {
+        accumulator = copy.apply(checkpoint.state);
+        from = checkpoint.end;
+      }
+      else
+      {
+        digest.reset();
+      }
+    }
+
+    if (accumulator == null)
+    {
+      accumulator = empty.get();
+    }
+
+    parseInto.accept(new AsciiScanner(slice(input, from, boundary)),
+      accumulator);
+    digest.update(slice(input, from, boundary));
+    this.checkpoints.put(name,
+      new Checkpoint<>(boundary, digest.digest(), copy.apply(accumulator)));
+
+    parseInto.accept(new AsciiScanner(slice(input, boundary, end)),
+      accumulator);
+    return accumulator;
+  }
+
+  /**
+   * @return the offset just after the input's last line feed, or the start
+   *   of the input if it has no complete lines
+   */
+  private static int lastLineEnd(final ByteBuffer input)
+  {
+    for (int i = input.limit() - 1; i >= input.position(); i--)
+    {
+      if (input.get(i) == LF)
+      {
+        return i + 1;
+      }
+    }
+
+    return input.position();
+  }
+
+  /**
+   * @return a view of the given range of the input, which leaves the
+   *   input's own position and limit alone
+   */
+  private static ByteBuffer slice(
+      final ByteBuffer input, final int from, final int to)
+  {
+    //-------------------------------------------------------------------------
+    // The casts to Buffer are deliberate, as in ByteLines.
+    //-------------------------------------------------------------------------
+    final ByteBuffer slice = input.duplicate();
+    ((Buffer)slice).limit(to);
+    ((Buffer)slice).position(from);
+    return slice;
+  }
+
+  private static MessageDigest newDigest()
+  {
+    try
+    {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (final NoSuchAlgorithmException e)
+    {
+      throw new LogicException("SHA-256 not available", e);
+    }
+  }
+
+  /**
+   * @return a copy of the digest, so that it can be finished without losing
+   *   what's been hashed so far
+   */
+  private static MessageDigest copyOf(final MessageDigest digest)
+  {
+    try
+    {
+      return (MessageDigest)digest.clone();
+    }
+    catch (final CloneNotSupportedException e)
+    {
+      throw new LogicException("SHA-256 digest can't be copied", e);
+    }
+  }
+
+  private static class Checkpoint<A>
+  {
+    private final int end;
+    private final byte[] digest;
+    private final A state;
+
+    Checkpoint(final int end, final byte[] digest, final A state)
+    {
+      this.end = end;
+      this.digest = digest;
+      this.state = state;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package gab.aoc.twentytwo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one phase of a day's task (e.g. "parse"), so
+ * that a recording can be lined up with the phases in JDK Mission Control.
+ * The event's own duration is the wall-clock time of the phase.
+ */
+@Name("gab.aoc.Phase")
+@Label("Task Phase")
+@Category("Advent of Code")
+@Description("One phase of a day's task")
+@StackTrace(false)
+class PhaseEvent extends Event
+{
+  @Label("Day")
+  String day;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("CPU Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long cpuTime;
+
+  @Label("Allocated")
+  @DataAmount
+  long allocated;
+
+  @Label("GC Count")
+  long gcCount;
+
+  /**
+   * Start timing a phase.
+   */
+  static PhaseEvent begin(final String day, final String phase)
+  {
+    final PhaseEvent event = new PhaseEvent();
+    event.day = day;
+    event.phase = phase;
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Finish the phase and record the event, with the phase's metrics.
+   */
+  void finish(final PhaseMetrics metrics)
+  {
+    this.end();
+
+    if (this.shouldCommit())
+    {
+      this.cpuTime = metrics.usage().cpuNanos();
+      this.allocated = metrics.usage().allocatedBytes();
+      this.gcCount = metrics.gc().collections();
+      this.commit();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package gab.aoc.twentytwo;
+
+import java.util.function.Consumer;
+
+/**
+ * Told when each phase of a day's task starts, e.g. to emit a Flight
+ * Recorder event for it.
+ */
+interface PhaseListener
+{
+  /**
+   * A phase has started.
+   *
+   * @return what to call with the phase's metrics when it finishes
+   */
+  Consumer<PhaseMetrics> begin(String day, String phase);
+}
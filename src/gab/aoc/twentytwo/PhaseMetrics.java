@@ -0,0 +1,26 @@
+package gab.aoc.twentytwo;
+
+import gab.aoc.util.GcUsage;
+import gab.aoc.util.ThreadUsage;
+
+/**
+ * The resources used by one named phase of a day's task, e.g. "parse".
+ */
+class PhaseMetrics
+{
+  private final String name;
+  private final ThreadUsage usage;
+  private final GcUsage gc;
+
+  public PhaseMetrics(
+      final String name, final ThreadUsage usage, final GcUsage gc)
+  {
+    this.name = name;
+    this.usage = usage;
+    this.gc = gc;
+  }
+
+  public String name() { return this.name; }
+  public ThreadUsage usage() { return this.usage; }
+  public GcUsage gc() { return this.gc; }
+}
@@ -0,0 +1,521 @@
+package gab.aoc.twentytwo;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import gab.aoc.util.ModelCache;
+
+/**
+ * The parsed command-line options for RunTask. Throws
+ * IllegalArgumentException for anything that doesn't make sense, which
+ * RunTask reports along with the usage text.
+ */
+class RunOptions
+{
+  private final List<Integer> days = new ArrayList<>();
+  private boolean batch = false;
+  private boolean help = false;
+  private boolean alloc = false;
+  private boolean visualise = false;
+  private boolean serve = false;
+  private boolean watch = false;
+  private int port = TaskServer.DEFAULT_PORT;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private Optional<Path> cacheDirectory = Optional.empty();
+  private Optional<AnswerStore> answerStore = Optional.empty();
+  private final ParseCheckpoints parseCheckpoints = new ParseCheckpoints();
+  private Optional<String> metricsDestination = Optional.empty();
+  private Optional<Integer> generateDay = Optional.empty();
+  private Optional<Path> verifyManifest = Optional.empty();
+  private Optional<Path> inputsDirectory = Optional.empty();
+  private Optional<Path> jfrDirectory = Optional.empty();
+  private Optional<Long> scale = Optional.empty();
+  private Optional<Duration> timeout = Optional.empty();
+  private boolean iterating = false;
+  private int warmupIterations = 0;
+  private int measuredIterations = 1;
+  private long seed = 1;
+  private String outputDestination = "-";
+
+  //---------------------------------------------------------------------------
+  // The options given that name a file or directory (other than standard
+  // output), which requests sent to the server mustn't use.
+  //---------------------------------------------------------------------------
+  private final List<String> fileOptions = new ArrayList<>();
+
+  /**
+   * Parse a day specification such as "1,5-9" into a sorted list of days.
+   */
+  static List<Integer> parseDaySpec(final String spec)
+  {
+    final SortedSet<Integer> days = new TreeSet<>();
+
+    for (final String part : spec.split(","))
+    {
+      final String[] bounds = part.trim().split("-");
+
+      if (bounds.length < 1 || bounds.length > 2 || bounds[0].isEmpty())
+      {
+        throw new IllegalArgumentException("Bad day range: " + part);
+      }
+
+      final int first = parseNumber(bounds[0], "day");
+      final int last =
+        (bounds.length == 2) ? parseNumber(bounds[1], "day") : first;
+
+      if (first < 1 || last < first)
+      {
+        throw new IllegalArgumentException("Bad day range: " + part);
+      }
+
+      for (int day = first; day <= last; day++)
+      {
+        days.add(day);
+      }
+    }
+
+    return new ArrayList<>(days);
+  }
+
+  private static int parseNumber(final String value, final String what)
+  {
+    try
+    {
+      return Integer.parseInt(value.trim());
+    }
+    catch (final NumberFormatException e)
+    {
+      throw new IllegalArgumentException("Bad " + what + ": " + value, e);
+    }
+  }
+
+  private static long parseLongNumber(final String value, final String what)
+  {
+    try
+    {
+      return Long.parseLong(value.trim());
+    }
+    catch (final NumberFormatException e)
+    {
+      throw new IllegalArgumentException("Bad " + what + ": " + value, e);
+    }
+  }
+
+  /**
+   * Parse a time budget such as "30s", "500ms" or "2m". A plain number is
+   * taken as seconds.
+   */
+  private static Duration parseDuration(final String value)
+  {
+    final String trimmed = value.trim();
+    final Duration duration;
+
+    if (trimmed.endsWith("ms"))
+    {
+      duration = Duration.ofMillis(parseLongNumber(
+        trimmed.substring(0, trimmed.length() - 2), "timeout"));
+    }
+    else if (trimmed.endsWith("s"))
+    {
+      duration = Duration.ofSeconds(parseLongNumber(
+        trimmed.substring(0, trimmed.length() - 1), "timeout"));
+    }
+    else if (trimmed.endsWith("m"))
+    {
+      duration = Duration.ofMinutes(parseLongNumber(
+        trimmed.substring(0, trimmed.length() - 1), "timeout"));
+    }
+    else
+    {
+      duration = Duration.ofSeconds(parseLongNumber(trimmed, "timeout"));
+    }
+
+    if (duration.isNegative() || duration.isZero())
+    {
+      throw new IllegalArgumentException("Bad timeout: " + value);
+    }
+
+    return duration;
+  }
+
+  /**
+   * @return the value following the option at the given index
+   */
+  private static String valueFor(final String[] args, final int index)
+  {
+    if (index + 1 >= args.length)
+    {
+      throw new IllegalArgumentException("Missing value for " + args[index]);
+    }
+
+    return args[index + 1];
+  }
+
+  public static RunOptions parse(final String[] args)
+  {
+    if (args == null || args.length < 1)
+    {
+      throw new IllegalArgumentException("No arguments passed");
+    }
+
+    final RunOptions options = new RunOptions();
+
+    for (int i = 0; i < args.length; i++)
+    {
+      final String arg = args[i];
+
+      switch (arg)
+      {
+        case "-h":
+        case "--help":
+          options.help = true;
+          break;
+
+        case "--alloc":
+          options.alloc = true;
+          break;
+
+        case "--visualise":
+          options.visualise = true;
+          break;
+
+        case "--all":
+          options.selectBatch(TaskFinder.findAllDays());
+          break;
+
+        case "--days":
+          options.selectBatch(parseDaySpec(valueFor(args, i++)));
+          break;
+
+        case "-p":
+        case "--parallelism":
+          options.parallelism =
+            parseNumber(valueFor(args, i++), "parallelism");
+          break;
+
+        case "--cache":
+          options.fileOptions.add(arg);
+          options.cacheDirectory = Optional.of(Paths.get(valueFor(args, i++)));
+          break;
+
+        case "--memo":
+          options.fileOptions.add(arg);
+          options.answerStore = Optional.of(
+            new AnswerStore(Paths.get(valueFor(args, i++))));
+          break;
+
+        case "--serve":
+          options.serve = true;
+          break;
+
+        case "--watch":
+          options.watch = true;
+          break;
+
+        case "--port":
+          options.port = parseNumber(valueFor(args, i++), "port");
+          break;
+
+        case "--inputs":
+          options.fileOptions.add(arg);
+          options.inputsDirectory = Optional.of(Paths.get(valueFor(args, i++)));
+          break;
+
+        case "--verify":
+          options.fileOptions.add(arg);
+          options.verifyManifest = Optional.of(Paths.get(valueFor(args, i++)));
+          break;
+
+        case "--generate":
+          options.generateDay =
+            Optional.of(parseNumber(valueFor(args, i++), "day"));
+          break;
+
+        case "--scale":
+          options.scale =
+            Optional.of(parseLongNumber(valueFor(args, i++), "scale"));
+          break;
+
+        case "--seed":
+          options.seed = parseLongNumber(valueFor(args, i++), "seed");
+          break;
+
+        case "--output":
+          options.outputDestination = valueFor(args, i++);
+
+          if (!"-".equals(options.outputDestination))
+          {
+            options.fileOptions.add(arg);
+          }
+          break;
+
+        case "--metrics":
+          options.metricsDestination = Optional.of(valueFor(args, i++));
+
+          if (!"-".equals(options.metricsDestination.get()))
+          {
+            options.fileOptions.add(arg);
+          }
+          break;
+
+        case "--jfr":
+          options.fileOptions.add(arg);
+          options.jfrDirectory = Optional.of(Paths.get(valueFor(args, i++)));
+          break;
+
+        case "--warmup":
+          options.iterating = true;
+          options.warmupIterations =
+            parseNumber(valueFor(args, i++), "warm-up count");
+          break;
+
+        case "--iterations":
+          options.iterating = true;
+          options.measuredIterations =
+            parseNumber(valueFor(args, i++), "iteration count");
+          break;
+
+        case "--timeout":
+          options.timeout = Optional.of(parseDuration(valueFor(args, i++)));
+          break;
+
+        default:
+          if (arg.startsWith("-") || !options.days.isEmpty())
+          {
+            throw new IllegalArgumentException("Unexpected argument: " + arg);
+          }
+
+          options.days.add(parseNumber(arg, "day"));
+          break;
+      }
+    }
+
+    if (options.help)
+    {
+      return options;
+    }
+
+    if (options.watch &&
+        (options.generateDay.isPresent() ||
+         options.verifyManifest.isPresent() ||
+         options.serve))
+    {
+      throw new IllegalArgumentException(
+        "Can't use --watch with --generate, --verify or --serve");
+    }
+
+    if (options.generateDay.isPresent())
+    {
+      if (!options.days.isEmpty() || options.serve)
+      {
+        throw new IllegalArgumentException(
+          "Can't run days or serve with --generate");
+      }
+
+      if (options.scale.isPresent() && options.scale.get() < 1)
+      {
+        throw new IllegalArgumentException("Bad scale: " + options.scale.get());
+      }
+
+      return options;
+    }
+
+    if (options.verifyManifest.isPresent())
+    {
+      if (!options.days.isEmpty() || options.serve)
+      {
+        throw new IllegalArgumentException(
+          "Can't run days or serve with --verify");
+      }
+
+      //-----------------------------------------------------------------------
+      // Stored answers would pass without anything being solved.
+      //-----------------------------------------------------------------------
+      if (options.answerStore.isPresent())
+      {
+        throw new IllegalArgumentException("Can't use --memo with --verify");
+      }
+
+      return options;
+    }
+
+    if (options.serve)
+    {
+      if (!options.days.isEmpty())
+      {
+        throw new IllegalArgumentException("Can't select days with --serve");
+      }
+
+      if (options.port < 0 || options.port > 65535)
+      {
+        throw new IllegalArgumentException("Bad port: " + options.port);
+      }
+
+      return options;
+    }
+
+    if (options.watch)
+    {
+      if (options.inputsDirectory.isPresent() || options.iterating)
+      {
+        throw new IllegalArgumentException(
+          "Can't use --watch with --inputs, --warmup or --iterations");
+      }
+
+      if (options.days.isEmpty())
+      {
+        options.days.addAll(TaskFinder.findAllDays());
+      }
+    }
+
+    if (options.days.isEmpty())
+    {
+      throw new IllegalArgumentException("No days selected");
+    }
+
+    if (options.inputsDirectory.isPresent() && options.batch)
+    {
+      throw new IllegalArgumentException("--inputs needs a single day");
+    }
+
+    if (options.iterating)
+    {
+      if (options.batch || options.inputsDirectory.isPresent())
+      {
+        throw new IllegalArgumentException(
+          "--warmup and --iterations need a single day");
+      }
+
+      if (options.warmupIterations < 0 || options.measuredIterations < 1)
+      {
+        throw new IllegalArgumentException("Bad iteration counts");
+      }
+    }
+
+    if (options.parallelism < 1)
+    {
+      throw new IllegalArgumentException(
+        "Bad parallelism: " + options.parallelism);
+    }
+
+    return options;
+  }
+
+  private RunOptions() {}
+
+  private void selectBatch(final List<Integer> batchDays)
+  {
+    if (!this.days.isEmpty())
+    {
+      throw new IllegalArgumentException("Days selected more than once");
+    }
+
+    this.batch = true;
+    this.days.addAll(batchDays);
+  }
+
+  /**
+   * Use the server's cache and answer store, if it was given them, for a
+   * request sent to it.
+   */
+  void useStoresOf(final RunOptions server)
+  {
+    this.cacheDirectory = server.cacheDirectory;
+    this.answerStore = server.answerStore;
+  }
+
+  public List<Integer> days() { return this.days; }
+  public boolean isBatch() { return this.batch; }
+  public boolean isHelp() { return this.help; }
+  public boolean isAlloc() { return this.alloc; }
+  public boolean isVisualise() { return this.visualise; }
+  public boolean isServe() { return this.serve; }
+
+  /**
+   * @return true if the days should be run again whenever their input files
+   *   change
+   */
+  public boolean isWatch() { return this.watch; }
+
+  public int port() { return this.port; }
+
+  /**
+   * @return the options given that name a file or directory to read or
+   *   write, e.g. "--memo"
+   */
+  public List<String> fileOptions() { return this.fileOptions; }
+
+  public Optional<Integer> generateDay() { return this.generateDay; }
+  public Optional<Path> verifyManifest() { return this.verifyManifest; }
+  public Optional<Path> inputsDirectory() { return this.inputsDirectory; }
+  public Optional<Long> scale() { return this.scale; }
+  public long seed() { return this.seed; }
+
+  /**
+   * @return where to write generated input: a file name, or "-" for
+   *   standard output
+   */
+  public String outputDestination() { return this.outputDestination; }
+  public int parallelism() { return this.parallelism; }
+  public Optional<Path> cacheDirectory() { return this.cacheDirectory; }
+
+  /**
+   * @return the store of answers from earlier runs, shared by every day run
+   *   with these options
+   */
+  public Optional<AnswerStore> answerStore() { return this.answerStore; }
+
+  /**
+   * @return where to write the JSON metrics: a file name, or "-" for
+   *   standard output
+   */
+  public Optional<String> metricsDestination()
+  {
+    return this.metricsDestination;
+  }
+
+  /**
+   * @return the time budget for each day, after which it's cancelled
+   */
+  public Optional<Duration> timeout() { return this.timeout; }
+
+  /**
+   * @return true if the day should be solved repeatedly, to measure its
+   *   steady-state latency
+   */
+  public boolean isIterating() { return this.iterating; }
+
+  public int warmupIterations() { return this.warmupIterations; }
+  public int measuredIterations() { return this.measuredIterations; }
+
+  /**
+   * @return the directory to write a Flight Recorder file to for each day
+   */
+  public Optional<Path> jfrDirectory() { return this.jfrDirectory; }
+
+  /**
+   * Set up a newly-created task according to these options.
+   */
+  public void applyTo(final DayTask task)
+  {
+    this.cacheDirectory.ifPresent(
+      dir -> task.setModelCache(new ModelCache(dir)) );
+    task.setVisualise(this.visualise);
+
+    if (this.jfrDirectory.isPresent())
+    {
+      task.setPhaseListener(FlightRecorder.get().phaseListener());
+    }
+
+    if (this.watch)
+    {
+      task.setParseCheckpoints(this.parseCheckpoints);
+    }
+  }
+}
@@ -1,45 +1,191 @@
 package gab.aoc.twentytwo;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 
+import gab.aoc.twentytwo.gen.Generators;
+import gab.aoc.twentytwo.gen.InputGenerator;
+import gab.aoc.util.CancellationToken;
+import gab.aoc.util.TaskCancelledException;
 import gab.aoc.util.TaskException;
 
 public class RunTask
 {
-  public static void main(final String[] args) throws TaskException
+  public static void main(final String[] args)
+    throws TaskException, IOException
   {
-    if (args == null || args.length < 1 || args.length > 2)
+    final RunOptions options;
+
+    try
+    {
+      options = RunOptions.parse(args);
+    }
+    catch (final IllegalArgumentException e)
     {
       printUsage(System.err);
-      throw new IllegalArgumentException("Bad arguments passed");
+      throw new IllegalArgumentException("Bad arguments passed", e);
     }
 
-    if (args.length == 1 &&
-        (args[0].equals("-h") || args[0].equals("--help")))
+    if (options.isHelp())
     {
       printUsage(System.out);
       System.exit(0);
     }
 
-    final int taskDay = Integer.parseInt(args[0]);
-    final boolean includeDebug;
+    if (options.generateDay().isPresent())
+    {
+      generate(options.generateDay().get(), options);
+      System.exit(0);
+    }
+
+    if (options.isServe())
+    {
+      new TaskServer(options).serve();
+      System.exit(0);
+    }
+
+    System.exit(execute(options, System.out));
+  }
 
-    if (args.length == 2)
+  /**
+   * Write a synthetic input for the given day, at the requested scale (or
+   * at about the size of the real input).
+   */
+  private static void generate(final int day, final RunOptions options)
+    throws TaskException
+  {
+    try
     {
-      final String debugArg = args[1];
-      includeDebug = (debugArg.equals("-d") || debugArg.equals("--debug"));
+      final InputGenerator generator = Generators.forDay(day);
+      final long scale = options.scale().orElse(generator.defaultScale());
+
+      Generators.write(
+        generator, scale, options.seed(), options.outputDestination());
     }
-    else
+    catch (final IOException | IllegalArgumentException e)
     {
-      includeDebug = false;
+      throw new TaskException("Failed to generate input for day " + day, e);
     }
+  }
 
+  /**
+   * Run the days selected by the given options, writing everything to the
+   * given stream. This doesn't exit, so it can also be used by TaskServer to
+   * run many requests in the same JVM.
+   *
+   * @return the exit status: 0 if everything succeeded, 1 otherwise
+   */
+  static int execute(final RunOptions options, final PrintStream output)
+    throws TaskException
+  {
+    if (options.verifyManifest().isPresent())
+    {
+      return AnswerVerifier.verify(
+        options.verifyManifest().get(), options, output);
+    }
+
+    if (options.isWatch())
+    {
+      new TaskWatcher(options).run(output);
+      return 0;
+    }
+
+    if (options.isBatch())
+    {
+      return runBatch(options, output) ? 0 : 1;
+    }
+
+    if (options.inputsDirectory().isPresent())
+    {
+      final InputBatch inputBatch =
+        new InputBatch(options.days().get(0), options);
+      return inputBatch.run(options.inputsDirectory().get(), output) ? 0 : 1;
+    }
+
+    if (options.isIterating())
+    {
+      new TaskIterations(options.days().get(0), options).run(output);
+      return 0;
+    }
+
+    return runSingleDay(options.days().get(0), options, output) ? 0 : 1;
+  }
+
+  /**
+   * Run a single day, printing its answers as it goes. If it runs out of
+   * time, it's reported as timed out, with the metrics for the phases it
+   * got through.
+   *
+   * @return true if the day finished in time
+   */
+  private static boolean runSingleDay(
+      final int taskDay,
+      final RunOptions options,
+      final PrintStream output) throws TaskException
+  {
     try
     {
-      final Class taskClass = Class.forName("gab.aoc.twentytwo.Day" + taskDay);
-      final DayTask task = (DayTask)taskClass.newInstance();
-      task.doTask(System.out, includeDebug);
-      System.exit(0);
+      final DayTask task = TaskFinder.newTask(taskDay);
+      final CancellationToken token = new CancellationToken();
+      options.applyTo(task);
+      task.setCancellationToken(token);
+
+      Optional<TaskResult> result = Optional.empty();
+      Optional<Exception> failure = Optional.empty();
+      final long start = System.nanoTime();
+
+      final DayRecording recording =
+        DayRecording.start(taskDay, options.jfrDirectory());
+
+      try
+      {
+        final TaskWatchdog watchdog =
+          new TaskWatchdog(token, options.timeout());
+
+        try
+        {
+          result = Optional.of(
+            AnswerStore.solve(options.answerStore(), task));
+        }
+        finally
+        {
+          watchdog.close();
+        }
+      }
+      catch (final TaskCancelledException e)
+      {
+        failure = Optional.of(e);
+      }
+      finally
+      {
+        recording.close();
+      }
+
+      final long elapsed = System.nanoTime() - start;
+
+      result.ifPresent( r -> printResult(r, output) );
+      failure.ifPresent( e -> output.println("TIMED_OUT: " + e.getMessage()) );
+
+      final OptionalLong inputLines = options.isAlloc() ?
+        AllocationReport.countInputLines(task) : OptionalLong.empty();
+
+      final TaskOutcome outcome = new TaskOutcome(taskDay, result, "",
+        elapsed, failure, task.getPhaseMetrics(), inputLines);
+
+      if (options.isAlloc())
+      {
+        output.println();
+        AllocationReport.print(output, Collections.singletonList(outcome));
+      }
+
+      writeMetrics(options, output, Collections.singletonList(outcome),
+        elapsed);
+
+      return outcome.succeeded();
     }
     catch (final Exception e)
     {
@@ -47,8 +193,103 @@ public class RunTask
     }
   }
 
-  private static void printUsage(final PrintStream output)
+  /**
+   * Print a day's answers, one per line as "label: value", after its
+   * visualisation if it drew one.
+   */
+  static void printResult(final TaskResult result, final PrintStream output)
+  {
+    if (!result.visualisation().isEmpty())
+    {
+      result.visualisation().forEach(output::println);
+      output.println();
+    }
+
+    for (final TaskResult.Answer answer : result.answers())
+    {
+      if (answer.isDrawing())
+      {
+        output.println(answer.label() + ":");
+        answer.drawing().forEach(output::println);
+      }
+      else
+      {
+        output.println(answer.label() + ": " + answer.value());
+      }
+    }
+  }
+
+  /**
+   * Write the JSON metrics for the run, if they were asked for.
+   */
+  private static void writeMetrics(
+      final RunOptions options,
+      final PrintStream output,
+      final List<TaskOutcome> outcomes,
+      final long totalNanos) throws IOException
+  {
+    if (options.metricsDestination().isPresent())
+    {
+      MetricsReport.write(
+        options.metricsDestination().get(), output, outcomes, totalNanos);
+    }
+  }
+
+  /**
+   * Run several days concurrently, then report each day's output and the
+   * timings.
+   *
+   * @return true if every day succeeded
+   */
+  private static boolean runBatch(
+      final RunOptions options, final PrintStream output)
+    throws TaskException
+  {
+    final TaskBatch batch = new TaskBatch(options);
+
+    final long start = System.nanoTime();
+    final List<TaskOutcome> outcomes = batch.run();
+    final long batchNanos = System.nanoTime() - start;
+
+    TaskBatch.printReport(output, outcomes, batchNanos);
+
+    if (options.isAlloc())
+    {
+      output.println();
+      AllocationReport.print(output, outcomes);
+    }
+
+    output.flush();
+
+    try
+    {
+      writeMetrics(options, output, outcomes, batchNanos);
+    }
+    catch (final IOException e)
+    {
+      throw new TaskException("Failed to write metrics", e);
+    }
+
+    return outcomes.stream().allMatch(TaskOutcome::succeeded);
+  }
+
+  static void printUsage(final PrintStream output)
   {
-    output.println("RunTask numberofday [-d|--debug]");
+    output.println("RunTask numberofday [--cache dir] [--memo file] " +
+      "[--metrics file|-] [--alloc] [--visualise] [--timeout 30s] " +
+      "[--jfr dir]");
+    output.println("RunTask (--all|--days 1,5-9) [-p|--parallelism n] " +
+      "[--cache dir] [--memo file] [--metrics file|-] [--alloc] " +
+      "[--timeout 30s] [--jfr dir]");
+    output.println("RunTask numberofday --inputs dir [-p|--parallelism n] " +
+      "[--cache dir] [--memo file] [--timeout 30s]");
+    output.println("RunTask numberofday --warmup n --iterations n " +
+      "[--cache dir] [--timeout 30s] [--jfr dir]");
+    output.println("RunTask --watch [--all|--days 1,5-9|numberofday] " +
+      "[--cache dir] [--memo file] [--timeout 30s]");
+    output.println("RunTask --verify manifest [--cache dir] [--timeout 30s]");
+    output.println("RunTask --serve [--port n] [--cache dir] [--memo file]");
+    output.println("RunTask --generate numberofday [--scale n] [--seed n] " +
+      "[--output file|-]");
   }
 }
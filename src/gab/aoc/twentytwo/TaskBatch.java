@@ -0,0 +1,196 @@
+package gab.aoc.twentytwo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+import gab.aoc.util.CancellationToken;
+
+/**
+ * Runs a set of days concurrently in a single JVM. Each day writes to its
+ * own buffered PrintStream, so the output can be reported per day, in order,
+ * once everything has finished.
+ */
+class TaskBatch
+{
+  private final RunOptions options;
+
+  public TaskBatch(final RunOptions options)
+  {
+    this.options = options;
+  }
+
+  /**
+   * Run a single day, capturing its result, printed output and timing.
+   * Failures are recorded in the outcome rather than thrown, so that one bad
+   * day doesn't take down the rest of the batch. A day that runs past the
+   * timeout, if there is one, is cancelled and recorded as timed out, with
+   * the metrics for the phases it got through.
+   *
+   * @param inputFile the input to use instead of the day's usual one, if
+   *   any
+   */
+  static TaskOutcome runDay(
+      final int day,
+      final RunOptions options,
+      final Optional<Path> inputFile)
+  {
+    final CancellationToken token = new CancellationToken();
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    final PrintStream output =
+      new PrintStream(new BufferedOutputStream(buffer), false);
+
+    final long start = System.nanoTime();
+    Optional<TaskResult> result = Optional.empty();
+    Optional<Exception> failure = Optional.empty();
+    List<PhaseMetrics> phases = Collections.emptyList();
+    OptionalLong inputLines = OptionalLong.empty();
+
+    try
+    {
+      final DayTask task = TaskFinder.newTask(day);
+      options.applyTo(task);
+      inputFile.ifPresent(task::setInputFile);
+      task.setCancellationToken(token);
+
+      final DayRecording recording =
+        DayRecording.start(day, options.jfrDirectory());
+
+      try
+      {
+        final TaskWatchdog watchdog =
+          new TaskWatchdog(token, options.timeout());
+
+        try
+        {
+          result = Optional.of(
+            AnswerStore.solve(options.answerStore(), task));
+        }
+        finally
+        {
+          watchdog.close();
+        }
+
+        RunTask.printResult(result.get(), output);
+      }
+      finally
+      {
+        phases = task.getPhaseMetrics();
+
+        if (options.isAlloc())
+        {
+          inputLines = AllocationReport.countInputLines(task);
+        }
+
+        recording.close();
+      }
+    }
+    catch (final Exception e)
+    {
+      failure = Optional.of(e);
+    }
+
+    final long elapsed = System.nanoTime() - start;
+    output.flush();
+    return new TaskOutcome(
+      day, result, buffer.toString(), elapsed, failure, phases, inputLines);
+  }
+
+  /**
+   * Run every day in the batch on a dedicated pool, and wait for them all
+   * to finish.
+   *
+   * @return the outcome for each day, in the order that the days were given
+   */
+  public List<TaskOutcome> run()
+  {
+    final ForkJoinPool pool = new ForkJoinPool(this.options.parallelism());
+
+    try
+    {
+      final List<ForkJoinTask<TaskOutcome>> submitted =
+        this.options.days().stream()
+        .map( day -> pool.submit(
+          () -> runDay(day, this.options, Optional.empty()) ) )
+        .collect(Collectors.toList());
+
+      return submitted.stream()
+        .map(ForkJoinTask::join)
+        .collect(Collectors.toList());
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Print each day's output, followed by a table summarising the wall-clock
+   * time for each day and for the batch as a whole.
+   */
+  public static void printReport(
+      final PrintStream output,
+      final List<TaskOutcome> outcomes,
+      final long batchNanos)
+  {
+    for (final TaskOutcome outcome : outcomes)
+    {
+      output.println("=== Day " + outcome.day() + " ===");
+      output.print(outcome.output());
+
+      outcome.failure().ifPresent( e ->
+        output.println(outcome.status() + ": " + describeFailure(e)) );
+
+      output.println();
+    }
+
+    output.println(
+      String.format("%-6s %-10s %14s", "Day", "Status", "Time (ms)"));
+
+    for (final TaskOutcome outcome : outcomes)
+    {
+      output.println(String.format("%-6d %-10s %14.3f",
+        outcome.day(),
+        outcome.status(),
+        toMillis(outcome.elapsedNanos())));
+    }
+
+    final long failures = outcomes.stream()
+      .filter( outcome -> !outcome.succeeded() )
+      .count();
+
+    output.println(String.format("%-6s %-10s %14.3f",
+      "All",
+      (failures == 0) ? "OK" : (failures + " FAIL"),
+      toMillis(batchNanos)));
+  }
+
+  private static double toMillis(final long nanos)
+  {
+    return nanos / 1000000.0;
+  }
+
+  /**
+   * @return the exception message, plus the message of its root cause (if
+   * different), which is usually the more useful part
+   */
+  static String describeFailure(final Exception e)
+  {
+    Throwable rootCause = e;
+
+    while (rootCause.getCause() != null)
+    {
+      rootCause = rootCause.getCause();
+    }
+
+    return (rootCause == e) ? e.toString() : (e + " (" + rootCause + ")");
+  }
+}
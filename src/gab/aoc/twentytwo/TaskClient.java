@@ -0,0 +1,43 @@
+package gab.aoc.twentytwo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Sends a request to a running "RunTask --serve" and prints the output,
+ * exiting with the same status that RunTask would have. Takes the same
+ * arguments as RunTask, optionally preceded by "--port n"; "--stop" shuts
+ * the server down.
+ */
+public class TaskClient
+{
+  public static void main(final String[] args) throws IOException
+  {
+    int port = TaskServer.DEFAULT_PORT;
+    String[] requestArgs = args;
+
+    if (args.length >= 2 && "--port".equals(args[0]))
+    {
+      port = Integer.parseInt(args[1]);
+      requestArgs = Arrays.copyOfRange(args, 2, args.length);
+    }
+
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+    {
+      final DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(socket.getOutputStream()));
+      final DataInputStream in = new DataInputStream(
+        new BufferedInputStream(socket.getInputStream()));
+
+      TaskServer.writeRequest(out, requestArgs);
+      final int status = TaskServer.readResponse(in, System.out);
+      System.exit(status);
+    }
+  }
+}
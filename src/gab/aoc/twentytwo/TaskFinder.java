@@ -0,0 +1,87 @@
+package gab.aoc.twentytwo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gab.aoc.util.TaskException;
+
+/**
+ * Locates the DayTask implementations in this package. The days are listed
+ * in a table here rather than looked up by name, so that there's no
+ * reflection at startup and only the day actually being run gets loaded.
+ * Add each new day to createTask.
+ */
+final class TaskFinder
+{
+  private static final int LAST_POSSIBLE_DAY = 25;
+
+  private TaskFinder() {}
+
+  /**
+   * @return a new task for the given day, or null if there isn't one
+   */
+  private static DayTask createTask(final int day)
+  {
+    switch (day)
+    {
+      case 1: return new Day1();
+      case 2: return new Day2();
+      case 3: return new Day3();
+      case 4: return new Day4();
+      case 5: return new Day5();
+      case 6: return new Day6();
+      case 7: return new Day7();
+      case 8: return new Day8();
+      case 9: return new Day9();
+      case 10: return new Day10();
+      case 11: return new Day11();
+      case 12: return new Day12();
+      case 13: return new Day13();
+      case 14: return new Day14();
+      case 15: return new Day15();
+      case 16: return new Day16();
+      default: return null;
+    }
+  }
+
+  /**
+   * @return true if there is a task implemented for the given day
+   */
+  public static boolean hasTask(final int day)
+  {
+    return createTask(day) != null;
+  }
+
+  /**
+   * @return the numbers of every day that has a task, in ascending order
+   */
+  public static List<Integer> findAllDays()
+  {
+    final List<Integer> days = new ArrayList<>();
+
+    for (int day = 1; day <= LAST_POSSIBLE_DAY; day++)
+    {
+      if (hasTask(day))
+      {
+        days.add(day);
+      }
+    }
+
+    return days;
+  }
+
+  /**
+   * Create a new instance of the task for the given day.
+   */
+  public static DayTask newTask(final int day) throws TaskException
+  {
+    final DayTask task = createTask(day);
+
+    if (task == null)
+    {
+      throw new TaskException("No task for day " + day);
+    }
+
+    return task;
+  }
+}
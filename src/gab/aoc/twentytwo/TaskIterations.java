@@ -0,0 +1,167 @@
+package gab.aoc.twentytwo;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import gab.aoc.util.CancellationToken;
+import gab.aoc.util.InputFileException;
+import gab.aoc.util.ModelCache;
+import gab.aoc.util.TaskException;
+
+/**
+ * Solves one day over and over on the same input, already loaded into
+ * memory, to measure its steady-state latency rather than a single cold
+ * run. A number of warm-up iterations are run first and thrown away, to let
+ * the JIT compiler settle, and then the latency of each measured iteration
+ * is reported as percentiles.
+ *
+ * Each iteration gets a fresh task, so nothing is carried over between
+ * them except the JVM's own state. Only solve() is timed: the task is set
+ * up beforehand, and the input is hashed just once for the model cache (if
+ * there is one), so that neither is measured - nor is printing the
+ * answers. This is much quicker
+ * to run than the JMH benchmarks, but it doesn't guard against dead-code
+ * elimination or other JIT effects.
+ */
+class TaskIterations
+{
+  private static final String ROW_FORMAT =
+    "%-6s %10s %10s %10s %10s %10s %12s";
+
+  private final int day;
+  private final RunOptions options;
+
+  public TaskIterations(final int day, final RunOptions options)
+  {
+    this.day = day;
+    this.options = options;
+  }
+
+  /**
+   * @return the input file's bytes, read just once for all the iterations
+   */
+  private byte[] loadInput() throws TaskException
+  {
+    final DayTask task = TaskFinder.newTask(this.day);
+
+    try
+    {
+      return Files.readAllBytes(task.getFilePath());
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not read input file", e);
+    }
+  }
+
+  /**
+   * @return a fresh task, set up to solve the given input
+   */
+  private DayTask newTask(final byte[] input, final String inputHash)
+    throws TaskException
+  {
+    final DayTask task = TaskFinder.newTask(this.day);
+    this.options.applyTo(task);
+    task.setInputBytes(input, inputHash);
+    task.setCancellationToken(new CancellationToken());
+    return task;
+  }
+
+  /**
+   * Solve the task once, stopping it if it runs out of time.
+   */
+  private TaskResult solveOnce(final DayTask task) throws TaskException
+  {
+    final TaskWatchdog watchdog =
+      new TaskWatchdog(task.cancellation(), this.options.timeout());
+
+    try
+    {
+      return task.solve();
+    }
+    finally
+    {
+      watchdog.close();
+    }
+  }
+
+  /**
+   * @return the value at the given percentile of the sorted values, using
+   *   the nearest-rank method
+   */
+  static long percentile(final long[] sorted, final double percent)
+  {
+    final int rank = (int)Math.ceil(percent / 100.0 * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+  }
+
+  private static String millis(final long nanos)
+  {
+    return String.format("%.3f", nanos / 1e6);
+  }
+
+  /**
+   * Run the warm-up and measured iterations, then print the answers and
+   * the latency report.
+   */
+  public void run(final PrintStream output) throws TaskException
+  {
+    final int warmups = this.options.warmupIterations();
+    final int iterations = this.options.measuredIterations();
+    final byte[] input = loadInput();
+    final String inputHash = ModelCache.hashBytes(input);
+    final long[] latencies = new long[iterations];
+    TaskResult result = null;
+
+    try
+    {
+      final DayRecording recording =
+        DayRecording.start(this.day, this.options.jfrDirectory());
+
+      try
+      {
+        for (int i = 0; i < warmups; i++)
+        {
+          solveOnce(newTask(input, inputHash));
+        }
+
+        for (int i = 0; i < iterations; i++)
+        {
+          final DayTask task = newTask(input, inputHash);
+          final long start = System.nanoTime();
+          result = solveOnce(task);
+          latencies[i] = System.nanoTime() - start;
+        }
+      }
+      finally
+      {
+        recording.close();
+      }
+    }
+    catch (final IOException e)
+    {
+      throw new TaskException("Failed to write recording", e);
+    }
+
+    RunTask.printResult(result, output);
+    output.println();
+
+    final long total = Arrays.stream(latencies).sum();
+    Arrays.sort(latencies);
+
+    output.println(String.format("%d warm-up and %d measured iterations",
+      warmups, iterations));
+    output.println(String.format(ROW_FORMAT,
+      "Day", "Min (ms)", "Median", "p90", "p99", "Max", "Ops/s"));
+    output.println(String.format(ROW_FORMAT,
+      this.day,
+      millis(latencies[0]),
+      millis(percentile(latencies, 50)),
+      millis(percentile(latencies, 90)),
+      millis(percentile(latencies, 99)),
+      millis(latencies[iterations - 1]),
+      String.format("%.1f", iterations / (total / 1e9))));
+  }
+}
@@ -0,0 +1,82 @@
+package gab.aoc.twentytwo;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import gab.aoc.util.TaskCancelledException;
+
+/**
+ * The outcome of running a single day's task: its answers and what was
+ * printed for them, how long it took (overall and per phase), and what went
+ * wrong if it failed.
+ */
+class TaskOutcome
+{
+  private final int day;
+  private final Optional<TaskResult> result;
+  private final String output;
+  private final long elapsedNanos;
+  private final Optional<Exception> failure;
+  private final List<PhaseMetrics> phases;
+  private final OptionalLong inputLines;
+
+  public TaskOutcome(
+      final int day,
+      final Optional<TaskResult> result,
+      final String output,
+      final long elapsedNanos,
+      final Optional<Exception> failure,
+      final List<PhaseMetrics> phases,
+      final OptionalLong inputLines)
+  {
+    this.day = day;
+    this.result = result;
+    this.output = output;
+    this.elapsedNanos = elapsedNanos;
+    this.failure = failure;
+    this.phases = phases;
+    this.inputLines = inputLines;
+  }
+
+  public int day() { return this.day; }
+  public Optional<TaskResult> result() { return this.result; }
+  public String output() { return this.output; }
+  public long elapsedNanos() { return this.elapsedNanos; }
+  public Optional<Exception> failure() { return this.failure; }
+  public boolean succeeded() { return !this.failure.isPresent(); }
+
+  /**
+   * @return true if the day was cancelled for running out of time
+   */
+  public boolean timedOut()
+  {
+    Throwable cause = this.failure.orElse(null);
+
+    while (cause != null)
+    {
+      if (cause instanceof TaskCancelledException)
+      {
+        return true;
+      }
+
+      cause = cause.getCause();
+    }
+
+    return false;
+  }
+
+  /**
+   * @return "OK", "TIMED_OUT" or "FAILED"
+   */
+  public String status()
+  {
+    return succeeded() ? "OK" : (timedOut() ? "TIMED_OUT" : "FAILED");
+  }
+  public List<PhaseMetrics> phases() { return this.phases; }
+
+  /**
+   * @return the number of lines of input, if they were counted
+   */
+  public OptionalLong inputLines() { return this.inputLines; }
+}
@@ -0,0 +1,128 @@
+package gab.aoc.twentytwo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The answers from a day's task, as values. Solving a day doesn't print
+ * anything - RunTask prints the result - so callers can check or compare
+ * the answers directly, and benchmarks don't measure console output.
+ *
+ * Each day has an answer for part one and (usually) part two. Some days
+ * give extra answers, or can draw a visualisation when asked to.
+ */
+public final class TaskResult
+{
+  private final Answer partOne;
+  private final Optional<Answer> partTwo;
+  private final List<Answer> extras;
+  private final List<String> visualisation;
+
+  private TaskResult(
+      final Answer partOne,
+      final Optional<Answer> partTwo,
+      final List<Answer> extras,
+      final List<String> visualisation)
+  {
+    this.partOne = partOne;
+    this.partTwo = partTwo;
+    this.extras = Collections.unmodifiableList(extras);
+    this.visualisation = Collections.unmodifiableList(visualisation);
+  }
+
+  public TaskResult(final Answer partOne, final Answer partTwo)
+  {
+    this(partOne, Optional.of(partTwo), Collections.emptyList(),
+      Collections.emptyList());
+  }
+
+  /**
+   * Result for a day that only has an answer for part one.
+   */
+  public TaskResult(final Answer partOne)
+  {
+    this(partOne, Optional.empty(), Collections.emptyList(),
+      Collections.emptyList());
+  }
+
+  /**
+   * @return a copy of this result, with an extra answer added
+   */
+  public TaskResult withExtra(final Answer extra)
+  {
+    final List<Answer> newExtras = new ArrayList<>(this.extras);
+    newExtras.add(extra);
+    return new TaskResult(
+      this.partOne, this.partTwo, newExtras, this.visualisation);
+  }
+
+  /**
+   * @return a copy of this result, with the given lines of visualisation
+   */
+  public TaskResult withVisualisation(final List<String> lines)
+  {
+    return new TaskResult(
+      this.partOne, this.partTwo, this.extras, new ArrayList<>(lines));
+  }
+
+  public Answer partOne() { return this.partOne; }
+  public Optional<Answer> partTwo() { return this.partTwo; }
+  public List<Answer> extras() { return this.extras; }
+  public List<String> visualisation() { return this.visualisation; }
+
+  /**
+   * @return every answer, in order: part one, part two, then any extras
+   */
+  public List<Answer> answers()
+  {
+    final List<Answer> answers = new ArrayList<>();
+    answers.add(this.partOne);
+    this.partTwo.ifPresent(answers::add);
+    answers.addAll(this.extras);
+    return answers;
+  }
+
+  /**
+   * A single labelled answer. Most answers are a single value, but some
+   * (e.g. Day 10's CRT) are a drawing over several lines.
+   */
+  public static final class Answer
+  {
+    private final String label;
+    private final Object value;
+    private final List<String> drawing;
+
+    private Answer(
+        final String label, final Object value, final List<String> drawing)
+    {
+      this.label = label;
+      this.value = value;
+      this.drawing = drawing;
+    }
+
+    public static Answer of(final String label, final Object value)
+    {
+      return new Answer(label, value, Collections.emptyList());
+    }
+
+    public static Answer drawing(final String label, final List<String> lines)
+    {
+      final List<String> drawing =
+        Collections.unmodifiableList(new ArrayList<>(lines));
+      return new Answer(label, drawing, drawing);
+    }
+
+    public String label() { return this.label; }
+    public Object value() { return this.value; }
+    public boolean isDrawing() { return !this.drawing.isEmpty(); }
+    public List<String> drawing() { return this.drawing; }
+
+    @Override
+    public String toString()
+    {
+      return this.label + ": " + this.value;
+    }
+  }
+}
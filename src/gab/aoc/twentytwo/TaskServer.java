@@ -0,0 +1,384 @@
+package gab.aoc.twentytwo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a JVM running and serves RunTask requests over a loopback socket,
+ * so that repeated runs don't pay for JVM startup, class loading and a cold
+ * JIT every time. TaskClient is the matching client.
+ *
+ * The protocol is deliberately simple. A request is the argument count
+ * followed by each argument as modified UTF-8, exactly as they'd be passed
+ * to RunTask. The response is the output, as a series of length-prefixed
+ * frames written as it's produced, then a frame length of -1 followed by
+ * the exit status. Requests with too many (or too long) arguments are
+ * answered with an error and a status of 1, without being run.
+ *
+ * Input files are resolved relative to the server's working directory, not
+ * the client's. The socket isn't authenticated, so any local user can send
+ * requests, which run with the server owner's permissions: requests may
+ * not name files or directories (e.g. with --memo or --metrics), and use
+ * the cache and answer store given on the server's own command line.
+ */
+class TaskServer
+{
+  static final int DEFAULT_PORT = 7022;
+
+  /**
+   * A request consisting only of this argument stops the server.
+   */
+  static final String STOP_REQUEST = "--stop";
+
+  private static final int END_OF_OUTPUT = -1;
+  private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+  /**
+   * Limits on requests, well beyond anything RunTask needs, so a bad client
+   * can't make a worker allocate whatever it likes.
+   */
+  private static final int MAX_REQUEST_ARGS = 256;
+  private static final int MAX_ARGUMENT_LENGTH = 4096;
+
+  private final int port;
+  private final RunOptions serverOptions;
+  private volatile boolean stopping = false;
+
+  public TaskServer(final RunOptions serverOptions)
+  {
+    this.port = serverOptions.port();
+    this.serverOptions = serverOptions;
+  }
+
+  /**
+   * Write a request for the given RunTask arguments.
+   */
+  static void writeRequest(final DataOutputStream out, final String[] args)
+    throws IOException
+  {
+    out.writeInt(args.length);
+
+    for (final String arg : args)
+    {
+      out.writeUTF(arg);
+    }
+
+    out.flush();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the request breaks the limits on
+   *   the number or length of its arguments
+   */
+  private static String[] readRequest(final DataInputStream in)
+    throws IOException
+  {
+    final int count = in.readInt();
+
+    if (count < 0 || count > MAX_REQUEST_ARGS)
+    {
+      throw new IllegalArgumentException("Bad argument count: " + count);
+    }
+
+    final String[] args = new String[count];
+
+    for (int i = 0; i < args.length; i++)
+    {
+      //-----------------------------------------------------------------------
+      // readUTF can't read more than 64KB, so this is checked afterwards.
+      //-----------------------------------------------------------------------
+      args[i] = in.readUTF();
+
+      if (args[i].length() > MAX_ARGUMENT_LENGTH)
+      {
+        throw new IllegalArgumentException("Argument " + (i + 1) +
+          " is longer than " + MAX_ARGUMENT_LENGTH + " characters");
+      }
+    }
+
+    return args;
+  }
+
+  /**
+   * Read a response, copying the output to the given stream as it arrives.
+   *
+   * @return the exit status
+   */
+  static int readResponse(final DataInputStream in, final OutputStream output)
+    throws IOException
+  {
+    final byte[] frame = new byte[OUTPUT_BUFFER_SIZE];
+    int length;
+
+    while ((length = in.readInt()) != END_OF_OUTPUT)
+    {
+      int remaining = length;
+
+      while (remaining > 0)
+      {
+        final int chunk = Math.min(remaining, frame.length);
+        in.readFully(frame, 0, chunk);
+        output.write(frame, 0, chunk);
+        remaining -= chunk;
+      }
+
+      output.flush();
+    }
+
+    return in.readInt();
+  }
+
+  /**
+   * Accept and run requests until a stop request arrives. Each connection is
+   * handled on its own thread, so a slow day doesn't hold up the others.
+   * Requests already running when the server stops are finished (and their
+   * responses sent) before this returns.
+   */
+  public void serve() throws IOException
+  {
+    final ExecutorService workers = Executors.newCachedThreadPool();
+
+    try (ServerSocket server =
+        new ServerSocket(this.port, 0, InetAddress.getLoopbackAddress()))
+    {
+      System.err.println("Serving on " + server.getLocalSocketAddress());
+
+      while (!this.stopping)
+      {
+        final Socket connection;
+
+        try
+        {
+          connection = server.accept();
+        }
+        catch (final SocketException e)
+        {
+          if (this.stopping)
+          {
+            break;
+          }
+
+          throw e;
+        }
+
+        workers.execute( () -> handle(connection, server) );
+      }
+    }
+    finally
+    {
+      workers.shutdown();
+      awaitWorkers(workers);
+    }
+  }
+
+  private static void awaitWorkers(final ExecutorService workers)
+  {
+    try
+    {
+      while (!workers.awaitTermination(1, TimeUnit.MINUTES))
+      {
+        System.err.println("Waiting for requests to finish");
+      }
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Run a single request and send back the output and exit status.
+   */
+  private void handle(final Socket connection, final ServerSocket server)
+  {
+    try (Socket socket = connection)
+    {
+      final DataInputStream in = new DataInputStream(
+        new BufferedInputStream(socket.getInputStream()));
+      final DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(socket.getOutputStream()));
+      final PrintStream output = new PrintStream(
+        new BufferedOutputStream(new FrameOutputStream(out),
+          OUTPUT_BUFFER_SIZE),
+        true);
+
+      final String[] args;
+
+      try
+      {
+        args = readRequest(in);
+      }
+      catch (final IllegalArgumentException e)
+      {
+        output.println("Bad request: " + e.getMessage());
+        finishResponse(output, out, 1);
+        return;
+      }
+
+      final boolean stop = args.length == 1 && STOP_REQUEST.equals(args[0]);
+
+      try
+      {
+        finishResponse(output, out, stop ? stop(output) : run(args, output));
+      }
+      finally
+      {
+        //---------------------------------------------------------------------
+        // Only close the server socket once the response has been sent, as
+        // closing it ends serve() and lets the JVM exit.
+        //---------------------------------------------------------------------
+        if (stop)
+        {
+          server.close();
+        }
+      }
+    }
+    catch (final IOException e)
+    {
+      //-----------------------------------------------------------------------
+      // The client has gone away, so there's nobody to tell. Keep serving.
+      //-----------------------------------------------------------------------
+      System.err.println("Request failed: " + e);
+    }
+  }
+
+  /**
+   * Send the rest of the output, and then the exit status.
+   */
+  private static void finishResponse(
+      final PrintStream output,
+      final DataOutputStream out,
+      final int status) throws IOException
+  {
+    output.flush();
+    out.writeInt(END_OF_OUTPUT);
+    out.writeInt(status);
+    out.flush();
+  }
+
+  /**
+   * Mark the server as stopping, so it accepts no more requests once the
+   * server socket is closed.
+   *
+   * @return the exit status
+   */
+  private int stop(final PrintStream output)
+  {
+    this.stopping = true;
+    output.println("Stopping server");
+    return 0;
+  }
+
+  /**
+   * Run the given RunTask arguments, reporting any failure on the output
+   * stream as RunTask itself would on the console.
+   *
+   * @return the exit status
+   */
+  private int run(final String[] args, final PrintStream output)
+  {
+    final RunOptions options;
+
+    try
+    {
+      options = RunOptions.parse(args);
+    }
+    catch (final IllegalArgumentException e)
+    {
+      RunTask.printUsage(output);
+      output.println("Bad arguments passed: " + e.getMessage());
+      return 1;
+    }
+
+    if (options.isHelp())
+    {
+      RunTask.printUsage(output);
+      return 0;
+    }
+
+    if (options.isServe())
+    {
+      output.println("Already serving");
+      return 1;
+    }
+
+    if (options.isWatch())
+    {
+      output.println("Can't watch from the server");
+      return 1;
+    }
+
+    if (options.generateDay().isPresent())
+    {
+      output.println("Can't generate from the server");
+      return 1;
+    }
+
+    if (!options.fileOptions().isEmpty())
+    {
+      output.println("Can't pass " + String.join(", ", options.fileOptions()) +
+        " to the server; give --cache and --memo to --serve instead");
+      return 1;
+    }
+
+    options.useStoresOf(this.serverOptions);
+
+    try
+    {
+      return RunTask.execute(options, output);
+    }
+    catch (final Exception e)
+    {
+      e.printStackTrace(output);
+      return 1;
+    }
+  }
+
+  /**
+   * Sends everything written to it as length-prefixed frames.
+   */
+  private static class FrameOutputStream extends OutputStream
+  {
+    private final DataOutputStream out;
+
+    public FrameOutputStream(final DataOutputStream out)
+    {
+      this.out = out;
+    }
+
+    @Override
+    public void write(final int b) throws IOException
+    {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len)
+      throws IOException
+    {
+      if (len > 0)
+      {
+        this.out.writeInt(len);
+        this.out.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+      this.out.flush();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package gab.aoc.twentytwo;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import gab.aoc.util.CancellationToken;
+
+/**
+ * Cancels a task that runs past its time budget. Start it just before the
+ * task, and close it in a finally block:
+ * <pre>
+ * final TaskWatchdog watchdog = new TaskWatchdog(token, timeout);
+ *
+ * try
+ * {
+ *   task.solve();
+ * }
+ * finally
+ * {
+ *   watchdog.close();
+ * }
+ * </pre>
+ * A single daemon thread does the timing for every task, so watching a task
+ * is cheap, and a stuck task can't stop the JVM from exiting.
+ */
+final class TaskWatchdog implements AutoCloseable
+{
+  private static final ScheduledExecutorService TIMER =
+    Executors.newSingleThreadScheduledExecutor( runnable -> {
+      final Thread thread = new Thread(runnable, "task-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    } );
+
+  private final Optional<ScheduledFuture<?>> alarm;
+
+  /**
+   * Start watching. If there's no timeout, nothing is ever cancelled.
+   */
+  public TaskWatchdog(
+      final CancellationToken token, final Optional<Duration> timeout)
+  {
+    this.alarm = timeout.map( limit -> TIMER.schedule(
+      () -> token.cancel("Timed out after " + describe(limit)),
+      limit.toNanos(),
+      TimeUnit.NANOSECONDS) );
+  }
+
+  /**
+   * @return the duration in a short form, e.g. "30s" or "250ms"
+   */
+  static String describe(final Duration duration)
+  {
+    final long millis = duration.toMillis();
+    return (millis % 1000 == 0) ? ((millis / 1000) + "s") : (millis + "ms");
+  }
+
+  /**
+   * Stop watching, once the task has finished.
+   */
+  @Override
+  public void close()
+  {
+    this.alarm.ifPresent( future -> future.cancel(false) );
+  }
+}
@@ -0,0 +1,151 @@
+package gab.aoc.twentytwo;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import gab.aoc.util.TaskException;
+
+/**
+ * Watches the inputs directory, and whenever a day's input file changes,
+ * runs that day again in the same (by now warmed-up) JVM. Only the days
+ * whose files changed are run. Days that parse with scanAppendable keep
+ * their parse checkpointed between runs, so when lines are only appended to
+ * their input, just the new lines are parsed.
+ *
+ * Editors often write a file in several steps, so once a change is seen,
+ * further changes are gathered for a short while before anything is run.
+ */
+class TaskWatcher
+{
+  private static final Pattern INPUT_FILE_NAME =
+    Pattern.compile("day(\\d+)\\.txt");
+
+  /**
+   * How long to keep gathering changes after the first one, in ms.
+   */
+  private static final long SETTLE_MILLIS = 50;
+
+  private final RunOptions options;
+
+  public TaskWatcher(final RunOptions options)
+  {
+    this.options = options;
+  }
+
+  /**
+   * Run each watched day once, then run days again as their inputs change,
+   * until the thread is interrupted.
+   */
+  public void run(final PrintStream output) throws TaskException
+  {
+    final Path directory = Paths.get(DayTask.INPUTS_DIR);
+
+    try (final WatchService watcher =
+           FileSystems.getDefault().newWatchService())
+    {
+      directory.register(watcher,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+
+      runDays(new TreeSet<>(this.options.days()), output);
+      output.println("Watching " + directory + " for changes");
+      output.flush();
+
+      while (!Thread.currentThread().isInterrupted())
+      {
+        final SortedSet<Integer> changed = new TreeSet<>();
+        collectChanges(watcher.take(), changed);
+
+        //---------------------------------------------------------------------
+        // Let the rest of the edit land before running anything.
+        //---------------------------------------------------------------------
+        WatchKey key;
+        while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS))
+               != null)
+        {
+          collectChanges(key, changed);
+        }
+
+        runDays(changed, output);
+      }
+    }
+    catch (final InterruptedException | ClosedWatchServiceException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (final IOException e)
+    {
+      throw new TaskException("Could not watch " + directory, e);
+    }
+  }
+
+  /**
+   * Add the watched days whose input files changed, according to the key's
+   * events, to the given set. The key is then reset to get more events.
+   */
+  private void collectChanges(
+      final WatchKey key, final SortedSet<Integer> changed)
+  {
+    for (final WatchEvent<?> event : key.pollEvents())
+    {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+      {
+        //---------------------------------------------------------------------
+        // Some events were lost, so we don't know what changed.
+        //---------------------------------------------------------------------
+        changed.addAll(this.options.days());
+        continue;
+      }
+
+      final Matcher matcher =
+        INPUT_FILE_NAME.matcher(event.context().toString());
+
+      if (matcher.matches())
+      {
+        final int day = Integer.parseInt(matcher.group(1));
+
+        if (this.options.days().contains(day))
+        {
+          changed.add(day);
+        }
+      }
+    }
+
+    key.reset();
+  }
+
+  /**
+   * Run the given days one after another, printing each one's answers and
+   * how long it took.
+   */
+  private void runDays(final SortedSet<Integer> days, final PrintStream output)
+  {
+    for (final int day : days)
+    {
+      final TaskOutcome outcome =
+        TaskBatch.runDay(day, this.options, Optional.empty());
+
+      output.println("== Day " + day + " ==");
+      output.print(outcome.output());
+      outcome.failure().ifPresent( e -> output.println(
+        outcome.status() + ": " + e.getMessage()) );
+      output.println(String.format("(%s in %.3f ms)",
+        outcome.status(), outcome.elapsedNanos() / 1e6));
+      output.flush();
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 10: CPU instructions. There are always enough to cover the 240
+ * cycles that part 2 draws. Scales by the number of instructions.
+ */
+class Day10Generator extends InputGenerator
+{
+  private static final int MIN_INSTRUCTIONS = 240;
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final long instructions = Math.max(scale, MIN_INSTRUCTIONS);
+
+    for (long i = 0; i < instructions; i++)
+    {
+      if (random.nextInt(10) < 4)
+      {
+        output.println("noop");
+      }
+      else
+      {
+        output.println("addx " + between(random, -20, 20));
+      }
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "instructions"; }
+
+  @Override
+  public long defaultScale() { return 140; }
+}
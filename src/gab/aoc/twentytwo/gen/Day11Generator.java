@@ -0,0 +1,94 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Day 11: eight monkeys, each testing for a different prime (so the product
+ * of the divisors stays small), with one squaring the worry level as in the
+ * real puzzle. Scales by the total number of starting items, which is what
+ * drives the work in each round.
+ */
+class Day11Generator extends InputGenerator
+{
+  private static final List<Integer> PRIMES =
+    Arrays.asList(2, 3, 5, 7, 11, 13, 17, 19);
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final int monkeys = PRIMES.size();
+    final List<Integer> divisors = new ArrayList<>(PRIMES);
+    Collections.shuffle(divisors, random);
+
+    //-------------------------------------------------------------------------
+    // Every monkey needs at least one starting item.
+    //-------------------------------------------------------------------------
+    final List<List<Integer>> items = new ArrayList<>();
+
+    for (int i = 0; i < monkeys; i++)
+    {
+      items.add(new ArrayList<>());
+    }
+
+    for (long i = 0; i < Math.max(scale, monkeys); i++)
+    {
+      final int monkey = (i < monkeys) ? (int)i : random.nextInt(monkeys);
+      items.get(monkey).add(between(random, 50, 99));
+    }
+
+    final int squaringMonkey = random.nextInt(monkeys);
+
+    for (int i = 0; i < monkeys; i++)
+    {
+      final String operation;
+
+      if (i == squaringMonkey)
+      {
+        operation = "old * old";
+      }
+      else if (random.nextBoolean())
+      {
+        operation = "old * " + between(random, 2, 19);
+      }
+      else
+      {
+        operation = "old + " + between(random, 1, 8);
+      }
+
+      final int onTrue = (i + between(random, 1, monkeys - 1)) % monkeys;
+      int onFalse = onTrue;
+
+      while (onFalse == onTrue || onFalse == i)
+      {
+        onFalse = random.nextInt(monkeys);
+      }
+
+      if (i > 0)
+      {
+        output.println();
+      }
+
+      output.println("Monkey " + i + ":");
+      output.println("  Starting items: " + items.get(i).stream()
+        .map(String::valueOf)
+        .collect(Collectors.joining(", ")));
+      output.println("  Operation: new = " + operation);
+      output.println("  Test: divisible by " + divisors.get(i));
+      output.println("    If true: throw to monkey " + onTrue);
+      output.println("    If false: throw to monkey " + onFalse);
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "starting items"; }
+
+  @Override
+  public long defaultScale() { return 36; }
+}
@@ -0,0 +1,59 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 12: a heightmap that rises steadily from 'a' on the left to 'z' on
+ * the right, with random dips to route around. One row is left without
+ * dips, so there's always a path from the start to the summit. Scales by
+ * the width; the height is a quarter of that, roughly as in the real input.
+ */
+class Day12Generator extends InputGenerator
+{
+  private static final int MIN_WIDTH = 27;
+  private static final int MIN_HEIGHT = 5;
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final int width = (int)Math.max(scale, MIN_WIDTH);
+    final int height = Math.max(width / 4, MIN_HEIGHT);
+    final int pathRow = random.nextInt(height);
+    final char[] row = new char[width];
+
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        //---------------------------------------------------------------------
+        // The width is at least 26, so neighbouring columns differ by at
+        // most one without any dips.
+        //---------------------------------------------------------------------
+        int elevation = (int)(25L * x / (width - 1));
+
+        if (y != pathRow && random.nextInt(4) == 0)
+        {
+          elevation = Math.max(0, elevation - between(random, 1, 5));
+        }
+
+        row[x] = (char)('a' + elevation);
+      }
+
+      if (y == pathRow)
+      {
+        row[0] = 'S';
+        row[width - 1] = 'E';
+      }
+
+      output.println(row);
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "columns"; }
+
+  @Override
+  public long defaultScale() { return 161; }
+}
@@ -0,0 +1,69 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 13: pairs of randomly nested packets, separated by blank lines.
+ * Scales by the number of pairs.
+ */
+class Day13Generator extends InputGenerator
+{
+  private static final int MAX_DEPTH = 4;
+  private static final int MAX_LIST_SIZE = 5;
+
+  private static void appendList(
+      final Random random, final StringBuilder packet, final int depth)
+  {
+    packet.append('[');
+    final int size = random.nextInt(MAX_LIST_SIZE + 1);
+
+    for (int i = 0; i < size; i++)
+    {
+      if (i > 0)
+      {
+        packet.append(',');
+      }
+
+      if (depth < MAX_DEPTH && random.nextInt(3) == 0)
+      {
+        appendList(random, packet, depth + 1);
+      }
+      else
+      {
+        packet.append(random.nextInt(11));
+      }
+    }
+
+    packet.append(']');
+  }
+
+  private static String packet(final Random random)
+  {
+    final StringBuilder packet = new StringBuilder();
+    appendList(random, packet, 0);
+    return packet.toString();
+  }
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    for (long i = 0; i < scale; i++)
+    {
+      if (i > 0)
+      {
+        output.println();
+      }
+
+      output.println(packet(random));
+      output.println(packet(random));
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "pairs"; }
+
+  @Override
+  public long defaultScale() { return 150; }
+}
@@ -0,0 +1,67 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 14: rock paths made of alternating horizontal and vertical lines,
+ * below and to either side of the sand source at (500, 0). The cave gets
+ * deeper (and so the pile of sand bigger) as the number of paths grows.
+ * Scales by the number of paths.
+ */
+class Day14Generator extends InputGenerator
+{
+  private static final int SOURCE_X = 500;
+  private static final int MIN_Y = 13;
+  private static final int MAX_SEGMENT = 8;
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    //-------------------------------------------------------------------------
+    // The real input is about 170 deep for 123 paths. Keeping the rocks
+    // spread out stops them closing over the source, which would leave no
+    // way for sand to reach the floor.
+    //-------------------------------------------------------------------------
+    final int maxY = MIN_Y + (int)(14 * Math.sqrt(scale));
+    final int halfWidth = maxY / 2;
+
+    for (long i = 0; i < scale; i++)
+    {
+      int x = between(random, SOURCE_X - halfWidth, SOURCE_X + halfWidth);
+      int y = between(random, MIN_Y, maxY);
+      final StringBuilder path = new StringBuilder();
+      path.append(x).append(',').append(y);
+
+      final int segments = between(random, 1, 5);
+      boolean horizontal = random.nextBoolean();
+
+      for (int segment = 0; segment < segments; segment++)
+      {
+        final int length = between(random, 1, MAX_SEGMENT);
+        final int direction = random.nextBoolean() ? 1 : -1;
+
+        if (horizontal)
+        {
+          x += direction * length;
+        }
+        else
+        {
+          y = Math.min(maxY, Math.max(MIN_Y, y + direction * length));
+        }
+
+        path.append(" -> ").append(x).append(',').append(y);
+        horizontal = !horizontal;
+      }
+
+      output.println(path);
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "rock paths"; }
+
+  @Override
+  public long defaultScale() { return 123; }
+}
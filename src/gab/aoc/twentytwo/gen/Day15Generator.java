@@ -0,0 +1,100 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import gab.aoc.util.LongHashSet;
+
+/**
+ * Day 15: sensors and their closest beacons, with exactly one position in
+ * the 0..4000000 square not covered by any sensor - the distress beacon.
+ *
+ * Four sensors, one diagonally off in each direction from the distress
+ * beacon, between them cover the whole square apart from that one spot.
+ * The rest are placed at random, each reaching no further than just short
+ * of the distress beacon. Scales by the number of sensors.
+ */
+class Day15Generator extends InputGenerator
+{
+  private static final int SEARCH_LIMIT = 4000000;
+  private static final int ENCLOSING_SENSORS = 4;
+
+  private static void writeSensor(
+      final PrintWriter output,
+      final long sensorX,
+      final long sensorY,
+      final long beaconX,
+      final long beaconY)
+  {
+    output.println("Sensor at x=" + sensorX + ", y=" + sensorY +
+      ": closest beacon is at x=" + beaconX + ", y=" + beaconY);
+  }
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final int distressX = between(random, 0, SEARCH_LIMIT);
+    final int distressY = between(random, 0, SEARCH_LIMIT);
+    final LongHashSet usedSensors = new LongHashSet();
+
+    //-------------------------------------------------------------------------
+    // A sensor k steps diagonally away, with a range of 2k - 1, covers
+    // everything within k of the distress beacon on that side except the
+    // beacon itself. The range has to reach the edge of the square on both
+    // axes.
+    //-------------------------------------------------------------------------
+    for (final int dx : new int[] { -1, 1 })
+    {
+      for (final int dy : new int[] { -1, 1 })
+      {
+        final int k = Math.max(1, Math.max(
+          (dx > 0) ? (SEARCH_LIMIT - distressX) : distressX,
+          (dy > 0) ? (SEARCH_LIMIT - distressY) : distressY));
+
+        final long sensorX = distressX + (long)dx * k;
+        final long sensorY = distressY + (long)dy * k;
+        usedSensors.add(sensorX * (2L * SEARCH_LIMIT) + sensorY);
+
+        writeSensor(output,
+          sensorX, sensorY, sensorX + (long)dx * (2 * k - 1), sensorY);
+      }
+    }
+
+    long sensors = ENCLOSING_SENSORS;
+
+    while (sensors < scale)
+    {
+      final int sensorX = between(random, 0, SEARCH_LIMIT);
+      final int sensorY = between(random, 0, SEARCH_LIMIT);
+      final int distance =
+        Math.abs(sensorX - distressX) + Math.abs(sensorY - distressY);
+
+      if (distance < 2 ||
+          !usedSensors.add(sensorX * (2L * SEARCH_LIMIT) + sensorY))
+      {
+        continue;
+      }
+
+      //-----------------------------------------------------------------------
+      // Put the beacon anywhere closer than the distress beacon, favouring
+      // the far end so the sensors overlap as in the real input.
+      //-----------------------------------------------------------------------
+      final int range =
+        distance - 1 - random.nextInt(Math.max(1, distance / 4));
+      final int across = random.nextInt(range + 1);
+      final int beaconX = sensorX + (random.nextBoolean() ? across : -across);
+      final int beaconY = sensorY +
+        (random.nextBoolean() ? (range - across) : -(range - across));
+
+      writeSensor(output, sensorX, sensorY, beaconX, beaconY);
+      sensors++;
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "sensors"; }
+
+  @Override
+  public long defaultScale() { return 32; }
+}
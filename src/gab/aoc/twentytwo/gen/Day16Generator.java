@@ -0,0 +1,103 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Day 16: a connected network of valves, including AA (where we start,
+ * with no flow). About a quarter of the valves have a working flow rate, as
+ * in the real input. Scales by the number of valves, up to the 676 two-letter
+ * names there are.
+ */
+class Day16Generator extends InputGenerator
+{
+  private static final String START_VALVE = "AA";
+  private static final int MAX_VALVES = 26 * 26;
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final int valves = (int)Math.min(MAX_VALVES, Math.max(2, scale));
+
+    final List<String> names = new ArrayList<>();
+
+    for (char first = 'A'; first <= 'Z'; first++)
+    {
+      for (char second = 'A'; second <= 'Z'; second++)
+      {
+        names.add("" + first + second);
+      }
+    }
+
+    names.remove(START_VALVE);
+    Collections.shuffle(names, random);
+    names.add(0, START_VALVE);
+
+    //-------------------------------------------------------------------------
+    // A random tree keeps everything reachable, and some extra tunnels add
+    // loops.
+    //-------------------------------------------------------------------------
+    final List<SortedSet<Integer>> tunnels = new ArrayList<>();
+
+    for (int i = 0; i < valves; i++)
+    {
+      tunnels.add(new TreeSet<>());
+
+      if (i > 0)
+      {
+        final int j = random.nextInt(i);
+        tunnels.get(i).add(j);
+        tunnels.get(j).add(i);
+      }
+    }
+
+    for (int extra = 0; extra < valves / 3; extra++)
+    {
+      final int i = random.nextInt(valves);
+      final int j = random.nextInt(valves);
+
+      if (i != j)
+      {
+        tunnels.get(i).add(j);
+        tunnels.get(j).add(i);
+      }
+    }
+
+    final int workingValves = Math.max(1, valves / 4);
+    final List<Integer> order = new ArrayList<>();
+
+    for (int i = 0; i < valves; i++)
+    {
+      order.add(i);
+    }
+
+    Collections.shuffle(order, random);
+
+    for (final int i : order)
+    {
+      final boolean working = (i > 0 && i <= workingValves);
+      final int flowRate = working ? between(random, 3, 25) : 0;
+      final List<String> leadsTo = tunnels.get(i).stream()
+        .map(names::get)
+        .collect(Collectors.toList());
+
+      output.println("Valve " + names.get(i) + " has flow rate=" + flowRate +
+        ((leadsTo.size() == 1) ?
+          "; tunnel leads to valve " : "; tunnels lead to valves ") +
+        String.join(", ", leadsTo));
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "valves"; }
+
+  @Override
+  public long defaultScale() { return 60; }
+}
@@ -0,0 +1,42 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 1: groups of calorie counts, one group per elf, separated by blank
+ * lines. Scales by the number of lines.
+ */
+class Day1Generator extends InputGenerator
+{
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    long lines = 0;
+
+    while (lines < scale)
+    {
+      if (lines > 0)
+      {
+        output.println();
+        lines++;
+      }
+
+      final int items = between(random, 1, 15);
+
+      for (int i = 0; i < items; i++)
+      {
+        output.println(between(random, 1000, 60000));
+      }
+
+      lines += items;
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "lines"; }
+
+  @Override
+  public long defaultScale() { return 2250; }
+}
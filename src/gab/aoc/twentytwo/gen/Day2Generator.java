@@ -0,0 +1,31 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 2: one round of rock-paper-scissors per line. Scales by the number
+ * of rounds.
+ */
+class Day2Generator extends InputGenerator
+{
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final char[] round = { ' ', ' ', ' ' };
+
+    for (long i = 0; i < scale; i++)
+    {
+      round[0] = (char)('A' + random.nextInt(3));
+      round[2] = (char)('X' + random.nextInt(3));
+      output.println(round);
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "rounds"; }
+
+  @Override
+  public long defaultScale() { return 2500; }
+}
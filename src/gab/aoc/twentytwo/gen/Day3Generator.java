@@ -0,0 +1,132 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Day 3: rucksacks, in groups of three. Each rucksack's two compartments
+ * have exactly one item type in common, and each group has exactly one
+ * badge type common to all three rucksacks. Scales by the number of
+ * rucksacks (rounded up to a whole group).
+ */
+class Day3Generator extends InputGenerator
+{
+  private static final String ITEM_TYPES =
+    "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+  private static final int GROUP_SIZE = 3;
+
+  /**
+   * @return a compartment of the given size: the given items, padded out
+   *   with random items from the pool, in random order
+   */
+  private static String compartment(
+      final Random random,
+      final int size,
+      final List<Character> required,
+      final List<Character> pool)
+  {
+    final List<Character> items = new ArrayList<>(required);
+
+    while (items.size() < size)
+    {
+      items.add(pick(random, pool));
+    }
+
+    Collections.shuffle(items, random);
+
+    final StringBuilder compartment = new StringBuilder(size);
+    items.forEach(compartment::append);
+    return compartment.toString();
+  }
+
+  /**
+   * Write a rucksack whose items all come from the given types, which
+   * include the badge.
+   */
+  private static void writeRucksack(
+      final Random random,
+      final PrintWriter output,
+      final List<Character> types,
+      final char badge)
+  {
+    //-------------------------------------------------------------------------
+    // Pick the item that's in both compartments, and split the rest of the
+    // types between the compartments so that nothing else is shared. The
+    // badge has to go in the first compartment, if it's not the shared item.
+    //-------------------------------------------------------------------------
+    final List<Character> remaining = new ArrayList<>(types);
+    final char shared = remaining.remove(random.nextInt(remaining.size()));
+    remaining.remove(Character.valueOf(badge));
+    Collections.shuffle(remaining, random);
+
+    final int half = remaining.size() / 2;
+    final List<Character> firstPool =
+      new ArrayList<>(remaining.subList(0, half));
+    final List<Character> secondPool =
+      new ArrayList<>(remaining.subList(half, remaining.size()));
+
+    final List<Character> firstRequired = new ArrayList<>();
+    firstRequired.add(shared);
+
+    if (shared != badge)
+    {
+      firstPool.add(badge);
+      firstRequired.add(badge);
+    }
+
+    final int size = between(random, 4, 16);
+
+    output.print(compartment(random, size, firstRequired, firstPool));
+    output.println(compartment(
+      random, size, Collections.singletonList(shared), secondPool));
+  }
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final List<Character> allTypes = new ArrayList<>();
+
+    for (final char type : ITEM_TYPES.toCharArray())
+    {
+      allTypes.add(type);
+    }
+
+    for (long rucksacks = 0; rucksacks < scale; rucksacks += GROUP_SIZE)
+    {
+      //-----------------------------------------------------------------------
+      // Split the non-badge types into three parts, and give each rucksack
+      // two of them. Any two rucksacks then share a part, but no type
+      // other than the badge is in all three.
+      //-----------------------------------------------------------------------
+      final List<Character> others = new ArrayList<>(allTypes);
+      final char badge = others.remove(random.nextInt(others.size()));
+      Collections.shuffle(others, random);
+
+      final int partSize = others.size() / GROUP_SIZE;
+
+      for (int i = 0; i < GROUP_SIZE; i++)
+      {
+        final List<Character> types = new ArrayList<>();
+        types.add(badge);
+
+        for (final int part : new int[] { i, (i + 1) % GROUP_SIZE })
+        {
+          types.addAll(others.subList(part * partSize, (part + 1) * partSize));
+        }
+
+        writeRucksack(random, output, types, badge);
+      }
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "rucksacks"; }
+
+  @Override
+  public long defaultScale() { return 300; }
+}
@@ -0,0 +1,35 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 4: pairs of section ranges. Scales by the number of pairs.
+ */
+class Day4Generator extends InputGenerator
+{
+  private static final int MAX_SECTION = 99;
+
+  private static String range(final Random random)
+  {
+    final int start = between(random, 1, MAX_SECTION);
+    final int end = between(random, start, MAX_SECTION);
+    return start + "-" + end;
+  }
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    for (long i = 0; i < scale; i++)
+    {
+      output.println(range(random) + "," + range(random));
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "pairs"; }
+
+  @Override
+  public long defaultScale() { return 1000; }
+}
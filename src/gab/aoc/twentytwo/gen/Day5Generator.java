@@ -0,0 +1,90 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Day 5: nine stacks of crates, then the moves. No move ever empties a
+ * stack, so that every stack has a crate on top at the end. Scales by the
+ * number of moves.
+ */
+class Day5Generator extends InputGenerator
+{
+  private static final int STACKS = 9;
+  private static final int MAX_START_HEIGHT = 8;
+  private static final int MAX_MOVE = 30;
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final int[] heights = new int[STACKS];
+
+    for (int i = 0; i < STACKS; i++)
+    {
+      heights[i] = between(random, 2, MAX_START_HEIGHT);
+    }
+
+    //-------------------------------------------------------------------------
+    // The crates are drawn from the top row down.
+    //-------------------------------------------------------------------------
+    for (int row = MAX_START_HEIGHT; row > 0; row--)
+    {
+      final StringBuilder line = new StringBuilder();
+
+      for (int i = 0; i < STACKS; i++)
+      {
+        line.append((i == 0) ? "" : " ");
+        line.append((heights[i] >= row) ?
+          ("[" + (char)('A' + random.nextInt(26)) + "]") : "   ");
+      }
+
+      output.println(line);
+    }
+
+    final StringBuilder labels = new StringBuilder();
+
+    for (int i = 1; i <= STACKS; i++)
+    {
+      labels.append(" ").append(i).append("  ");
+    }
+
+    output.println(labels.substring(0, labels.length() - 1));
+    output.println();
+
+    //-------------------------------------------------------------------------
+    // There are always at least twice as many crates as stacks, so there's
+    // always a stack that can spare one.
+    //-------------------------------------------------------------------------
+    for (long move = 0; move < scale; move++)
+    {
+      final List<Integer> sources = new ArrayList<>();
+
+      for (int i = 0; i < STACKS; i++)
+      {
+        if (heights[i] > 1)
+        {
+          sources.add(i);
+        }
+      }
+
+      final int from = pick(random, sources);
+      final int to = (from + between(random, 1, STACKS - 1)) % STACKS;
+      final int count =
+        between(random, 1, Math.min(MAX_MOVE, heights[from] - 1));
+
+      heights[from] -= count;
+      heights[to] += count;
+      output.println(
+        "move " + count + " from " + (from + 1) + " to " + (to + 1));
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "moves"; }
+
+  @Override
+  public long defaultScale() { return 504; }
+}
@@ -0,0 +1,46 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Day 6: a single line of characters, where both markers only turn up at
+ * the very end - everything before them is drawn from just three letters,
+ * so no earlier window can be a marker. Scales by the number of characters.
+ */
+class Day6Generator extends InputGenerator
+{
+  private static final int MESSAGE_MARKER_LENGTH = 14;
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final long length = Math.max(scale, MESSAGE_MARKER_LENGTH);
+
+    for (long i = 0; i < length - MESSAGE_MARKER_LENGTH; i++)
+    {
+      output.print((char)('a' + random.nextInt(3)));
+    }
+
+    final List<Character> marker = new ArrayList<>();
+
+    for (char c = 'a'; c <= 'z'; c++)
+    {
+      marker.add(c);
+    }
+
+    Collections.shuffle(marker, random);
+    marker.subList(0, MESSAGE_MARKER_LENGTH).forEach(output::print);
+    output.println();
+  }
+
+  @Override
+  public String scaleUnit() { return "characters"; }
+
+  @Override
+  public long defaultScale() { return 4096; }
+}
@@ -0,0 +1,138 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Day 7: a terminal session exploring a random directory tree. File sizes
+ * are scaled so the total is between 40,000,000 and 70,000,000, which is
+ * what part 2 needs for there to be a directory worth deleting. Scales by
+ * the number of directories.
+ */
+class Day7Generator extends InputGenerator
+{
+  private static final long MIN_TOTAL_SIZE = 45000000L;
+  private static final long MAX_TOTAL_SIZE = 65000000L;
+
+  private static class Directory
+  {
+    private final String name;
+    private final List<Directory> subdirectories = new ArrayList<>();
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<Long> fileSizes = new ArrayList<>();
+    private final Set<String> usedNames = new HashSet<>();
+
+    public Directory(final String name)
+    {
+      this.name = name;
+    }
+
+    /**
+     * @return a random name that isn't used yet in this directory
+     */
+    public String newName(final Random random, final boolean withExtension)
+    {
+      String name;
+
+      do
+      {
+        name = randomName(random, between(random, 1, 8));
+
+        if (withExtension)
+        {
+          name += "." + randomName(random, 3);
+        }
+      }
+      while (!this.usedNames.add(name));
+
+      return name;
+    }
+  }
+
+  /**
+   * Write the commands to list the given directory, then explore each of
+   * its subdirectories in turn.
+   */
+  private static void explore(
+      final Directory directory, final PrintWriter output)
+  {
+    output.println("$ ls");
+
+    for (final Directory subdirectory : directory.subdirectories)
+    {
+      output.println("dir " + subdirectory.name);
+    }
+
+    for (int i = 0; i < directory.fileNames.size(); i++)
+    {
+      output.println(
+        directory.fileSizes.get(i) + " " + directory.fileNames.get(i));
+    }
+
+    for (final Directory subdirectory : directory.subdirectories)
+    {
+      output.println("$ cd " + subdirectory.name);
+      explore(subdirectory, output);
+      output.println("$ cd ..");
+    }
+  }
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final Directory root = new Directory("/");
+    final List<Directory> directories = new ArrayList<>();
+    directories.add(root);
+
+    for (long i = 1; i < scale; i++)
+    {
+      final Directory parent = pick(random, directories);
+      final Directory directory = new Directory(parent.newName(random, false));
+      parent.subdirectories.add(directory);
+      directories.add(directory);
+    }
+
+    //-------------------------------------------------------------------------
+    // Give each directory a few files with random sizes, then scale the
+    // sizes to hit the total that we're aiming for.
+    //-------------------------------------------------------------------------
+    long rawTotal = 0;
+
+    for (final Directory directory : directories)
+    {
+      final int files = between(random, (directory == root) ? 1 : 0, 5);
+
+      for (int i = 0; i < files; i++)
+      {
+        final long size = between(random, 1, 300000);
+        final String name = directory.newName(random, random.nextBoolean());
+        directory.fileNames.add(name);
+        directory.fileSizes.add(size);
+        rawTotal += size;
+      }
+    }
+
+    final double sizeFactor = (MIN_TOTAL_SIZE +
+      random.nextDouble() * (MAX_TOTAL_SIZE - MIN_TOTAL_SIZE)) / rawTotal;
+
+    for (final Directory directory : directories)
+    {
+      directory.fileSizes.replaceAll(
+        size -> Math.max(1L, (long)(size * sizeFactor)) );
+    }
+
+    output.println("$ cd /");
+    explore(root, output);
+  }
+
+  @Override
+  public String scaleUnit() { return "directories"; }
+
+  @Override
+  public long defaultScale() { return 200; }
+}
@@ -0,0 +1,33 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 8: a square forest of tree heights. Scales by the side of the square.
+ */
+class Day8Generator extends InputGenerator
+{
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    final char[] row = new char[(int)scale];
+
+    for (long y = 0; y < scale; y++)
+    {
+      for (int x = 0; x < row.length; x++)
+      {
+        row[x] = (char)('0' + random.nextInt(10));
+      }
+
+      output.println(row);
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "trees per side"; }
+
+  @Override
+  public long defaultScale() { return 99; }
+}
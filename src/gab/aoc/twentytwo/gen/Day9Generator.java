@@ -0,0 +1,31 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Day 9: rope head moves. Scales by the number of moves.
+ */
+class Day9Generator extends InputGenerator
+{
+  private static final String DIRECTIONS = "UDLR";
+  private static final int MAX_STEPS = 20;
+
+  @Override
+  public void generate(
+      final long scale, final Random random, final PrintWriter output)
+  {
+    for (long i = 0; i < scale; i++)
+    {
+      output.print(DIRECTIONS.charAt(random.nextInt(DIRECTIONS.length())));
+      output.print(' ');
+      output.println(between(random, 1, MAX_STEPS));
+    }
+  }
+
+  @Override
+  public String scaleUnit() { return "moves"; }
+
+  @Override
+  public long defaultScale() { return 2000; }
+}
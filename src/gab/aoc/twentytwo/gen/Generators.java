@@ -0,0 +1,95 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Finds the input generator for each day, and writes generated inputs to a
+ * file or to standard output.
+ */
+public final class Generators
+{
+  private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+  private Generators() {}
+
+  /**
+   * @return the generator for the given day
+   */
+  public static InputGenerator forDay(final int day)
+  {
+    switch (day)
+    {
+      case 1: return new Day1Generator();
+      case 2: return new Day2Generator();
+      case 3: return new Day3Generator();
+      case 4: return new Day4Generator();
+      case 5: return new Day5Generator();
+      case 6: return new Day6Generator();
+      case 7: return new Day7Generator();
+      case 8: return new Day8Generator();
+      case 9: return new Day9Generator();
+      case 10: return new Day10Generator();
+      case 11: return new Day11Generator();
+      case 12: return new Day12Generator();
+      case 13: return new Day13Generator();
+      case 14: return new Day14Generator();
+      case 15: return new Day15Generator();
+      case 16: return new Day16Generator();
+      default:
+        throw new IllegalArgumentException("No generator for day " + day);
+    }
+  }
+
+  /**
+   * Generate an input and write it to the given file, or to standard output
+   * if the file is "-".
+   */
+  public static void write(
+      final InputGenerator generator,
+      final long scale,
+      final long seed,
+      final String destination) throws IOException
+  {
+    final boolean toStandardOutput = "-".equals(destination);
+
+    final Writer writer = toStandardOutput ?
+      new OutputStreamWriter(System.out, StandardCharsets.US_ASCII) :
+      Files.newBufferedWriter(
+        Paths.get(destination), StandardCharsets.US_ASCII);
+
+    final PrintWriter output =
+      new PrintWriter(new BufferedWriter(writer, WRITE_BUFFER_SIZE));
+
+    try
+    {
+      generator.generate(scale, new Random(seed), output);
+    }
+    finally
+    {
+      if (toStandardOutput)
+      {
+        output.flush();
+      }
+      else
+      {
+        output.close();
+      }
+    }
+
+    //-------------------------------------------------------------------------
+    // PrintWriter swallows write failures, so we have to ask.
+    //-------------------------------------------------------------------------
+    if (output.checkError())
+    {
+      throw new IOException("Failed to write generated input");
+    }
+  }
+}
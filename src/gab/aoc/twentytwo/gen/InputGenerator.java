@@ -0,0 +1,64 @@
+package gab.aoc.twentytwo.gen;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes a synthetic, valid input file for one day, at a chosen scale. The
+ * same seed always gives the same input, so generated inputs can be
+ * recreated rather than stored.
+ *
+ * What the scale counts depends on the day (lines, grid side, sensors...),
+ * so that each day can be pushed towards whatever makes it slow.
+ */
+public abstract class InputGenerator
+{
+  /**
+   * Write an input of the given scale to the output.
+   */
+  public abstract void generate(
+    long scale, Random random, PrintWriter output);
+
+  /**
+   * @return what the scale counts, for the usage text (e.g. "lines")
+   */
+  public abstract String scaleUnit();
+
+  /**
+   * @return a scale similar to the real puzzle input
+   */
+  public abstract long defaultScale();
+
+  /**
+   * @return a random number between the two bounds, inclusive
+   */
+  protected static int between(
+      final Random random, final int min, final int max)
+  {
+    return min + random.nextInt(max - min + 1);
+  }
+
+  /**
+   * @return a random element of the list
+   */
+  protected static <T> T pick(final Random random, final List<T> list)
+  {
+    return list.get(random.nextInt(list.size()));
+  }
+
+  /**
+   * @return a random lower-case name of the given length
+   */
+  protected static String randomName(final Random random, final int length)
+  {
+    final char[] name = new char[length];
+
+    for (int i = 0; i < length; i++)
+    {
+      name[i] = (char)('a' + random.nextInt(26));
+    }
+
+    return new String(name);
+  }
+}
@@ -0,0 +1,332 @@
+package gab.aoc.util;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * A cursor over ASCII input, for parsing without creating Strings, arrays
+ * or boxed numbers for every line. Reads go straight from the buffer, so a
+ * memory-mapped input file can be parsed without copying it, and nothing
+ * is allocated unless the input turns out to be malformed.
+ *
+ * Lines end with "\n" or "\r\n". Malformed input is reported as an
+ * InputFileException giving the offset in the input.
+ *
+ * Input too big for one buffer can be scanned from a series of windows (see
+ * InputWindows), each ending at the end of a line. The cursor moves from one
+ * window to the next as it reaches the end of each, and nothing here looks
+ * past the end of a line, so the windows read as a single input.
+ */
+public class AsciiScanner
+{
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+
+  private static final ByteBuffer NO_INPUT = ByteBuffer.allocate(0);
+
+  private final Iterator<ByteBuffer> windows;
+  private ByteBuffer buffer;
+  private int limit;
+  private int position;
+
+  /**
+   * The offset in the input of the start of the current window.
+   */
+  private long windowOffset = 0;
+
+  /**
+   * Scan the buffer between its current position and limit. The buffer
+   * itself is never modified.
+   */
+  public AsciiScanner(final ByteBuffer buffer)
+  {
+    this(buffer, Collections.<ByteBuffer>emptyIterator());
+  }
+
+  /**
+   * Scan each of the windows in turn, as one input. No line may be split
+   * between windows.
+   */
+  public AsciiScanner(final Iterator<ByteBuffer> windows)
+  {
+    this(windows.hasNext() ? windows.next() : NO_INPUT, windows);
+  }
+
+  private AsciiScanner(
+      final ByteBuffer first, final Iterator<ByteBuffer> windows)
+  {
+    this.windows = windows;
+    this.buffer = first;
+    this.position = first.position();
+    this.limit = first.limit();
+  }
+
+  public AsciiScanner(final byte[] bytes)
+  {
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  private InputFileException error(final String problem)
+  {
+    return error(problem, position());
+  }
+
+  private static InputFileException error(
+      final String problem, final long offset)
+  {
+    return new InputFileException(problem + " at offset " + offset);
+  }
+
+  /**
+   * @return true if there is any input left
+   */
+  public boolean hasRemaining()
+  {
+    return this.position < this.limit || nextWindow();
+  }
+
+  /**
+   * Move on to the next window that has anything in it, if there is one.
+   *
+   * @return true if there is one
+   */
+  private boolean nextWindow()
+  {
+    while (this.windows.hasNext())
+    {
+      this.windowOffset += this.limit;
+      this.buffer = this.windows.next();
+      this.position = this.buffer.position();
+      this.limit = this.buffer.limit();
+
+      if (this.position < this.limit)
+      {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @return the offset of the cursor in the input
+   */
+  public long position()
+  {
+    return this.windowOffset + this.position;
+  }
+
+  /**
+   * @return the next byte, without moving past it
+   */
+  public byte peek()
+  {
+    if (!hasRemaining())
+    {
+      throw error("Unexpected end of input");
+    }
+
+    return this.buffer.get(this.position);
+  }
+
+  /**
+   * @return the next byte, moving past it
+   */
+  public byte nextByte()
+  {
+    final byte next = peek();
+    this.position++;
+    return next;
+  }
+
+  /**
+   * @return true if the cursor is at the end of a line (or of the input)
+   */
+  public boolean atEol()
+  {
+    if (!hasRemaining())
+    {
+      return true;
+    }
+
+    final byte next = this.buffer.get(this.position);
+
+    return next == LF ||
+      (next == CR && (this.position + 1 == this.limit ||
+                      this.buffer.get(this.position + 1) == LF));
+  }
+
+  /**
+   * Move to the start of the next line, skipping anything left on this one.
+   */
+  public void nextLine()
+  {
+    while (hasRemaining() && this.buffer.get(this.position) != LF)
+    {
+      this.position++;
+    }
+
+    if (hasRemaining())
+    {
+      this.position++;
+    }
+  }
+
+  /**
+   * Move forward to the next occurrence of the given byte, leaving the
+   * cursor on it - or to the end of the input, if there isn't one.
+   */
+  public void skipUntil(final byte target)
+  {
+    while (hasRemaining() && this.buffer.get(this.position) != target)
+    {
+      this.position++;
+    }
+  }
+
+  /**
+   * Move past any spaces.
+   */
+  public void skipSpaces()
+  {
+    while (hasRemaining() && this.buffer.get(this.position) == ' ')
+    {
+      this.position++;
+    }
+  }
+
+  /**
+   * Move past the given byte, which must be next.
+   */
+  public void expect(final byte expected)
+  {
+    if (!hasRemaining() || this.buffer.get(this.position) != expected)
+    {
+      throw error("Expected '" + (char)expected + "'");
+    }
+
+    this.position++;
+  }
+
+  /**
+   * Move past the given text, which must be next (and on this line).
+   */
+  public void expect(final String literal)
+  {
+    final int length = literal.length();
+
+    if (!hasRemaining() || this.limit - this.position < length)
+    {
+      throw error("Expected \"" + literal + "\"");
+    }
+
+    for (int i = 0; i < length; i++)
+    {
+      if (this.buffer.get(this.position + i) != literal.charAt(i))
+      {
+        throw error("Expected \"" + literal + "\"");
+      }
+    }
+
+    this.position += length;
+  }
+
+  /**
+   * @return true if the given text is next (and on this line), in which
+   *   case the cursor moves past it
+   */
+  public boolean tryExpect(final String literal)
+  {
+    final int length = literal.length();
+
+    if (!hasRemaining() || this.limit - this.position < length)
+    {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++)
+    {
+      if (this.buffer.get(this.position + i) != literal.charAt(i))
+      {
+        return false;
+      }
+    }
+
+    this.position += length;
+    return true;
+  }
+
+  /**
+   * Read a decimal number, with an optional leading '-', up to but not
+   * including the first byte that isn't a digit.
+   *
+   * @return the number
+   */
+  public long nextLong()
+  {
+    final boolean negative =
+      hasRemaining() && this.buffer.get(this.position) == '-';
+
+    if (negative)
+    {
+      this.position++;
+    }
+
+    //-------------------------------------------------------------------------
+    // Accumulate as a negative number, which has the larger range, so that
+    // Long.MIN_VALUE can be read.
+    //-------------------------------------------------------------------------
+    long value = 0;
+    int digits = 0;
+
+    while (hasRemaining())
+    {
+      final int digit = this.buffer.get(this.position) - '0';
+
+      if (digit < 0 || digit > 9)
+      {
+        break;
+      }
+
+      if (value < (Long.MIN_VALUE + digit) / 10)
+      {
+        throw error("Number too large");
+      }
+
+      value = value * 10 - digit;
+      this.position++;
+      digits++;
+    }
+
+    if (digits == 0)
+    {
+      throw error("Expected a number");
+    }
+
+    if (!negative && value == Long.MIN_VALUE)
+    {
+      throw error("Number too large");
+    }
+
+    return negative ? value : -value;
+  }
+
+  /**
+   * Read a decimal number, as for nextLong, which must fit in an int.
+   *
+   * @return the number
+   */
+  public int nextInt()
+  {
+    final long start = position();
+    final long value = nextLong();
+
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+    {
+      throw error("Number too large", start);
+    }
+
+    return (int)value;
+  }
+}
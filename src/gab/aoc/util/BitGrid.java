@@ -0,0 +1,92 @@
+package gab.aoc.util;
+
+/**
+ * A grid of flags, one bit per cell, packed 64 to a long - e.g. which cells
+ * are occupied. A 1000x1000 grid takes 125KB, where a set of a million
+ * Coordinates would take tens of megabytes.
+ */
+public class BitGrid extends Grid
+{
+  private final long[] words;
+
+  public BitGrid(final int width, final int height)
+  {
+    this(0, 0, width, height);
+  }
+
+  public BitGrid(
+      final int minX, final int minY, final int width, final int height)
+  {
+    super(minX, minY, width, height);
+    this.words = new long[(int)((size() + 63L) >>> 6)];
+  }
+
+  private BitGrid(final BitGrid original)
+  {
+    super(original.minX(), original.minY(), original.width(),
+      original.height());
+    this.words = original.words.clone();
+  }
+
+  /**
+   * @return an empty grid of the same shape as the given one
+   */
+  public static BitGrid sameShapeAs(final Grid shape)
+  {
+    return new BitGrid(
+      shape.minX(), shape.minY(), shape.width(), shape.height());
+  }
+
+  public boolean get(final int x, final int y)
+  {
+    return getAt(index(x, y));
+  }
+
+  public void set(final int x, final int y)
+  {
+    setAt(index(x, y));
+  }
+
+  public void clear(final int x, final int y)
+  {
+    clearAt(index(x, y));
+  }
+
+  public boolean getAt(final int index)
+  {
+    return (this.words[index >>> 6] & (1L << index)) != 0;
+  }
+
+  public void setAt(final int index)
+  {
+    this.words[index >>> 6] |= (1L << index);
+  }
+
+  public void clearAt(final int index)
+  {
+    this.words[index >>> 6] &= ~(1L << index);
+  }
+
+  /**
+   * @return the number of cells that are set
+   */
+  public int cardinality()
+  {
+    int count = 0;
+
+    for (final long word : this.words)
+    {
+      count += Long.bitCount(word);
+    }
+
+    return count;
+  }
+
+  /**
+   * @return a new grid, of the same shape, with the same cells set
+   */
+  public BitGrid copy()
+  {
+    return new BitGrid(this);
+  }
+}
@@ -0,0 +1,22 @@
+package gab.aoc.util;
+
+/**
+ * Read and write access, by x,y coordinate, to a rectangular grid of bytes
+ * - whether they're held on the heap (ByteGrid) or off it
+ * (OffHeapByteGrid), so that code walking a grid needn't care which it has.
+ */
+public interface ByteCells
+{
+  int minX();
+  int minY();
+  int maxX();
+  int maxY();
+  int width();
+  int height();
+
+  boolean contains(int x, int y);
+
+  byte get(int x, int y);
+
+  void set(int x, int y, byte value);
+}
@@ -0,0 +1,133 @@
+package gab.aoc.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * A grid of bytes, one per cell - e.g. the characters of a map read from
+ * the input, or small numbers such as heights. Grids too big for a single
+ * array can be held in an OffHeapByteGrid instead.
+ */
+public class ByteGrid extends Grid implements ByteCells
+{
+  private final byte[] cells;
+
+  public ByteGrid(final int width, final int height)
+  {
+    this(0, 0, width, height);
+  }
+
+  public ByteGrid(
+      final int minX, final int minY, final int width, final int height)
+  {
+    super(minX, minY, width, height);
+    this.cells = new byte[size()];
+  }
+
+  private ByteGrid(final ByteGrid original)
+  {
+    super(original.minX(), original.minY(), original.width(),
+      original.height());
+    this.cells = original.cells.clone();
+  }
+
+  /**
+   * Build a grid straight from ASCII input, with one row per line and one
+   * cell per character, starting at 0,0 in the top left. The characters
+   * are copied as they are, without any decoding.
+   *
+   * @throws InputFileException if the lines aren't all the same length
+   */
+  public static ByteGrid fromInput(final ByteBuffer input)
+  {
+    return fromInput(Collections.singletonList(input));
+  }
+
+  /**
+   * Build a grid from ASCII input in any number of windows (e.g. from
+   * InputWindows), as for fromInput(ByteBuffer).
+   */
+  public static ByteGrid fromInput(final Iterable<ByteBuffer> input)
+  {
+    final List<ByteBuffer> rows = new ArrayList<>();
+
+    for (final ByteBuffer window : input)
+    {
+      new ByteLines(window).forEach(rows::add);
+    }
+
+    final int width = rows.isEmpty() ? 0 : rows.get(0).remaining();
+    final ByteGrid grid = new ByteGrid(width, rows.size());
+
+    for (int y = 0; y < rows.size(); y++)
+    {
+      final ByteBuffer row = rows.get(y);
+
+      if (row.remaining() != width)
+      {
+        throw new InputFileException("Line " + (y + 1) + " has " +
+          row.remaining() + " characters, expected " + width);
+      }
+
+      row.get(grid.cells, y * width, width);
+    }
+
+    return grid;
+  }
+
+  @Override
+  public byte get(final int x, final int y)
+  {
+    return this.cells[index(x, y)];
+  }
+
+  @Override
+  public void set(final int x, final int y, final byte value)
+  {
+    this.cells[index(x, y)] = value;
+  }
+
+  public byte getAt(final int index)
+  {
+    return this.cells[index];
+  }
+
+  public void setAt(final int index, final byte value)
+  {
+    this.cells[index] = value;
+  }
+
+  public void fill(final byte value)
+  {
+    Arrays.fill(this.cells, value);
+  }
+
+  /**
+   * @return the index of the first cell (in row order) holding the given
+   *   value, if there is one
+   */
+  public OptionalInt find(final byte value)
+  {
+    for (int i = 0; i < this.cells.length; i++)
+    {
+      if (this.cells[i] == value)
+      {
+        return OptionalInt.of(i);
+      }
+    }
+
+    return OptionalInt.empty();
+  }
+
+  /**
+   * @return a new grid, of the same shape, with the same contents
+   */
+  public ByteGrid copy()
+  {
+    return new ByteGrid(this);
+  }
+}
@@ -0,0 +1,90 @@
+package gab.aoc.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the newline-separated records in a buffer of ASCII input,
+ * as views onto the original buffer. Nothing is copied or decoded, so this
+ * is suitable for large memory-mapped inputs.
+ *
+ * Each record excludes its end-of-line characters ("\n" or "\r\n"). As with
+ * Files.readAllLines, a newline at the very end of the input doesn't
+ * produce an extra empty record.
+ */
+public class ByteLines implements Iterable<ByteBuffer>
+{
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+
+  private final ByteBuffer buffer;
+
+  /**
+   * Records are read between the buffer's current position and limit. The
+   * buffer itself is never modified.
+   */
+  public ByteLines(final ByteBuffer buffer)
+  {
+    this.buffer = buffer;
+  }
+
+  /**
+   * @return a read-only view of the given range of the buffer
+   */
+  private ByteBuffer view(final int start, final int end)
+  {
+    //-------------------------------------------------------------------------
+    // The casts to Buffer are deliberate: ByteBuffer only overrides
+    // position/limit from Java 9 onwards, so calling them directly would
+    // fail at runtime on Java 8.
+    //-------------------------------------------------------------------------
+    final ByteBuffer view = this.buffer.asReadOnlyBuffer();
+    ((Buffer)view).limit(end);
+    ((Buffer)view).position(start);
+    return view.slice();
+  }
+
+  @Override
+  public Iterator<ByteBuffer> iterator()
+  {
+    return new Iterator<ByteBuffer>()
+    {
+      private int nextStart = ByteLines.this.buffer.position();
+
+      @Override
+      public boolean hasNext()
+      {
+        return this.nextStart < ByteLines.this.buffer.limit();
+      }
+
+      @Override
+      public ByteBuffer next()
+      {
+        if (!hasNext())
+        {
+          throw new NoSuchElementException();
+        }
+
+        final int start = this.nextStart;
+        final int limit = ByteLines.this.buffer.limit();
+        int end = start;
+
+        while (end < limit && ByteLines.this.buffer.get(end) != LF)
+        {
+          end++;
+        }
+
+        this.nextStart = end + 1;
+
+        if (end > start && ByteLines.this.buffer.get(end - 1) == CR)
+        {
+          end--;
+        }
+
+        return view(start, end);
+      }
+    };
+  }
+}
@@ -0,0 +1,45 @@
+package gab.aoc.util;
+
+/**
+ * Lets one thread ask a long-running task on another thread to stop. The
+ * task has to co-operate, by calling checkCancelled now and then from its
+ * long-running loops - it's cheap enough to call on every iteration.
+ */
+public class CancellationToken
+{
+  private volatile String reason = null;
+
+  /**
+   * Ask the task to stop, for the given reason. Only the first reason is
+   * kept.
+   */
+  public void cancel(final String cancelReason)
+  {
+    synchronized (this)
+    {
+      if (this.reason == null)
+      {
+        this.reason = cancelReason;
+      }
+    }
+  }
+
+  public boolean isCancelled()
+  {
+    return this.reason != null;
+  }
+
+  /**
+   * Stop the task, by throwing TaskCancelledException, if it has been
+   * cancelled.
+   */
+  public void checkCancelled()
+  {
+    final String cancelReason = this.reason;
+
+    if (cancelReason != null)
+    {
+      throw new TaskCancelledException(cancelReason);
+    }
+  }
+}
@@ -1,7 +1,10 @@
 package gab.aoc.util;
 
-import java.util.Arrays;
-
+/**
+ * An x,y position on a grid. Where there are lots of them (e.g. in sets of
+ * grid cells), they can be packed into longs with pack, and held in the
+ * primitive long collections instead.
+ */
 public class Coordinate
 {
   private final int x;
@@ -16,6 +19,41 @@ public class Coordinate
   public int x() { return this.x; }
   public int y() { return this.y; }
 
+  /**
+   * @return x and y packed into a long, x in the high half and y in the
+   *   low half. Distinct coordinates always pack to distinct longs.
+   */
+  public static long pack(final int x, final int y)
+  {
+    return ((long)x << 32) | (y & 0xffffffffL);
+  }
+
+  public static int unpackX(final long packed)
+  {
+    return (int)(packed >> 32);
+  }
+
+  public static int unpackY(final long packed)
+  {
+    return (int)packed;
+  }
+
+  /**
+   * @return the coordinate packed with pack
+   */
+  public static Coordinate unpack(final long packed)
+  {
+    return new Coordinate(unpackX(packed), unpackY(packed));
+  }
+
+  /**
+   * @return this coordinate packed into a long
+   */
+  public long packed()
+  {
+    return pack(this.x, this.y);
+  }
+
   public int manhattanDistanceTo(final Coordinate c)
   {
     return Math.abs(this.x() - c.x()) + Math.abs(this.y() - c.y());
@@ -41,6 +79,10 @@ public class Coordinate
   @Override
   public int hashCode()
   {
-    return Arrays.hashCode(new int[] { this.x(), this.y()});
+    //-------------------------------------------------------------------------
+    // The same value as Arrays.hashCode of { x, y }, without allocating the
+    // array on every call.
+    //-------------------------------------------------------------------------
+    return 31 * (31 + this.x) + this.y;
   }
 }
@@ -0,0 +1,147 @@
+package gab.aoc.util;
+
+import java.util.Arrays;
+
+/**
+ * A directed graph whose nodes are ints from zero to nodeCount - 1, held in
+ * compressed sparse row form: the edges are sorted by the node they come
+ * from, and stored as one array of targets (and one of weights) for the
+ * whole graph, with an array saying where each node's edges start. A
+ * million edges take 8MB, and walking a node's edges is a scan over
+ * adjacent array elements.
+ *
+ * The graph can't be changed once it's built. Edges are collected in an
+ * Edges list first, and then built into a graph with fromEdges.
+ */
+public class CsrGraph
+{
+  /**
+   * A growable list of edges, for building a graph from.
+   */
+  public static class Edges
+  {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] from = new int[DEFAULT_CAPACITY];
+    private int[] to = new int[DEFAULT_CAPACITY];
+    private int[] weights = new int[DEFAULT_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Add an edge with a weight of 1.
+     */
+    public void add(final int fromNode, final int toNode)
+    {
+      add(fromNode, toNode, 1);
+    }
+
+    public void add(final int fromNode, final int toNode, final int weight)
+    {
+      if (fromNode < 0 || toNode < 0 || weight < 0)
+      {
+        throw new IllegalArgumentException(
+          "Bad edge: " + fromNode + " to " + toNode + " weighing " + weight);
+      }
+
+      if (this.size == this.from.length)
+      {
+        //---------------------------------------------------------------------
+        // Grow by half again, as LongArrayList does.
+        //---------------------------------------------------------------------
+        final int newCapacity = this.size + (this.size >> 1);
+        this.from = Arrays.copyOf(this.from, newCapacity);
+        this.to = Arrays.copyOf(this.to, newCapacity);
+        this.weights = Arrays.copyOf(this.weights, newCapacity);
+      }
+
+      this.from[this.size] = fromNode;
+      this.to[this.size] = toNode;
+      this.weights[this.size] = weight;
+      this.size++;
+    }
+
+    public int size() { return this.size; }
+  }
+
+  private final int[] offsets;
+  private final int[] targets;
+  private final int[] weights;
+
+  private CsrGraph(
+      final int[] offsets, final int[] targets, final int[] weights)
+  {
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+  }
+
+  /**
+   * Build a graph of the given number of nodes from a list of edges. The
+   * edges from each node keep the order they were added in.
+   */
+  public static CsrGraph fromEdges(final int nodeCount, final Edges edges)
+  {
+    if (nodeCount < 0)
+    {
+      throw new IllegalArgumentException("Bad node count: " + nodeCount);
+    }
+
+    //-------------------------------------------------------------------------
+    // Count the edges from each node, and turn the counts into offsets (a
+    // counting sort), so each edge can be dropped straight into place.
+    //-------------------------------------------------------------------------
+    final int[] offsets = new int[nodeCount + 1];
+
+    for (int e = 0; e < edges.size; e++)
+    {
+      if (edges.from[e] >= nodeCount || edges.to[e] >= nodeCount)
+      {
+        throw new IllegalArgumentException("Edge " + edges.from[e] +
+          " to " + edges.to[e] + " is outside " + nodeCount + " nodes");
+      }
+
+      offsets[edges.from[e] + 1]++;
+    }
+
+    for (int n = 0; n < nodeCount; n++)
+    {
+      offsets[n + 1] += offsets[n];
+    }
+
+    final int[] next = Arrays.copyOf(offsets, nodeCount);
+    final int[] targets = new int[edges.size];
+    final int[] weights = new int[edges.size];
+
+    for (int e = 0; e < edges.size; e++)
+    {
+      final int slot = next[edges.from[e]]++;
+      targets[slot] = edges.to[e];
+      weights[slot] = edges.weights[e];
+    }
+
+    return new CsrGraph(offsets, targets, weights);
+  }
+
+  public int nodeCount() { return this.offsets.length - 1; }
+  public int edgeCount() { return this.targets.length; }
+
+  /**
+   * @return the index of the first edge from the given node. Its edges run
+   *   from here up to (but not including) edgesEnd.
+   */
+  public int edgesStart(final int node) { return this.offsets[node]; }
+
+  public int edgesEnd(final int node) { return this.offsets[node + 1]; }
+
+  public int degree(final int node)
+  {
+    return this.offsets[node + 1] - this.offsets[node];
+  }
+
+  /**
+   * @return the node the given edge leads to
+   */
+  public int target(final int edge) { return this.targets[edge]; }
+
+  public int weight(final int edge) { return this.weights[edge]; }
+}
@@ -0,0 +1,76 @@
+package gab.aoc.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * The number of garbage collections, and the time spent in them, summed
+ * over every collector. Take a snapshot before and after some work and use
+ * 'since' to get the difference.
+ *
+ * Unlike ThreadUsage these are for the whole JVM, so when several tasks run
+ * at once each one's figures include collections caused by the others.
+ */
+public class GcUsage
+{
+  private final long collections;
+  private final long collectionMillis;
+
+  private GcUsage(final long collections, final long collectionMillis)
+  {
+    this.collections = collections;
+    this.collectionMillis = collectionMillis;
+  }
+
+  /**
+   * @return a snapshot of the collections so far
+   */
+  public static GcUsage current()
+  {
+    long collections = 0;
+    long collectionMillis = 0;
+
+    //-------------------------------------------------------------------------
+    // Collectors report -1 for anything they don't track, so skip those.
+    //-------------------------------------------------------------------------
+    for (final GarbageCollectorMXBean collector :
+        ManagementFactory.getGarbageCollectorMXBeans())
+    {
+      collections += Math.max(0, collector.getCollectionCount());
+      collectionMillis += Math.max(0, collector.getCollectionTime());
+    }
+
+    return new GcUsage(collections, collectionMillis);
+  }
+
+  /**
+   * @return the collections between the given earlier snapshot and this one
+   */
+  public GcUsage since(final GcUsage start)
+  {
+    return new GcUsage(
+      this.collections - start.collections,
+      this.collectionMillis - start.collectionMillis);
+  }
+
+  /**
+   * @return the sum of this usage and another
+   */
+  public GcUsage plus(final GcUsage other)
+  {
+    return new GcUsage(
+      this.collections + other.collections,
+      this.collectionMillis + other.collectionMillis);
+  }
+
+  /**
+   * @return no collections at all
+   */
+  public static GcUsage none()
+  {
+    return new GcUsage(0, 0);
+  }
+
+  public long collections() { return this.collections; }
+  public long collectionMillis() { return this.collectionMillis; }
+}
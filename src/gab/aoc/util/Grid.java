@@ -0,0 +1,94 @@
+package gab.aoc.util;
+
+/**
+ * A grid whose contents are held by the subclasses in a single flat
+ * primitive array, so it has at most as many cells as an array can hold,
+ * and each cell's index is an int.
+ */
+public abstract class Grid extends GridShape
+{
+  /**
+   * Some JVMs reserve a few header words in each array, so this is the
+   * largest array that can safely be asked for.
+   */
+  private static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+  protected Grid(
+      final int minX, final int minY, final int width, final int height)
+  {
+    super(minX, minY, width, height);
+
+    if (cellCount() > MAX_CELLS)
+    {
+      throw new IllegalArgumentException(
+        "Bad grid size: " + width + "x" + height);
+    }
+  }
+
+  /**
+   * @return the number of cells in the grid
+   */
+  public int size() { return (int)cellCount(); }
+
+  /**
+   * @return the index of the cell at x,y
+   */
+  public int index(final int x, final int y)
+  {
+    return (int)cellIndex(x, y);
+  }
+
+  /**
+   * @return the x coordinate of the cell with the given index
+   */
+  public int x(final int index)
+  {
+    return cellX(index);
+  }
+
+  /**
+   * @return the y coordinate of the cell with the given index
+   */
+  public int y(final int index)
+  {
+    return cellY(index);
+  }
+
+  /**
+   * Find the cells above, below, left and right of the given one, ignoring
+   * any that would be off the edge of the grid. Nothing is allocated, so
+   * this can be called in the inner loop of a search.
+   *
+   * @param into where to put the indices of the neighbouring cells - must
+   *   have room for at least four
+   * @return the number of neighbours found
+   */
+  public int neighbours(final int index, final int[] into)
+  {
+    final int width = width();
+    final int column = index % width;
+    int found = 0;
+
+    if (index >= width)
+    {
+      into[found++] = index - width;
+    }
+
+    if (index < size() - width)
+    {
+      into[found++] = index + width;
+    }
+
+    if (column > 0)
+    {
+      into[found++] = index - 1;
+    }
+
+    if (column < width - 1)
+    {
+      into[found++] = index + 1;
+    }
+
+    return found;
+  }
+}
@@ -0,0 +1,96 @@
+package gab.aoc.util;
+
+/**
+ * The shape of a dense rectangular grid of cells, stored a row at a time
+ * (row-major), so each cell is identified both by its x,y coordinate and by
+ * its index in the storage.
+ *
+ * The grid doesn't have to start at 0,0: it covers 'width' columns from
+ * minX and 'height' rows from minY, so inputs with negative (or large)
+ * coordinates can be held without wasting space.
+ *
+ * Indices here are longs, so that grids with more cells than an array can
+ * hold (i.e. an OffHeapByteGrid) can share the same arithmetic. Grid
+ * narrows them to ints for grids held in arrays.
+ */
+public abstract class GridShape
+{
+  private final int minX;
+  private final int minY;
+  private final int width;
+  private final int height;
+
+  protected GridShape(
+      final int minX, final int minY, final int width, final int height)
+  {
+    if (width < 0 || height < 0)
+    {
+      throw new IllegalArgumentException(
+        "Bad grid size: " + width + "x" + height);
+    }
+
+    this.minX = minX;
+    this.minY = minY;
+    this.width = width;
+    this.height = height;
+  }
+
+  public int minX() { return this.minX; }
+  public int minY() { return this.minY; }
+  public int maxX() { return this.minX + this.width - 1; }
+  public int maxY() { return this.minY + this.height - 1; }
+  public int width() { return this.width; }
+  public int height() { return this.height; }
+
+  /**
+   * @return the number of cells in the grid
+   */
+  public long cellCount() { return (long)this.width * this.height; }
+
+  public boolean contains(final int x, final int y)
+  {
+    //-------------------------------------------------------------------------
+    // The offsets are taken as longs, since x - minX can overflow an int
+    // when the grid starts at a large negative coordinate.
+    //-------------------------------------------------------------------------
+    return x >= this.minX && (long)x - this.minX < this.width &&
+           y >= this.minY && (long)y - this.minY < this.height;
+  }
+
+  /**
+   * @return the index of the cell at x,y
+   */
+  public long cellIndex(final int x, final int y)
+  {
+    if (!contains(x, y))
+    {
+      throw new IndexOutOfBoundsException(
+        "Cell " + x + "," + y + " is outside the grid");
+    }
+
+    return (long)(y - this.minY) * this.width + (x - this.minX);
+  }
+
+  /**
+   * @return the x coordinate of the cell with the given index
+   */
+  public int cellX(final long index)
+  {
+    return this.minX + (int)(index % this.width);
+  }
+
+  /**
+   * @return the y coordinate of the cell with the given index
+   */
+  public int cellY(final long index)
+  {
+    return this.minY + (int)(index / this.width);
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.width + "x" + this.height +
+      " from " + this.minX + "," + this.minY;
+  }
+}
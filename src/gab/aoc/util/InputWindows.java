@@ -0,0 +1,273 @@
+package gab.aoc.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * ASCII input as a series of buffers ("windows"), in order, each ending at
+ * the end of a line (or, if asked, at the end of a group of lines), so no
+ * line or group of lines is ever split between two windows. This lets inputs
+ * bigger than a single buffer (which is limited to 2GB) be read through
+ * the same views as smaller ones.
+ *
+ * Files are mapped a window at a time, as each is reached, so nothing is
+ * read up front. A mapping stays valid until its buffer is garbage
+ * collected, as with a single mapped buffer.
+ */
+public class InputWindows implements Iterable<ByteBuffer>
+{
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+
+  /**
+   * The largest window mapped from a file by default. Only the parts of a
+   * window that are read are paged in, so this just bounds how much address
+   * space each one takes.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  private final Iterable<ByteBuffer> windows;
+  private final long size;
+
+  private InputWindows(final Iterable<ByteBuffer> windows, final long size)
+  {
+    this.windows = windows;
+    this.size = size;
+  }
+
+  /**
+   * @return the input in the given buffer (between its position and limit),
+   *   as a single window
+   */
+  public static InputWindows of(final ByteBuffer buffer)
+  {
+    return new InputWindows(
+      Collections.singletonList(buffer), buffer.remaining());
+  }
+
+  /**
+   * @return the given file, mapped read-only in windows of up to the given
+   *   size. Reading a line longer than that fails with an
+   *   InputFileException.
+   */
+  public static InputWindows mapFile(final Path file, final int windowSize)
+  {
+    return mapFile(file, windowSize, RecordSpliterator.Boundary.LINE);
+  }
+
+  /**
+   * @return the given file, mapped read-only in windows of up to the given
+   *   size, each ending at the given kind of boundary. Reading a line (or
+   *   group of lines) longer than that fails with an InputFileException.
+   */
+  public static InputWindows mapFile(
+      final Path file,
+      final int windowSize,
+      final RecordSpliterator.Boundary boundary)
+  {
+    if (windowSize <= 0)
+    {
+      throw new IllegalArgumentException("Bad window size: " + windowSize);
+    }
+
+    try
+    {
+      final long size = Files.size(file);
+      return new InputWindows(
+        () -> new WindowIterator(file, size, windowSize, boundary), size);
+    }
+    catch (final NoSuchFileException e)
+    {
+      throw new InputFileException("Input file not found", e);
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not read input file", e);
+    }
+  }
+
+  /**
+   * @return the total number of bytes in all the windows
+   */
+  public long size() { return this.size; }
+
+  @Override
+  public Iterator<ByteBuffer> iterator()
+  {
+    return this.windows.iterator();
+  }
+
+  @Override
+  public Spliterator<ByteBuffer> spliterator()
+  {
+    return Spliterators.spliteratorUnknownSize(iterator(),
+      Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+  }
+
+  /**
+   * Maps each window of a file when it's asked for.
+   */
+  private static class WindowIterator implements Iterator<ByteBuffer>
+  {
+    private final Path file;
+    private final long fileSize;
+    private final int windowSize;
+    private final RecordSpliterator.Boundary boundary;
+    private long nextOffset = 0;
+
+    public WindowIterator(
+        final Path file,
+        final long fileSize,
+        final int windowSize,
+        final RecordSpliterator.Boundary boundary)
+    {
+      this.file = file;
+      this.fileSize = fileSize;
+      this.windowSize = windowSize;
+      this.boundary = boundary;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      return this.nextOffset < this.fileSize;
+    }
+
+    @Override
+    public ByteBuffer next()
+    {
+      if (!hasNext())
+      {
+        throw new NoSuchElementException();
+      }
+
+      final ByteBuffer window = map(this.nextOffset);
+      this.nextOffset += window.remaining();
+      return window;
+    }
+
+    /**
+     * Map as much of the file from the given offset as will fit in a window,
+     * then cut it back to just after the last boundary - unless it reaches
+     * the end of the file.
+     */
+    private ByteBuffer map(final long offset)
+    {
+      final int length =
+        (int)Math.min(this.windowSize, this.fileSize - offset);
+      final ByteBuffer mapped;
+
+      //-----------------------------------------------------------------------
+      // The channel needn't stay open: the mapping outlives it.
+      //-----------------------------------------------------------------------
+      try (final FileChannel channel =
+             FileChannel.open(this.file, StandardOpenOption.READ))
+      {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+      }
+      catch (final NoSuchFileException e)
+      {
+        throw new InputFileException("Input file not found", e);
+      }
+      catch (final IOException e)
+      {
+        throw new InputFileException("Could not map input file", e);
+      }
+
+      if (offset + length == this.fileSize)
+      {
+        return mapped;
+      }
+
+      final int end =
+        (this.boundary == RecordSpliterator.Boundary.THREE_LINE_GROUP) ?
+          lastGroupEnd(mapped, length) : lastBoundary(mapped, length);
+
+      if (end == 0)
+      {
+        throw new InputFileException("No record boundary within " +
+          this.windowSize + " bytes of offset " + offset);
+      }
+
+      //-----------------------------------------------------------------------
+      // The cast to Buffer is deliberate, as in ByteLines.
+      //-----------------------------------------------------------------------
+      ((Buffer)mapped).limit(end);
+      return mapped.slice();
+    }
+
+    /**
+     * @return the offset just after the last boundary in the first 'length'
+     *   bytes of the window, or 0 if there isn't one
+     */
+    private int lastBoundary(final ByteBuffer window, final int length)
+    {
+      int end = length;
+
+      while (end > 0 && !isBoundary(window, end))
+      {
+        end--;
+      }
+
+      return end;
+    }
+
+    /**
+     * @return the offset just after the end of the last whole group of three
+     *   lines in the first 'length' bytes of the window, or 0 if there isn't
+     *   one. The window starts at the start of a group, so this means
+     *   counting every line in it.
+     */
+    private static int lastGroupEnd(final ByteBuffer window, final int length)
+    {
+      int lines = 0;
+      int end = 0;
+
+      for (int offset = 0; offset < length; offset++)
+      {
+        if (window.get(offset) == LF &&
+            ++lines % RecordSpliterator.LINES_PER_GROUP == 0)
+        {
+          end = offset + 1;
+        }
+      }
+
+      return end;
+    }
+
+    /**
+     * @return true if the window can end just before the given offset. The
+     *   window starts at the start of a line, so a line feed at its start
+     *   ends a blank line.
+     */
+    private boolean isBoundary(final ByteBuffer window, final int end)
+    {
+      final int lf = end - 1;
+
+      if (window.get(lf) != LF)
+      {
+        return false;
+      }
+
+      if (this.boundary == RecordSpliterator.Boundary.LINE || lf == 0)
+      {
+        return true;
+      }
+
+      final byte before = window.get(lf - 1);
+      return before == LF ||
+        (before == CR && (lf == 1 || window.get(lf - 2) == LF));
+    }
+  }
+}
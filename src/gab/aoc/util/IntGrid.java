@@ -0,0 +1,61 @@
+package gab.aoc.util;
+
+import java.util.Arrays;
+
+/**
+ * A grid of ints, one per cell - e.g. the distance to each cell found by a
+ * search.
+ */
+public class IntGrid extends Grid
+{
+  private final int[] cells;
+
+  public IntGrid(final int width, final int height)
+  {
+    this(0, 0, width, height);
+  }
+
+  public IntGrid(
+      final int minX, final int minY, final int width, final int height)
+  {
+    super(minX, minY, width, height);
+    this.cells = new int[size()];
+  }
+
+  /**
+   * @return a grid of the same shape as the given one, with every cell set
+   *   to the given value
+   */
+  public static IntGrid sameShapeAs(final Grid shape, final int value)
+  {
+    final IntGrid grid = new IntGrid(
+      shape.minX(), shape.minY(), shape.width(), shape.height());
+    grid.fill(value);
+    return grid;
+  }
+
+  public int get(final int x, final int y)
+  {
+    return this.cells[index(x, y)];
+  }
+
+  public void set(final int x, final int y, final int value)
+  {
+    this.cells[index(x, y)] = value;
+  }
+
+  public int getAt(final int index)
+  {
+    return this.cells[index];
+  }
+
+  public void setAt(final int index, final int value)
+  {
+    this.cells[index] = value;
+  }
+
+  public void fill(final int value)
+  {
+    Arrays.fill(this.cells, value);
+  }
+}
@@ -0,0 +1,249 @@
+package gab.aoc.util;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * A set of whole numbers held as sorted, disjoint, inclusive intervals
+ * (e.g. the spaces in a row covered by any sensor), rather than as the
+ * numbers themselves - so the cost of working with it depends on how many
+ * intervals there are, not how wide they are.
+ *
+ * The intervals are kept in two parallel arrays of bounds. Adding an
+ * interval merges it with any that it overlaps or touches, so no two
+ * intervals ever overlap or touch, and lookups are binary searches.
+ */
+public class IntervalSet
+{
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] starts;
+  private long[] ends;
+  private int size = 0;
+
+  public IntervalSet()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param initialCapacity how many separate intervals the set should hold
+   *   without having to grow
+   */
+  public IntervalSet(final int initialCapacity)
+  {
+    if (initialCapacity < 0)
+    {
+      throw new IllegalArgumentException("Bad capacity: " + initialCapacity);
+    }
+
+    this.starts = new long[initialCapacity];
+    this.ends = new long[initialCapacity];
+  }
+
+  /**
+   * @return true if the inclusive intervals start1-end1 and start2-end2 have
+   *   any number in common
+   */
+  public static boolean overlaps(
+      final long start1, final long end1, final long start2, final long end2)
+  {
+    return start1 <= end2 && start2 <= end1;
+  }
+
+  /**
+   * @return true if the inclusive interval outerStart-outerEnd contains
+   *   every number in innerStart-innerEnd
+   */
+  public static boolean encloses(
+      final long outerStart,
+      final long outerEnd,
+      final long innerStart,
+      final long innerEnd)
+  {
+    return outerStart <= innerStart && innerEnd <= outerEnd;
+  }
+
+  /**
+   * @return the index of the first interval that ends at or after the
+   *   given value, or size if there isn't one
+   */
+  private int firstEndingFrom(final long value)
+  {
+    int low = 0;
+    int high = this.size;
+
+    while (low < high)
+    {
+      final int middle = (low + high) >>> 1;
+
+      if (this.ends[middle] < value)
+      {
+        low = middle + 1;
+      }
+      else
+      {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Add every number from start to end, inclusive.
+   */
+  public void add(final long start, final long end)
+  {
+    if (start > end)
+    {
+      throw new IllegalArgumentException("Bad interval: " + start + "-" + end);
+    }
+
+    //-------------------------------------------------------------------------
+    // Find the run of intervals that overlap or touch the new one. They
+    // (if any) are replaced by a single interval covering all of them.
+    //-------------------------------------------------------------------------
+    final int first =
+      firstEndingFrom((start == Long.MIN_VALUE) ? start : start - 1);
+    int last = first;
+
+    while (last < this.size &&
+           (end == Long.MAX_VALUE || this.starts[last] <= end + 1))
+    {
+      last++;
+    }
+
+    final int merged = last - first;
+
+    if (merged == 0)
+    {
+      insertAt(first, start, end);
+      return;
+    }
+
+    final long newStart = Math.min(start, this.starts[first]);
+    final long newEnd = Math.max(end, this.ends[last - 1]);
+    this.starts[first] = newStart;
+    this.ends[first] = newEnd;
+
+    if (merged > 1)
+    {
+      System.arraycopy(
+        this.starts, last, this.starts, first + 1, this.size - last);
+      System.arraycopy(
+        this.ends, last, this.ends, first + 1, this.size - last);
+      this.size -= merged - 1;
+    }
+  }
+
+  private void insertAt(final int index, final long start, final long end)
+  {
+    if (this.size == this.starts.length)
+    {
+      //-----------------------------------------------------------------------
+      // Grow by half again, as LongArrayList does.
+      //-----------------------------------------------------------------------
+      final int newCapacity =
+        Math.max(DEFAULT_CAPACITY, this.size + (this.size >> 1));
+      this.starts = Arrays.copyOf(this.starts, newCapacity);
+      this.ends = Arrays.copyOf(this.ends, newCapacity);
+    }
+
+    System.arraycopy(
+      this.starts, index, this.starts, index + 1, this.size - index);
+    System.arraycopy(
+      this.ends, index, this.ends, index + 1, this.size - index);
+    this.starts[index] = start;
+    this.ends[index] = end;
+    this.size++;
+  }
+
+  public boolean contains(final long value)
+  {
+    final int index = firstEndingFrom(value);
+    return index < this.size && this.starts[index] <= value;
+  }
+
+  /**
+   * @return true if any number from start to end (inclusive) is in the set
+   */
+  public boolean overlaps(final long start, final long end)
+  {
+    final int index = firstEndingFrom(start);
+    return index < this.size && this.starts[index] <= end;
+  }
+
+  /**
+   * @return true if every number from start to end (inclusive) is in the
+   *   set
+   */
+  public boolean encloses(final long start, final long end)
+  {
+    final int index = firstEndingFrom(end);
+    return index < this.size && this.starts[index] <= start;
+  }
+
+  /**
+   * @return the first number from start to end (inclusive) that isn't in
+   *   the set, if there is one
+   */
+  public OptionalLong firstGap(final long start, final long end)
+  {
+    final int index = firstEndingFrom(start);
+
+    if (index == this.size || this.starts[index] > start)
+    {
+      return (start <= end) ? OptionalLong.of(start) : OptionalLong.empty();
+    }
+
+    //-------------------------------------------------------------------------
+    // The start is covered, and intervals never touch, so the number after
+    // the end of the covering interval is the first gap.
+    //-------------------------------------------------------------------------
+    final long coveredTo = this.ends[index];
+    return (coveredTo < end) ?
+      OptionalLong.of(coveredTo + 1) : OptionalLong.empty();
+  }
+
+  /**
+   * @return how many numbers are in the set
+   */
+  public long coveredLength()
+  {
+    long length = 0;
+
+    for (int i = 0; i < this.size; i++)
+    {
+      length += this.ends[i] - this.starts[i] + 1;
+    }
+
+    return length;
+  }
+
+  /**
+   * @return the number of separate intervals in the set
+   */
+  public int intervalCount() { return this.size; }
+
+  public boolean isEmpty() { return this.size == 0; }
+
+  public void clear()
+  {
+    this.size = 0;
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder description = new StringBuilder("[");
+
+    for (int i = 0; i < this.size; i++)
+    {
+      description.append((i == 0) ? "" : ", ")
+        .append(this.starts[i]).append('-').append(this.ends[i]);
+    }
+
+    return description.append(']').toString();
+  }
+}
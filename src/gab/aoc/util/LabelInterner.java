@@ -0,0 +1,58 @@
+package gab.aoc.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Gives each distinct label (e.g. a valve name) a small int id, counting up
+ * from zero in the order the labels are first seen. Graphs and searches can
+ * then work with the ids, in arrays, and only turn them back into labels
+ * for output.
+ */
+public class LabelInterner
+{
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> labels = new ArrayList<>();
+
+  /**
+   * @return the id of the given label, giving it the next free id if it
+   *   hasn't been seen before
+   */
+  public int intern(final String label)
+  {
+    final Integer existing = this.ids.get(label);
+
+    if (existing != null)
+    {
+      return existing;
+    }
+
+    final int id = this.labels.size();
+    this.ids.put(label, id);
+    this.labels.add(label);
+    return id;
+  }
+
+  /**
+   * @return the id of the given label, if it has been seen
+   */
+  public OptionalInt idOf(final String label)
+  {
+    final Integer id = this.ids.get(label);
+    return (id == null) ? OptionalInt.empty() : OptionalInt.of(id);
+  }
+
+  public String label(final int id)
+  {
+    return this.labels.get(id);
+  }
+
+  /**
+   * @return the number of distinct labels, which is also one more than the
+   *   highest id
+   */
+  public int size() { return this.labels.size(); }
+}
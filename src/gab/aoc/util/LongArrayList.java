@@ -0,0 +1,98 @@
+package gab.aoc.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * A growable list of longs (e.g. packed coordinates), held in a single
+ * array rather than as boxed Longs in an ArrayList - 8 bytes per entry
+ * instead of around 24.
+ */
+public class LongArrayList
+{
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] elements;
+  private int size = 0;
+
+  public LongArrayList()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongArrayList(final int initialCapacity)
+  {
+    if (initialCapacity < 0)
+    {
+      throw new IllegalArgumentException("Bad capacity: " + initialCapacity);
+    }
+
+    this.elements = new long[initialCapacity];
+  }
+
+  public void add(final long value)
+  {
+    if (this.size == this.elements.length)
+    {
+      //-----------------------------------------------------------------------
+      // Grow by half again, as ArrayList does.
+      //-----------------------------------------------------------------------
+      final int newCapacity =
+        Math.max(DEFAULT_CAPACITY, this.size + (this.size >> 1));
+      this.elements = Arrays.copyOf(this.elements, newCapacity);
+    }
+
+    this.elements[this.size++] = value;
+  }
+
+  public long get(final int index)
+  {
+    checkIndex(index);
+    return this.elements[index];
+  }
+
+  public void set(final int index, final long value)
+  {
+    checkIndex(index);
+    this.elements[index] = value;
+  }
+
+  private void checkIndex(final int index)
+  {
+    if (index < 0 || index >= this.size)
+    {
+      throw new IndexOutOfBoundsException(
+        "Index " + index + " out of " + this.size);
+    }
+  }
+
+  public int size() { return this.size; }
+  public boolean isEmpty() { return this.size == 0; }
+
+  public void clear()
+  {
+    this.size = 0;
+  }
+
+  public void forEach(final LongConsumer action)
+  {
+    for (int i = 0; i < this.size; i++)
+    {
+      action.accept(this.elements[i]);
+    }
+  }
+
+  public LongStream stream()
+  {
+    return Arrays.stream(this.elements, 0, this.size);
+  }
+
+  /**
+   * @return a copy of the list's values, in order
+   */
+  public long[] toArray()
+  {
+    return Arrays.copyOf(this.elements, this.size);
+  }
+}
@@ -0,0 +1,171 @@
+package gab.aoc.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * A set of longs - e.g. coordinates packed with Coordinate.pack - held in a
+ * single open-addressed array rather than as boxed Longs in a HashSet. Each
+ * entry takes 8 to 16 bytes instead of around 60, and adding or looking one
+ * up allocates nothing.
+ *
+ * Collisions are resolved by linear probing, and the table is kept at most
+ * half full. Zero marks an empty slot, so zero itself is tracked separately.
+ */
+public class LongHashSet
+{
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] keys;
+  private int mask;
+  private int size = 0;
+  private boolean containsZero = false;
+
+  public LongHashSet()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param expectedSize how many entries the set should hold without
+   *   having to grow
+   */
+  public LongHashSet(final int expectedSize)
+  {
+    allocate(LongHashing.tableSize(expectedSize));
+  }
+
+  private void allocate(final int capacity)
+  {
+    this.keys = new long[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * @return true if the value wasn't already in the set
+   */
+  public boolean add(final long value)
+  {
+    if (value == 0)
+    {
+      final boolean added = !this.containsZero;
+      this.containsZero = true;
+      return added;
+    }
+
+    int slot = LongHashing.slot(value, this.mask);
+
+    while (this.keys[slot] != 0)
+    {
+      if (this.keys[slot] == value)
+      {
+        return false;
+      }
+
+      slot = (slot + 1) & this.mask;
+    }
+
+    this.keys[slot] = value;
+    this.size++;
+
+    if (LongHashing.isOverloaded(this.size, this.keys.length))
+    {
+      rehash();
+    }
+
+    return true;
+  }
+
+  public boolean contains(final long value)
+  {
+    if (value == 0)
+    {
+      return this.containsZero;
+    }
+
+    int slot = LongHashing.slot(value, this.mask);
+
+    while (this.keys[slot] != 0)
+    {
+      if (this.keys[slot] == value)
+      {
+        return true;
+      }
+
+      slot = (slot + 1) & this.mask;
+    }
+
+    return false;
+  }
+
+  /**
+   * Double the table, and put every entry back in.
+   */
+  private void rehash()
+  {
+    final long[] oldKeys = this.keys;
+    allocate(oldKeys.length * 2);
+
+    for (final long key : oldKeys)
+    {
+      if (key != 0)
+      {
+        int slot = LongHashing.slot(key, this.mask);
+
+        while (this.keys[slot] != 0)
+        {
+          slot = (slot + 1) & this.mask;
+        }
+
+        this.keys[slot] = key;
+      }
+    }
+  }
+
+  public int size()
+  {
+    return this.size + (this.containsZero ? 1 : 0);
+  }
+
+  public boolean isEmpty()
+  {
+    return size() == 0;
+  }
+
+  public void clear()
+  {
+    Arrays.fill(this.keys, 0);
+    this.size = 0;
+    this.containsZero = false;
+  }
+
+  /**
+   * Pass each value in the set to the given action, in no particular order.
+   */
+  public void forEach(final LongConsumer action)
+  {
+    if (this.containsZero)
+    {
+      action.accept(0);
+    }
+
+    for (final long key : this.keys)
+    {
+      if (key != 0)
+      {
+        action.accept(key);
+      }
+    }
+  }
+
+  /**
+   * @return the values in the set, in no particular order
+   */
+  public LongStream stream()
+  {
+    final LongStream nonZero = Arrays.stream(this.keys).filter( k -> k != 0 );
+    return this.containsZero ?
+      LongStream.concat(LongStream.of(0), nonZero) : nonZero;
+  }
+}
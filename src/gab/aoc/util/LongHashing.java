@@ -0,0 +1,74 @@
+package gab.aoc.util;
+
+/**
+ * Table sizing and hashing shared by the open-addressed long collections.
+ */
+final class LongHashing
+{
+  /**
+   * Tables are grown once they're more than half full, which keeps linear
+   * probe sequences short.
+   */
+  private static final int MAX_LOAD_PERCENT = 50;
+
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private LongHashing() {}
+
+  /**
+   * @return the power-of-two table size needed to hold the given number of
+   *   entries without growing
+   */
+  static int tableSize(final int expectedSize)
+  {
+    if (expectedSize < 0)
+    {
+      throw new IllegalArgumentException("Bad size: " + expectedSize);
+    }
+
+    final long needed = Math.max(2L,
+      (long)expectedSize * 100 / MAX_LOAD_PERCENT + 1);
+
+    if (needed > MAX_CAPACITY)
+    {
+      throw new IllegalArgumentException("Too large: " + expectedSize);
+    }
+
+    return Integer.highestOneBit((int)needed - 1) << 1;
+  }
+
+  /**
+   * @return true if a table of the given capacity holding the given number
+   *   of entries should be grown
+   */
+  static boolean isOverloaded(final int size, final int capacity)
+  {
+    if ((long)size * 100 <= (long)capacity * MAX_LOAD_PERCENT)
+    {
+      return false;
+    }
+
+    if (capacity >= MAX_CAPACITY)
+    {
+      throw new LogicException("Too many entries: " + size);
+    }
+
+    return true;
+  }
+
+  /**
+   * @return the home slot for the given key. Packed coordinates have all of
+   *   their variation in the low bits of each half, so the key is mixed
+   *   (with the finaliser from MurmurHash3) before it's masked.
+   */
+  static int slot(final long key, final int mask)
+  {
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int)h & mask;
+  }
+}
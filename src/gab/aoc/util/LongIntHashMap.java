@@ -0,0 +1,186 @@
+package gab.aoc.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from longs (e.g. packed coordinates) to ints, held in two parallel
+ * open-addressed arrays rather than as boxed entries in a HashMap. Each
+ * entry takes 12 to 24 bytes, and nothing is allocated to look one up or
+ * change it.
+ *
+ * As with LongHashSet, collisions are resolved by linear probing, the table
+ * is kept at most half full, and the key zero is tracked separately.
+ */
+public class LongIntHashMap
+{
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * What's passed each entry by forEach.
+   */
+  @FunctionalInterface
+  public interface EntryConsumer
+  {
+    void accept(long key, int value);
+  }
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size = 0;
+  private boolean containsZero = false;
+  private int zeroValue = 0;
+
+  public LongIntHashMap()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param expectedSize how many entries the map should hold without
+   *   having to grow
+   */
+  public LongIntHashMap(final int expectedSize)
+  {
+    allocate(LongHashing.tableSize(expectedSize));
+  }
+
+  private void allocate(final int capacity)
+  {
+    this.keys = new long[capacity];
+    this.values = new int[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * @return the slot holding the key, or the empty slot where it would go
+   */
+  private int find(final long key)
+  {
+    int slot = LongHashing.slot(key, this.mask);
+
+    while (this.keys[slot] != 0 && this.keys[slot] != key)
+    {
+      slot = (slot + 1) & this.mask;
+    }
+
+    return slot;
+  }
+
+  public boolean containsKey(final long key)
+  {
+    return (key == 0) ? this.containsZero : (this.keys[find(key)] != 0);
+  }
+
+  /**
+   * @return the value for the key, or the given default if there isn't one
+   */
+  public int getOrDefault(final long key, final int defaultValue)
+  {
+    if (key == 0)
+    {
+      return this.containsZero ? this.zeroValue : defaultValue;
+    }
+
+    final int slot = find(key);
+    return (this.keys[slot] != 0) ? this.values[slot] : defaultValue;
+  }
+
+  /**
+   * Set the value for the key, replacing any value it had.
+   */
+  public void put(final long key, final int value)
+  {
+    if (key == 0)
+    {
+      this.containsZero = true;
+      this.zeroValue = value;
+      return;
+    }
+
+    final int slot = find(key);
+
+    if (this.keys[slot] != 0)
+    {
+      this.values[slot] = value;
+      return;
+    }
+
+    this.keys[slot] = key;
+    this.values[slot] = value;
+    this.size++;
+
+    if (LongHashing.isOverloaded(this.size, this.keys.length))
+    {
+      rehash();
+    }
+  }
+
+  /**
+   * Add to the value for the key, treating a missing value as zero.
+   *
+   * @return the new value
+   */
+  public int addTo(final long key, final int delta)
+  {
+    final int value = getOrDefault(key, 0) + delta;
+    put(key, value);
+    return value;
+  }
+
+  /**
+   * Double the table, and put every entry back in.
+   */
+  private void rehash()
+  {
+    final long[] oldKeys = this.keys;
+    final int[] oldValues = this.values;
+    allocate(oldKeys.length * 2);
+
+    for (int i = 0; i < oldKeys.length; i++)
+    {
+      if (oldKeys[i] != 0)
+      {
+        final int slot = find(oldKeys[i]);
+        this.keys[slot] = oldKeys[i];
+        this.values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  public int size()
+  {
+    return this.size + (this.containsZero ? 1 : 0);
+  }
+
+  public boolean isEmpty()
+  {
+    return size() == 0;
+  }
+
+  public void clear()
+  {
+    Arrays.fill(this.keys, 0);
+    this.size = 0;
+    this.containsZero = false;
+  }
+
+  /**
+   * Pass each entry in the map to the given action, in no particular order.
+   */
+  public void forEach(final EntryConsumer action)
+  {
+    if (this.containsZero)
+    {
+      action.accept(0, this.zeroValue);
+    }
+
+    for (int i = 0; i < this.keys.length; i++)
+    {
+      if (this.keys[i] != 0)
+      {
+        action.accept(this.keys[i], this.values[i]);
+      }
+    }
+  }
+}
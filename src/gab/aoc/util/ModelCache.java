@@ -0,0 +1,180 @@
+package gab.aoc.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
+
+/**
+ * A directory of parsed models, stored in binary form so that they can be
+ * loaded with a single bulk read instead of parsing the input text again.
+ *
+ * Entries are keyed by name (i.e. the day) and by a SHA-256 hash of the
+ * input file's contents, so editing an input never picks up a stale model.
+ * Each entry starts with a magic number and the codec's format version; an
+ * entry that doesn't match is ignored and replaced.
+ */
+public class ModelCache
+{
+  private static final int MAGIC = 0x414f434d; // "AOCM"
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private final Path directory;
+
+  public ModelCache(final Path directory)
+  {
+    this.directory = directory;
+  }
+
+  private static MessageDigest newDigest()
+  {
+    try
+    {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (final NoSuchAlgorithmException e)
+    {
+      throw new LogicException("SHA-256 not available", e);
+    }
+  }
+
+  private static String toHex(final byte[] digest)
+  {
+    final StringBuilder hex = new StringBuilder();
+
+    for (final byte b : digest)
+    {
+      hex.append(String.format("%02x", b));
+    }
+
+    return hex.toString();
+  }
+
+  /**
+   * @return the hex-encoded SHA-256 hash of the given file's contents
+   */
+  public static String hashFile(final Path file)
+  {
+    try (final DigestInputStream input =
+           new DigestInputStream(Files.newInputStream(file), newDigest()))
+    {
+      final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+      while (input.read(buffer) != -1)
+      {
+        // Just reading through the file updates the digest.
+      }
+
+      return toHex(input.getMessageDigest().digest());
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not read input file", e);
+    }
+  }
+
+  /**
+   * @return the hex-encoded SHA-256 hash of the given input, already in
+   *   memory - the same as hashFile would give for a file holding it
+   */
+  public static String hashBytes(final byte[] input)
+  {
+    return toHex(newDigest().digest(input));
+  }
+
+  /**
+   * Get the model for the input with the given hash (from hashFile or
+   * hashBytes), loading it from the cache if there is a valid entry.
+   * Otherwise, run the parser and store its result in the cache for next
+   * time.
+   */
+  public <M> M getOrParse(
+      final String name,
+      final String inputHash,
+      final ModelCodec<M> codec,
+      final Supplier<M> parser)
+  {
+    final Path entry =
+      this.directory.resolve(name + "-" + inputHash + ".bin");
+
+    if (Files.isRegularFile(entry))
+    {
+      try
+      {
+        return load(entry, codec);
+      }
+      catch (final IOException | RuntimeException e)
+      {
+        //---------------------------------------------------------------------
+        // Corrupt, truncated or from an old format version. Fall through and
+        // replace it. A corrupt entry can also hold values the model itself
+        // rejects, with a runtime exception, which is no different.
+        //---------------------------------------------------------------------
+      }
+    }
+
+    final M model = parser.get();
+    store(entry, codec, model);
+    return model;
+  }
+
+  private static <M> M load(final Path entry, final ModelCodec<M> codec)
+    throws IOException
+  {
+    final byte[] contents = Files.readAllBytes(entry);
+    final DataInputStream input =
+      new DataInputStream(new ByteArrayInputStream(contents));
+
+    if (input.readInt() != MAGIC ||
+        input.readInt() != codec.formatVersion())
+    {
+      throw new IOException("Not a current cache entry: " + entry);
+    }
+
+    final M model = codec.read(input);
+
+    if (input.available() != 0)
+    {
+      throw new EOFException("Trailing data in cache entry: " + entry);
+    }
+
+    return model;
+  }
+
+  /**
+   * Write the entry to a temporary file and then move it into place, so
+   * that concurrent runs never see a partly-written entry.
+   */
+  private <M> void store(
+      final Path entry, final ModelCodec<M> codec, final M model)
+  {
+    try
+    {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      final DataOutputStream output = new DataOutputStream(buffer);
+      output.writeInt(MAGIC);
+      output.writeInt(codec.formatVersion());
+      codec.write(model, output);
+      output.flush();
+
+      Files.createDirectories(this.directory);
+      final Path temp = Files.createTempFile(this.directory, "entry", ".tmp");
+      Files.write(temp, buffer.toByteArray());
+      Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (final IOException e)
+    {
+      throw new InputFileException("Could not write model cache entry", e);
+    }
+  }
+}
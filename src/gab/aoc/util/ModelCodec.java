@@ -0,0 +1,123 @@
+package gab.aoc.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Converts a day's parsed model to and from a compact binary form, so that
+ * it can be stored in a ModelCache.
+ */
+public interface ModelCodec<M>
+{
+  /**
+   * The most elements that readCount will let a codec allocate room for up
+   * front. Longer lists still load, but grow as they're read.
+   */
+  int MAX_INITIAL_CAPACITY = 1 << 16;
+
+  /**
+   * Write a non-negative int in as few bytes as possible: seven bits per
+   * byte, with the top bit set on every byte but the last.
+   */
+  static void writeVarInt(final DataOutput output, final int value)
+    throws IOException
+  {
+    if (value < 0)
+    {
+      throw new IllegalArgumentException("Negative value: " + value);
+    }
+
+    int remaining = value;
+
+    while (remaining >= 0x80)
+    {
+      output.writeByte((remaining & 0x7f) | 0x80);
+      remaining >>>= 7;
+    }
+
+    output.writeByte(remaining);
+  }
+
+  /**
+   * Read an int written by writeVarInt.
+   */
+  static int readVarInt(final DataInput input) throws IOException
+  {
+    int value = 0;
+
+    for (int shift = 0; shift < 32; shift += 7)
+    {
+      final int b = input.readUnsignedByte();
+      value |= (b & 0x7f) << shift;
+
+      if ((b & 0x80) == 0)
+      {
+        return value;
+      }
+    }
+
+    throw new IOException("Malformed variable-length int");
+  }
+
+  /**
+   * Read a count of elements written by writeInt. Cache entries can be
+   * corrupt, so this checks the count could have been written.
+   *
+   * @throws IOException if the count is negative
+   */
+  static int readCount(final DataInput input) throws IOException
+  {
+    final int count = input.readInt();
+
+    if (count < 0)
+    {
+      throw new IOException("Bad element count: " + count);
+    }
+
+    return count;
+  }
+
+  /**
+   * @return how much room to allocate for the given count of elements from
+   *   a cache entry. This is capped, so that a corrupt count runs out of
+   *   data (and fails with an EOFException) rather than memory.
+   */
+  static int initialCapacity(final int count)
+  {
+    return Math.min(count, MAX_INITIAL_CAPACITY);
+  }
+
+  /**
+   * Read the given number of ints written by writeInt, growing the array as
+   * they're read rather than trusting the count up front.
+   */
+  static int[] readInts(final DataInput input, final int count)
+    throws IOException
+  {
+    int[] values = new int[initialCapacity(count)];
+
+    for (int i = 0; i < count; i++)
+    {
+      if (i == values.length)
+      {
+        values = Arrays.copyOf(values, values.length * 2);
+      }
+
+      values[i] = input.readInt();
+    }
+
+    return values;
+  }
+
+  /**
+   * @return the version of the binary format. This must be changed whenever
+   * the format changes, so that stale cache entries are ignored.
+   */
+  int formatVersion();
+
+  void write(M model, DataOutput output) throws IOException;
+
+  M read(DataInput input) throws IOException;
+}
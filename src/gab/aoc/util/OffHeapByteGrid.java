@@ -0,0 +1,253 @@
+package gab.aoc.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+
+/**
+ * A grid of bytes held outside the Java heap, for grids too big to hold (or
+ * to hold comfortably) in a ByteGrid. Cells are indexed by long, and stored
+ * in row order across a series of buffers of up to 1GB each, so the grid
+ * isn't limited by the maximum size of an array or a buffer. Nothing here
+ * is ever scanned by the garbage collector.
+ *
+ * The buffers are either allocated directly (limited in total by
+ * -XX:MaxDirectMemorySize) or mapped from a scratch file, which lets the
+ * operating system page the grid in and out as needed.
+ */
+public class OffHeapByteGrid extends GridShape implements ByteCells
+{
+  private static final int CHUNK_BITS = 30;
+  private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+  private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+  /**
+   * How each chunk of the grid is allocated, given its size.
+   */
+  @FunctionalInterface
+  private interface ChunkAllocator
+  {
+    ByteBuffer allocate(long offset, int size) throws IOException;
+  }
+
+  private final ByteBuffer[] chunks;
+
+  private OffHeapByteGrid(
+      final int minX,
+      final int minY,
+      final int width,
+      final int height,
+      final ChunkAllocator allocator) throws IOException
+  {
+    super(minX, minY, width, height);
+
+    final long size = cellCount();
+    this.chunks = new ByteBuffer[(int)((size + CHUNK_MASK) >>> CHUNK_BITS)];
+
+    for (int i = 0; i < this.chunks.length; i++)
+    {
+      final long offset = i * CHUNK_SIZE;
+      this.chunks[i] =
+        allocator.allocate(offset, (int)Math.min(CHUNK_SIZE, size - offset));
+    }
+  }
+
+  /**
+   * @return a grid in directly allocated memory, with every cell zero
+   */
+  public static OffHeapByteGrid allocate(
+      final int minX, final int minY, final int width, final int height)
+  {
+    try
+    {
+      return new OffHeapByteGrid(minX, minY, width, height,
+        (offset, size) -> ByteBuffer.allocateDirect(size));
+    }
+    catch (final IOException e)
+    {
+      throw new LogicException("Allocating memory can't do I/O", e);
+    }
+  }
+
+  public static OffHeapByteGrid allocate(final int width, final int height)
+  {
+    return allocate(0, 0, width, height);
+  }
+
+  /**
+   * @return a grid mapped from a new scratch file in the given directory,
+   *   with every cell zero. The file is deleted once it's been mapped (or,
+   *   where the operating system won't allow that, when the JVM exits), and
+   *   its space is freed when the grid is garbage collected.
+   */
+  public static OffHeapByteGrid mapScratchFile(
+      final Path directory,
+      final int minX,
+      final int minY,
+      final int width,
+      final int height) throws IOException
+  {
+    final Path scratch = Files.createTempFile(directory, "grid", ".tmp");
+    scratch.toFile().deleteOnExit();
+
+    try (final FileChannel channel = FileChannel.open(scratch,
+           StandardOpenOption.READ,
+           StandardOpenOption.WRITE,
+           StandardOpenOption.DELETE_ON_CLOSE))
+    {
+      return new OffHeapByteGrid(minX, minY, width, height,
+        (offset, size) ->
+          channel.map(FileChannel.MapMode.READ_WRITE, offset, size));
+    }
+  }
+
+  /**
+   * Build a grid straight from ASCII input, as ByteGrid.fromInput does,
+   * mapped from a scratch file in the given directory (so that its size
+   * isn't limited by the JVM's settings). The input can be in any number of
+   * windows (e.g. from InputWindows.mapFile, for inputs over 2GB), and is
+   * read twice: once to find the grid's size, and once to copy it.
+   *
+   * @throws InputFileException if the lines aren't all the same length
+   */
+  public static OffHeapByteGrid fromInput(
+      final Iterable<ByteBuffer> input, final Path scratchDirectory)
+    throws IOException
+  {
+    int width = 0;
+    long height = 0;
+
+    for (final ByteBuffer window : input)
+    {
+      for (final ByteBuffer row : new ByteLines(window))
+      {
+        if (height == 0)
+        {
+          width = row.remaining();
+        }
+        else if (row.remaining() != width)
+        {
+          throw new InputFileException("Line " + (height + 1) + " has " +
+            row.remaining() + " characters, expected " + width);
+        }
+
+        height++;
+      }
+    }
+
+    if (height > Integer.MAX_VALUE)
+    {
+      throw new InputFileException("Too many lines: " + height);
+    }
+
+    final OffHeapByteGrid grid =
+      mapScratchFile(scratchDirectory, 0, 0, width, (int)height);
+    long index = 0;
+
+    for (final ByteBuffer window : input)
+    {
+      for (final ByteBuffer row : new ByteLines(window))
+      {
+        grid.putRow(index, row);
+        index += width;
+      }
+    }
+
+    return grid;
+  }
+
+  /**
+   * Copy the whole of the given row into the grid, from the given index.
+   * The row may be split across two chunks.
+   */
+  private void putRow(final long index, final ByteBuffer row)
+  {
+    long next = index;
+
+    while (row.hasRemaining())
+    {
+      //-----------------------------------------------------------------------
+      // The casts to Buffer are deliberate, as in ByteLines.
+      //-----------------------------------------------------------------------
+      final ByteBuffer target = this.chunks[(int)(next >>> CHUNK_BITS)]
+        .duplicate();
+      ((Buffer)target).position((int)(next & CHUNK_MASK));
+
+      final int count = Math.min(row.remaining(), target.remaining());
+      final ByteBuffer source = row.slice();
+      ((Buffer)source).limit(count);
+      target.put(source);
+
+      ((Buffer)row).position(row.position() + count);
+      next += count;
+    }
+  }
+
+  @Override
+  public byte get(final int x, final int y)
+  {
+    return getAt(cellIndex(x, y));
+  }
+
+  @Override
+  public void set(final int x, final int y, final byte value)
+  {
+    setAt(cellIndex(x, y), value);
+  }
+
+  public byte getAt(final long index)
+  {
+    return this.chunks[(int)(index >>> CHUNK_BITS)]
+      .get((int)(index & CHUNK_MASK));
+  }
+
+  public void setAt(final long index, final byte value)
+  {
+    this.chunks[(int)(index >>> CHUNK_BITS)]
+      .put((int)(index & CHUNK_MASK), value);
+  }
+
+  public void fill(final byte value)
+  {
+    for (final ByteBuffer chunk : this.chunks)
+    {
+      for (int i = 0; i < chunk.capacity(); i++)
+      {
+        chunk.put(i, value);
+      }
+    }
+  }
+
+  /**
+   * @return the index of the first cell (in row order) holding the given
+   *   value, if there is one
+   */
+  public OptionalLong find(final byte value)
+  {
+    for (int c = 0; c < this.chunks.length; c++)
+    {
+      final ByteBuffer chunk = this.chunks[c];
+
+      for (int i = 0; i < chunk.capacity(); i++)
+      {
+        if (chunk.get(i) == value)
+        {
+          return OptionalLong.of(c * CHUNK_SIZE + i);
+        }
+      }
+    }
+
+    return OptionalLong.empty();
+  }
+
+  @Override
+  public String toString()
+  {
+    return super.toString() + " (off heap)";
+  }
+}
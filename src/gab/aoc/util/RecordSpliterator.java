@@ -0,0 +1,231 @@
+package gab.aoc.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator over the newline-separated records in a buffer of ASCII
+ * input, as views onto the original buffer (as with ByteLines). It splits
+ * the buffer in half at a record boundary, so a parallel stream over it
+ * gives each thread whole records, and nothing has to be read up front to
+ * find the boundaries.
+ *
+ * Inputs made of groups of lines separated by blank lines, or of groups of
+ * three lines, can be split only between groups, so that each group is
+ * seen by a single thread. Either way, the records stay in order, so a collector with an order-preserving
+ * combiner gets the same answer as running sequentially.
+ */
+public class RecordSpliterator implements Spliterator<ByteBuffer>
+{
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+
+  /**
+   * Below this many bytes, a split isn't worth the overhead.
+   */
+  private static final int MIN_SPLIT_SIZE = 16 * 1024;
+
+  static final int LINES_PER_GROUP = 3;
+
+  /**
+   * Where the input can be split.
+   */
+  public enum Boundary
+  {
+    /**
+     * At the start of any line.
+     */
+    LINE,
+
+    /**
+     * Just after a blank line, i.e. at the start of a group of lines.
+     */
+    BLANK_LINE,
+
+    /**
+     * At the start of a group of three lines, counting from the start of the
+     * input. Finding a split point means counting the lines before it, but
+     * a sequential stream never splits, so it never pays for that.
+     */
+    THREE_LINE_GROUP
+  }
+
+  private final ByteBuffer buffer;
+  private final Boundary boundary;
+  private final int limit;
+  private int position;
+
+  private RecordSpliterator(
+      final ByteBuffer buffer,
+      final Boundary boundary,
+      final int position,
+      final int limit)
+  {
+    this.buffer = buffer;
+    this.boundary = boundary;
+    this.position = position;
+    this.limit = limit;
+  }
+
+  /**
+   * Records are read between the buffer's current position and limit. The
+   * buffer itself is never modified.
+   */
+  public RecordSpliterator(final ByteBuffer buffer, final Boundary boundary)
+  {
+    this(buffer, boundary, buffer.position(), buffer.limit());
+  }
+
+  /**
+   * @return a read-only view of the given range of the buffer
+   */
+  private ByteBuffer view(final int start, final int end)
+  {
+    //-------------------------------------------------------------------------
+    // The casts to Buffer are deliberate, as in ByteLines.
+    //-------------------------------------------------------------------------
+    final ByteBuffer view = this.buffer.asReadOnlyBuffer();
+    ((Buffer)view).limit(end);
+    ((Buffer)view).position(start);
+    return view.slice();
+  }
+
+  /**
+   * @return the offset of the end of the line starting at the given offset
+   *   (i.e. of its line feed, or the limit if it has none)
+   */
+  private int lineEnd(final int start)
+  {
+    int end = start;
+
+    while (end < this.limit && this.buffer.get(end) != LF)
+    {
+      end++;
+    }
+
+    return end;
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super ByteBuffer> action)
+  {
+    if (this.position >= this.limit)
+    {
+      return false;
+    }
+
+    final int start = this.position;
+    int end = lineEnd(start);
+    this.position = end + 1;
+
+    if (end > start && this.buffer.get(end - 1) == CR)
+    {
+      end--;
+    }
+
+    action.accept(view(start, end));
+    return true;
+  }
+
+  /**
+   * @return the first boundary at or after the given offset, or the limit
+   *   if there isn't one
+   */
+  private int nextBoundary(final int from)
+  {
+    if (this.boundary == Boundary.THREE_LINE_GROUP)
+    {
+      return nextGroupStart(from);
+    }
+
+    int start = lineEnd(from) + 1;
+
+    if (this.boundary == Boundary.LINE)
+    {
+      return Math.min(start, this.limit);
+    }
+
+    while (start < this.limit)
+    {
+      final int end = lineEnd(start);
+      final boolean blank = (end == start) ||
+        (end == start + 1 && this.buffer.get(start) == CR);
+
+      if (blank)
+      {
+        return Math.min(end + 1, this.limit);
+      }
+
+      start = end + 1;
+    }
+
+    return this.limit;
+  }
+
+  /**
+   * @return the start of the first group of three lines at or after the
+   *   given offset (which is past the current position), or the limit if
+   *   there isn't one. The lines are counted from the current position,
+   *   which is always at the start of a group.
+   */
+  private int nextGroupStart(final int from)
+  {
+    int lines = 0;
+
+    for (int offset = this.position; offset < this.limit; offset++)
+    {
+      if (this.buffer.get(offset) == LF)
+      {
+        lines++;
+
+        if (offset + 1 >= from && lines % LINES_PER_GROUP == 0)
+        {
+          return offset + 1;
+        }
+      }
+    }
+
+    return this.limit;
+  }
+
+  @Override
+  public Spliterator<ByteBuffer> trySplit()
+  {
+    final int remaining = this.limit - this.position;
+
+    if (remaining < 2 * MIN_SPLIT_SIZE)
+    {
+      return null;
+    }
+
+    final int split = nextBoundary(this.position + remaining / 2);
+
+    if (split >= this.limit)
+    {
+      return null;
+    }
+
+    final RecordSpliterator prefix = new RecordSpliterator(
+      this.buffer, this.boundary, this.position, split);
+    this.position = split;
+    return prefix;
+  }
+
+  /**
+   * @return the number of bytes left, which is more than the number of
+   *   records left
+   */
+  @Override
+  public long estimateSize()
+  {
+    return this.limit - this.position;
+  }
+
+  @Override
+  public int characteristics()
+  {
+    return ORDERED | NONNULL | IMMUTABLE;
+  }
+}
@@ -0,0 +1,297 @@
+package gab.aoc.util;
+
+import java.util.Arrays;
+
+/**
+ * Shortest path searches over a CsrGraph. Each search fills in the distance
+ * from its source to every node, which can then be read with distanceTo.
+ * The working arrays are allocated once, for the size of the graph, so any
+ * number of searches can be run without allocating anything more - but
+ * only one at a time.
+ */
+public class ShortestPaths
+{
+  /**
+   * The distance to any node that can't be reached from the source.
+   */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  /**
+   * Searches check whether they've been cancelled after this many nodes.
+   */
+  private static final int CANCELLATION_CHECK_MASK = 0xfff;
+
+  /**
+   * Above this many nodes, the matrix from floydWarshall won't fit in an
+   * array.
+   */
+  private static final int MAX_MATRIX_NODES = 46340;
+
+  private final CsrGraph graph;
+  private final CancellationToken cancellation;
+  private final int[] distances;
+
+  /**
+   * The queue for breadth-first searches, or the binary heap for Dijkstra.
+   */
+  private final int[] queue;
+
+  /**
+   * Where each node is in the heap, or -1 if it isn't.
+   */
+  private final int[] heapPositions;
+  private int heapSize = 0;
+
+  public ShortestPaths(
+      final CsrGraph graph, final CancellationToken cancellation)
+  {
+    this.graph = graph;
+    this.cancellation = cancellation;
+    this.distances = new int[graph.nodeCount()];
+    this.queue = new int[graph.nodeCount()];
+    this.heapPositions = new int[graph.nodeCount()];
+  }
+
+  /**
+   * @return the distance to the given node found by the last search, or
+   *   UNREACHABLE
+   */
+  public int distanceTo(final int node)
+  {
+    return this.distances[node];
+  }
+
+  /**
+   * Find the fewest edges from the source to every node, ignoring the
+   * edges' weights.
+   */
+  public void breadthFirst(final int source)
+  {
+    Arrays.fill(this.distances, UNREACHABLE);
+    this.distances[source] = 0;
+    this.queue[0] = source;
+    int head = 0;
+    int tail = 1;
+
+    while (head < tail)
+    {
+      if ((head & CANCELLATION_CHECK_MASK) == 0)
+      {
+        this.cancellation.checkCancelled();
+      }
+
+      final int node = this.queue[head++];
+      final int distance = this.distances[node] + 1;
+
+      for (int e = this.graph.edgesStart(node);
+           e < this.graph.edgesEnd(node);
+           e++)
+      {
+        final int target = this.graph.target(e);
+
+        if (this.distances[target] == UNREACHABLE)
+        {
+          this.distances[target] = distance;
+          this.queue[tail++] = target;
+        }
+      }
+    }
+  }
+
+  /**
+   * Find the lowest total weight of edges from the source to every node,
+   * with Dijkstra's algorithm.
+   */
+  public void dijkstra(final int source)
+  {
+    Arrays.fill(this.distances, UNREACHABLE);
+    Arrays.fill(this.heapPositions, -1);
+    this.heapSize = 0;
+    this.distances[source] = 0;
+    heapPush(source);
+    int visited = 0;
+
+    while (this.heapSize > 0)
+    {
+      if ((visited++ & CANCELLATION_CHECK_MASK) == 0)
+      {
+        this.cancellation.checkCancelled();
+      }
+
+      final int node = heapPop();
+      final int distance = this.distances[node];
+
+      for (int e = this.graph.edgesStart(node);
+           e < this.graph.edgesEnd(node);
+           e++)
+      {
+        final int target = this.graph.target(e);
+        final long viaNode = (long)distance + this.graph.weight(e);
+
+        if (viaNode < this.distances[target])
+        {
+          this.distances[target] = (int)viaNode;
+
+          if (this.heapPositions[target] < 0)
+          {
+            heapPush(target);
+          }
+          else
+          {
+            siftUp(this.heapPositions[target]);
+          }
+        }
+      }
+    }
+  }
+
+  //---------------------------------------------------------------------------
+  // The heap for Dijkstra is a binary min-heap of nodes, ordered by their
+  // current distance, held in the queue array. Nodes know where they are in
+  // it, so a node whose distance drops can be moved up in place.
+  //---------------------------------------------------------------------------
+
+  private void heapPush(final int node)
+  {
+    this.queue[this.heapSize] = node;
+    this.heapPositions[node] = this.heapSize;
+    siftUp(this.heapSize++);
+  }
+
+  private int heapPop()
+  {
+    final int top = this.queue[0];
+    this.heapPositions[top] = -1;
+    this.heapSize--;
+
+    if (this.heapSize > 0)
+    {
+      placeInHeap(this.queue[this.heapSize], 0);
+      siftDown(0);
+    }
+
+    return top;
+  }
+
+  private void placeInHeap(final int node, final int position)
+  {
+    this.queue[position] = node;
+    this.heapPositions[node] = position;
+  }
+
+  private void siftUp(final int position)
+  {
+    final int node = this.queue[position];
+    final int distance = this.distances[node];
+    int slot = position;
+
+    while (slot > 0)
+    {
+      final int parent = (slot - 1) >>> 1;
+
+      if (this.distances[this.queue[parent]] <= distance)
+      {
+        break;
+      }
+
+      placeInHeap(this.queue[parent], slot);
+      slot = parent;
+    }
+
+    placeInHeap(node, slot);
+  }
+
+  private void siftDown(final int position)
+  {
+    final int node = this.queue[position];
+    final int distance = this.distances[node];
+    int slot = position;
+
+    while (true)
+    {
+      int child = 2 * slot + 1;
+
+      if (child >= this.heapSize)
+      {
+        break;
+      }
+
+      if (child + 1 < this.heapSize &&
+          this.distances[this.queue[child + 1]] <
+            this.distances[this.queue[child]])
+      {
+        child++;
+      }
+
+      if (this.distances[this.queue[child]] >= distance)
+      {
+        break;
+      }
+
+      placeInHeap(this.queue[child], slot);
+      slot = child;
+    }
+
+    placeInHeap(node, slot);
+  }
+
+  /**
+   * Find the lowest total weight of edges between every pair of nodes, with
+   * the Floyd-Warshall algorithm. This takes time proportional to the cube
+   * of the number of nodes, so suits small, densely connected graphs.
+   *
+   * @return the distances, a row per source node, so the distance from i
+   *   to j is at [i * nodeCount + j]. Pairs with no path are UNREACHABLE.
+   */
+  public static int[] floydWarshall(
+      final CsrGraph graph, final CancellationToken cancellation)
+  {
+    final int n = graph.nodeCount();
+
+    if (n > MAX_MATRIX_NODES)
+    {
+      throw new IllegalArgumentException("Too many nodes: " + n);
+    }
+
+    final int[] matrix = new int[n * n];
+    Arrays.fill(matrix, UNREACHABLE);
+
+    for (int i = 0; i < n; i++)
+    {
+      matrix[i * n + i] = 0;
+
+      for (int e = graph.edgesStart(i); e < graph.edgesEnd(i); e++)
+      {
+        final int cell = i * n + graph.target(e);
+        matrix[cell] = Math.min(matrix[cell], graph.weight(e));
+      }
+    }
+
+    for (int k = 0; k < n; k++)
+    {
+      cancellation.checkCancelled();
+
+      for (int i = 0; i < n; i++)
+      {
+        final int toK = matrix[i * n + k];
+
+        if (toK == UNREACHABLE)
+        {
+          continue;
+        }
+
+        for (int j = 0; j < n; j++)
+        {
+          final long viaK = (long)toK + matrix[k * n + j];
+
+          if (viaK < matrix[i * n + j])
+          {
+            matrix[i * n + j] = (int)viaK;
+          }
+        }
+      }
+    }
+
+    return matrix;
+  }
+}
@@ -0,0 +1,15 @@
+package gab.aoc.util;
+
+/**
+ * Thrown from a task that has noticed its CancellationToken has been
+ * cancelled, e.g. because it ran out of time.
+ */
+public class TaskCancelledException extends RuntimeException
+{
+  private static final long serialVersionUID = 1L;
+
+  public TaskCancelledException(final String message)
+  {
+    super(message);
+  }
+}
@@ -0,0 +1,93 @@
+package gab.aoc.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The resources used by the current thread: wall-clock time, CPU time, and
+ * bytes allocated on the heap. Take a snapshot before and after some work
+ * and use 'since' to get the difference.
+ *
+ * CPU time and allocated bytes are -1 where the JVM can't measure them.
+ * Allocations are only counted for the current thread, so work handed off
+ * to other threads (e.g. parallel streams) isn't included.
+ */
+public class ThreadUsage
+{
+  private static final ThreadMXBean THREADS =
+    ManagementFactory.getThreadMXBean();
+
+  private final long wallNanos;
+  private final long cpuNanos;
+  private final long allocatedBytes;
+
+  private ThreadUsage(
+      final long wallNanos, final long cpuNanos, final long allocatedBytes)
+  {
+    this.wallNanos = wallNanos;
+    this.cpuNanos = cpuNanos;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  private static long currentCpuNanos()
+  {
+    if (THREADS.isCurrentThreadCpuTimeSupported() &&
+        THREADS.isThreadCpuTimeEnabled())
+    {
+      return THREADS.getCurrentThreadCpuTime();
+    }
+
+    return -1;
+  }
+
+  private static long currentAllocatedBytes()
+  {
+    //-------------------------------------------------------------------------
+    // Allocation counting is a HotSpot extension, so it's only available
+    // through the com.sun.management version of the bean.
+    //-------------------------------------------------------------------------
+    if (THREADS instanceof com.sun.management.ThreadMXBean)
+    {
+      final com.sun.management.ThreadMXBean hotspotThreads =
+        (com.sun.management.ThreadMXBean)THREADS;
+
+      if (hotspotThreads.isThreadAllocatedMemorySupported() &&
+          hotspotThreads.isThreadAllocatedMemoryEnabled())
+      {
+        return hotspotThreads.getThreadAllocatedBytes(
+          Thread.currentThread().getId());
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * @return a snapshot of the current thread's usage so far
+   */
+  public static ThreadUsage current()
+  {
+    return new ThreadUsage(
+      System.nanoTime(), currentCpuNanos(), currentAllocatedBytes());
+  }
+
+  private static long difference(final long end, final long start)
+  {
+    return (end < 0 || start < 0) ? -1 : (end - start);
+  }
+
+  /**
+   * @return the usage between the given earlier snapshot and this one
+   */
+  public ThreadUsage since(final ThreadUsage start)
+  {
+    return new ThreadUsage(
+      this.wallNanos - start.wallNanos,
+      difference(this.cpuNanos, start.cpuNanos),
+      difference(this.allocatedBytes, start.allocatedBytes));
+  }
+
+  public long wallNanos() { return this.wallNanos; }
+  public long cpuNanos() { return this.cpuNanos; }
+  public long allocatedBytes() { return this.allocatedBytes; }
+}